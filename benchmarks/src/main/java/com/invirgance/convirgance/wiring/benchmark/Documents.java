@@ -0,0 +1,258 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring.benchmark;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.source.FileSource;
+import com.invirgance.convirgance.source.Source;
+import com.invirgance.convirgance.wiring.TagRegistry;
+import com.invirgance.convirgance.wiring.WiringOptions;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+
+/**
+ * Generates synthetic wiring documents with controlled shapes. The same
+ * shape and size always produce the same document, so results can be 
+ * compared between runs.
+ * 
+ * @author jbanes
+ */
+public final class Documents
+{
+    /**
+     * The number of distinct custom tags used by the <code>custom</code> shape
+     */
+    public static final int CUSTOM_TAGS = 50;
+    
+    /**
+     * The nesting depth of each chain of objects in the <code>deep</code> shape
+     */
+    public static final int DEPTH = 100;
+    
+    private static final String NODE = Node.class.getName();
+    
+    private Documents()
+    {
+    }
+    
+    /**
+     * Generates a wiring document of the given shape
+     * 
+     * @param shape one of <code>wide</code>, <code>deep</code>, <code>references</code>, 
+     *        <code>text</code>, <code>custom</code>, or <code>properties</code>
+     * @param size the number of objects in the document
+     * @return the XML
+     */
+    public static String generate(String shape, int size)
+    {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        
+        switch(shape)
+        {
+            case "wide":
+                wide(xml, size);
+                break;
+                
+            case "deep":
+                deep(xml, size);
+                break;
+                
+            case "references":
+                references(xml, size);
+                break;
+                
+            case "text":
+                text(xml, size);
+                break;
+                
+            case "custom":
+                custom(xml, size);
+                break;
+                
+            case "properties":
+                properties(xml, size);
+                break;
+                
+            default:
+                throw new IllegalArgumentException("Unknown document shape " + shape);
+        }
+        
+        return xml.toString();
+    }
+    
+    /**
+     * Writes a generated document to a temporary file that is removed when 
+     * the JVM exits.
+     * 
+     * @param shape the shape of the document
+     * @param size the number of objects in the document
+     * @return a source for the file
+     */
+    public static Source write(String shape, int size)
+    {
+        File file;
+        
+        try
+        {
+            file = File.createTempFile("wiring-" + shape + "-" + size + "-", ".xml");
+            
+            file.deleteOnExit();
+            Files.writeString(file.toPath(), generate(shape, size));
+            
+            return new FileSource(file);
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException(e);
+        }
+    }
+    
+    /**
+     * Returns options with the custom tags used by the <code>custom</code> 
+     * shape registered in a private {@link TagRegistry}.
+     * 
+     * @return the options to parse generated documents with
+     */
+    public static WiringOptions options()
+    {
+        ClassLoader loader = new URLClassLoader(new URL[0], Documents.class.getClassLoader());
+        TagRegistry tags = TagRegistry.forClassLoader(loader);
+        WiringOptions options = new WiringOptions();
+        
+        for(int i=0; i<CUSTOM_TAGS; i++) tags.register("Node" + i, Node.class);
+        
+        options.setTags(tags);
+        
+        return options;
+    }
+    
+    private static void node(StringBuilder xml, String tag, int index)
+    {
+        xml.append("<").append(tag);
+        
+        if(tag.equals("object")) xml.append(" class=\"").append(NODE).append("\"");
+        
+        xml.append("><name>Node ").append(index).append("</name><value>").append(index).append("</value></").append(tag).append(">\n");
+    }
+    
+    private static void wide(StringBuilder xml, int size)
+    {
+        xml.append("<list>\n");
+        
+        for(int i=0; i<size; i++) node(xml, "object", i);
+        
+        xml.append("</list>\n");
+    }
+    
+    // Chains of nested objects, each DEPTH levels deep. Parsing is recursive,
+    // so a single chain of thousands of levels would exhaust the stack.
+    private static void deep(StringBuilder xml, int size)
+    {
+        int depth;
+        
+        xml.append("<list>\n");
+        
+        for(int index=0; index<size; index+=depth)
+        {
+            depth = Math.min(DEPTH, size - index);
+            
+            for(int i=0; i<depth; i++)
+            {
+                xml.append("<object class=\"").append(NODE).append("\"><name>Node ").append(index + i).append("</name><child>\n");
+            }
+
+            xml.append("<null/>\n");
+
+            for(int i=0; i<depth; i++) xml.append("</child></object>\n");
+        }
+        
+        xml.append("</list>\n");
+    }
+    
+    // Every node refers forward to the next, and a trailing list refers back to all of them
+    private static void references(StringBuilder xml, int size)
+    {
+        xml.append("<object class=\"").append(NODE).append("\"><children><list>\n");
+        
+        for(int i=0; i<size; i++)
+        {
+            xml.append("<object id=\"node").append(i).append("\" class=\"").append(NODE).append("\"><name>Node ").append(i).append("</name>");
+            xml.append("<child>").append(i + 1 < size ? "<ref id=\"node" + (i + 1) + "\"/>" : "<null/>").append("</child></object>\n");
+        }
+        
+        xml.append("</list></children><payload><list>\n");
+        
+        for(int i=0; i<size; i++) xml.append("<ref id=\"node").append(i).append("\"/>\n");
+        
+        xml.append("</list></payload></object>\n");
+    }
+    
+    private static void text(StringBuilder xml, int size)
+    {
+        String paragraph = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt ut labore et dolore magna aliqua. ";
+        
+        xml.append("<list>\n");
+        
+        for(int i=0; i<size; i++)
+        {
+            xml.append("<object class=\"").append(NODE).append("\"><name>Node ").append(i).append("</name><text><![CDATA[");
+            
+            for(int j=0; j<16; j++) xml.append(paragraph);
+            
+            xml.append("]]></text><payload><json>{\"id\": ").append(i).append(", \"name\": \"Node ").append(i).append("\", \"tags\": [\"a\", \"b\", \"c\"], \"nested\": {\"weight\": 1.5, \"enabled\": true}}</json></payload></object>\n");
+        }
+        
+        xml.append("</list>\n");
+    }
+    
+    private static void custom(StringBuilder xml, int size)
+    {
+        xml.append("<list>\n");
+        
+        for(int i=0; i<size; i++) node(xml, "Node" + (i % CUSTOM_TAGS), i);
+        
+        xml.append("</list>\n");
+    }
+    
+    // Typed properties given as text, which are coerced when the template is compiled
+    private static void properties(StringBuilder xml, int size)
+    {
+        xml.append("<list>\n");
+        
+        for(int i=0; i<size; i++)
+        {
+            xml.append("<object class=\"").append(NODE).append("\">");
+            xml.append("<name>Node ").append(i).append("</name>");
+            xml.append("<value>").append(i).append("</value>");
+            xml.append("<count>").append(i * 1000L).append("</count>");
+            xml.append("<weight>").append(i / 4.0).append("</weight>");
+            xml.append("<enabled>").append(i % 2 == 0).append("</enabled>");
+            xml.append("<unit>SECONDS</unit>");
+            xml.append("</object>\n");
+        }
+        
+        xml.append("</list>\n");
+    }
+}
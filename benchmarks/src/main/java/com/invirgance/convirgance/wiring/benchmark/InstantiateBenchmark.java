@@ -0,0 +1,63 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring.benchmark;
+
+import com.invirgance.convirgance.wiring.WiringTemplate;
+import com.invirgance.convirgance.wiring.XMLWiringParser;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the latency of constructing an object graph from a compiled 
+ * {@link WiringTemplate}, without any XML parsing. Sample mode reports the
+ * latency distribution as well as the average.
+ * 
+ * @author jbanes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class InstantiateBenchmark
+{
+    @Param({"wide", "deep", "references", "text", "custom"})
+    public String shape;
+    
+    @Param({"100", "1000"})
+    public int size;
+    
+    private WiringTemplate template;
+    
+    @Setup
+    public void setup()
+    {
+        template = XMLWiringParser.compile(Documents.write(shape, size), Documents.options());
+    }
+    
+    @Benchmark
+    public Object instantiate()
+    {
+        return template.instantiate();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * General purpose bean wired by the generated benchmark documents
+ * 
+ * @author jbanes
+ */
+public class Node
+{
+    private String name;
+    private int value;
+    private long count;
+    private double weight;
+    private boolean enabled;
+    private TimeUnit unit;
+    private String text;
+    private Object payload;
+    private Node child;
+    private List<Object> children;
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    public int getValue()
+    {
+        return value;
+    }
+
+    public void setValue(int value)
+    {
+        this.value = value;
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public void setCount(long count)
+    {
+        this.count = count;
+    }
+
+    public double getWeight()
+    {
+        return weight;
+    }
+
+    public void setWeight(double weight)
+    {
+        this.weight = weight;
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    public TimeUnit getUnit()
+    {
+        return unit;
+    }
+
+    public void setUnit(TimeUnit unit)
+    {
+        this.unit = unit;
+    }
+
+    public String getText()
+    {
+        return text;
+    }
+
+    public void setText(String text)
+    {
+        this.text = text;
+    }
+
+    public Object getPayload()
+    {
+        return payload;
+    }
+
+    public void setPayload(Object payload)
+    {
+        this.payload = payload;
+    }
+
+    public Node getChild()
+    {
+        return child;
+    }
+
+    public void setChild(Node child)
+    {
+        this.child = child;
+    }
+
+    public List<Object> getChildren()
+    {
+        return children;
+    }
+
+    public void setChildren(List<Object> children)
+    {
+        this.children = children;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring.benchmark;
+
+import com.invirgance.convirgance.source.Source;
+import com.invirgance.convirgance.wiring.WiringOptions;
+import com.invirgance.convirgance.wiring.WiringTemplate;
+import com.invirgance.convirgance.wiring.XMLWiringParser;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures parse throughput. <code>compile</code> only parses the XML into a
+ * template, while <code>parse</code> also constructs the object graph as
+ * <code>new XMLWiringParser(source)</code> does.
+ * 
+ * @author jbanes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParseBenchmark
+{
+    @Param({"wide", "deep", "references", "text", "custom"})
+    public String shape;
+    
+    @Param({"100", "1000"})
+    public int size;
+    
+    private Source source;
+    private WiringOptions options;
+    
+    @Setup
+    public void setup()
+    {
+        source = Documents.write(shape, size);
+        options = Documents.options();
+    }
+    
+    @Benchmark
+    public WiringTemplate compile()
+    {
+        return XMLWiringParser.compile(source, options);
+    }
+    
+    @Benchmark
+    public Object parse()
+    {
+        return new XMLWiringParser<>(source, options).getRoot();
+    }
+}
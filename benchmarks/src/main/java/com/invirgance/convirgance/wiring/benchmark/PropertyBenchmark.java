@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring.benchmark;
+
+import com.invirgance.convirgance.wiring.Converters;
+import com.invirgance.convirgance.wiring.WiringTemplate;
+import com.invirgance.convirgance.wiring.XMLWiringParser;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the setter and coercion paths on their own. <code>setters</code>
+ * instantiates objects whose typed properties were coerced when the template
+ * was compiled, so only construction and setter invocation remain. The 
+ * <code>convert</code> benchmarks measure the {@link Converters} used for 
+ * values that can only be coerced once the graph is built.
+ * 
+ * @author jbanes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PropertyBenchmark
+{
+    private static final int OBJECTS = 1000;
+    
+    private WiringTemplate template;
+    
+    @Setup
+    public void setup()
+    {
+        template = XMLWiringParser.compile(Documents.write("properties", OBJECTS), Documents.options());
+    }
+    
+    // Reported per object, each of which has six properties
+    @Benchmark
+    @OperationsPerInvocation(OBJECTS)
+    public Object setters()
+    {
+        return template.instantiate();
+    }
+    
+    @Benchmark
+    public Object convertInteger()
+    {
+        return Converters.convert(int.class, "12345");
+    }
+    
+    @Benchmark
+    public Object convertDouble()
+    {
+        return Converters.convert(double.class, "123.45");
+    }
+    
+    @Benchmark
+    public Object convertEnum()
+    {
+        return Converters.convert(TimeUnit.class, "SECONDS");
+    }
+    
+    @Benchmark
+    public Object convertIdentity()
+    {
+        return Converters.convert(String.class, "text");
+    }
+}
@@ -0,0 +1,678 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.json.JSONArray;
+import com.invirgance.convirgance.json.JSONObject;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Reads and writes the precompiled binary form of a {@link WiringTemplate}.
+ * The format is a direct serialization of the instruction tree, so loading it
+ * skips XML tokenizing entirely. Only class lookup and setter resolution 
+ * remain.
+ * <br><br>
+ * The layout is a header, a table of every string used in the file, the 
+ * <code>id</code> names in slot order, the parameter names in slot order, 
+ * and then the root instruction. Class 
+ * names, property names, and paths are stored as indexes into the string 
+ * table. Literals are stored with their resolved types. All values are big
+ * endian.
+ * 
+ * @author jbanes
+ */
+final class BinaryWiring
+{
+    static final int MAGIC = 0x57495245; // "WIRE"
+    static final int VERSION = 2;
+    
+    private static final byte CONSTANT = 1;
+    private static final byte JSON = 2;
+    private static final byte CONVERT = 3;
+    private static final byte REFERENCE = 4;
+    private static final byte OBJECT = 5;
+    private static final byte LIST = 6;
+    private static final byte MAP = 7;
+    private static final byte LAZY = 8;
+    private static final byte PROTOTYPE = 9;
+    private static final byte EXTERNAL = 10;
+    private static final byte ARRAY = 11;
+    private static final byte PARAMETER = 12;
+    
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte FLOAT = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte BIG_INTEGER = 7;
+    private static final byte BIG_DECIMAL = 8;
+    private static final byte JSON_OBJECT = 9;
+    private static final byte JSON_ARRAY = 10;
+    
+    private BinaryWiring()
+    {
+    }
+    
+    static void write(WiringTemplate template, OutputStream out) throws IOException
+    {
+        var writer = new Writer();
+        var data = new DataOutputStream(out);
+        int[] ids = new int[template.getSlots()];
+        int[] parameters = new int[template.getParameterNames().length];
+        
+        writer.write(template.getInstruction());
+        
+        for(int i=0; i<ids.length; i++) ids[i] = writer.intern(template.getId(i));
+        for(int i=0; i<parameters.length; i++) parameters[i] = writer.intern(template.getParameterNames()[i]);
+        
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeInt(writer.strings.size());
+        
+        for(String string : writer.strings.keySet())
+        {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+        
+        data.writeInt(ids.length);
+        
+        for(int id : ids) data.writeInt(id);
+        
+        data.writeInt(parameters.length);
+        
+        for(int parameter : parameters) data.writeInt(parameter);
+        
+        data.write(writer.buffer.toByteArray());
+        data.flush();
+    }
+    
+    static WiringTemplate read(ByteBuffer buffer, TagRegistry tags)
+    {
+        try
+        {
+            return new Reader(buffer, tags).read();
+        }
+        catch(BufferUnderflowException | IndexOutOfBoundsException e)
+        {
+            throw new ConvirganceException("Compiled wiring is truncated or corrupt", e);
+        }
+    }
+    
+    private static class Writer
+    {
+        private final Map<String,Integer> strings = new LinkedHashMap<>();
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(buffer);
+        
+        private int intern(String string)
+        {
+            return strings.computeIfAbsent(string, key -> strings.size());
+        }
+        
+        private void writeString(String string) throws IOException
+        {
+            out.writeInt(string == null ? -1 : intern(string));
+        }
+        
+        private void write(Instruction instruction) throws IOException
+        {
+            byte[] bytes;
+            
+            if(instruction instanceof Instruction.Constant) out.writeByte(CONSTANT);
+            else if(instruction instanceof Instruction.JSON) out.writeByte(JSON);
+            else if(instruction instanceof Instruction.Convert) out.writeByte(CONVERT);
+            else if(instruction instanceof Instruction.Reference) out.writeByte(REFERENCE);
+            else if(instruction instanceof Instruction.ObjectValue) out.writeByte(OBJECT);
+            else if(instruction instanceof Instruction.ListValue) out.writeByte(LIST);
+            else if(instruction instanceof Instruction.MapValue) out.writeByte(MAP);
+            else if(instruction instanceof Instruction.LazyValue) out.writeByte(LAZY);
+            else if(instruction instanceof Instruction.PrototypeValue) out.writeByte(PROTOTYPE);
+            else if(instruction instanceof Instruction.External) out.writeByte(EXTERNAL);
+            else if(instruction instanceof Instruction.ArrayValue) out.writeByte(ARRAY);
+            else if(instruction instanceof Instruction.Parameter) out.writeByte(PARAMETER);
+            else throw new ConvirganceException("Unable to compile instruction " + instruction.getClass().getName());
+            
+            writeString(instruction.name);
+            out.writeInt(instruction.id);
+            
+            if(instruction instanceof Instruction.Constant)
+            {
+                writeValue(((Instruction.Constant)instruction).value);
+            }
+            else if(instruction instanceof Instruction.JSON)
+            {
+                writeValue(((Instruction.JSON)instruction).value);
+            }
+            else if(instruction instanceof Instruction.Convert)
+            {
+                writeString(((Instruction.Convert)instruction).path.toString());
+                write(((Instruction.Convert)instruction).value);
+            }
+            else if(instruction instanceof Instruction.Reference)
+            {
+                out.writeInt(((Instruction.Reference)instruction).slot);
+                out.writeBoolean(((Instruction.Reference)instruction).forward);
+            }
+            else if(instruction instanceof Instruction.ObjectValue)
+            {
+                writeObject((Instruction.ObjectValue)instruction);
+            }
+            else if(instruction instanceof Instruction.ListValue)
+            {
+                out.writeBoolean(((Instruction.ListValue)instruction).immutable);
+                writeString(((Instruction.ListValue)instruction).path.toString());
+                out.writeInt(((Instruction.ListValue)instruction).items.length);
+                
+                for(Instruction item : ((Instruction.ListValue)instruction).items) write(item);
+            }
+            else if(instruction instanceof Instruction.LazyValue)
+            {
+                write(((Instruction.LazyValue)instruction).value);
+            }
+            else if(instruction instanceof Instruction.PrototypeValue)
+            {
+                out.writeInt(((Instruction.PrototypeValue)instruction).slot);
+                write(((Instruction.PrototypeValue)instruction).value);
+            }
+            else if(instruction instanceof Instruction.External)
+            {
+                writeString(((Instruction.External)instruction).location);
+                writeString(Objects.toString(((Instruction.External)instruction).order, null));
+                writeString(((Instruction.External)instruction).path.toString());
+            }
+            else if(instruction instanceof Instruction.ArrayValue)
+            {
+                bytes = PrimitiveArrays.encode(((Instruction.ArrayValue)instruction).value);
+                
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            else if(instruction instanceof Instruction.Parameter)
+            {
+                writeParameter((Instruction.Parameter)instruction);
+            }
+            else
+            {
+                writeMap((Instruction.MapValue)instruction);
+            }
+        }
+        
+        private void writeParameter(Instruction.Parameter parameter) throws IOException
+        {
+            writeString(parameter.path.toString());
+            out.writeInt(parameter.slots.length);
+            
+            for(int i=0; i<parameter.slots.length; i++)
+            {
+                writeString(parameter.text[i]);
+                writeString(parameter.parameters[i]);
+                out.writeInt(parameter.slots[i]);
+            }
+            
+            writeString(parameter.text[parameter.slots.length]);
+        }
+        
+        private void writeObject(Instruction.ObjectValue object) throws IOException
+        {
+            writeString(object.type.getName());
+            writeString(object.path.toString());
+            
+            // Objects using the no-argument constructor have no argument list
+            out.writeInt(object.creator == null ? -1 : object.arguments.length);
+            
+            for(Instruction.Property argument : object.arguments) writeProperty(argument);
+            
+            out.writeInt(object.properties.length);
+            
+            for(Instruction.Property property : object.properties) writeProperty(property);
+        }
+        
+        private void writeProperty(Instruction.Property property) throws IOException
+        {
+            writeString(property.name);
+            writeString(property.path.toString());
+            out.writeInt(property.id);
+            write(property.value);
+        }
+        
+        private void writeMap(Instruction.MapValue map) throws IOException
+        {
+            out.writeBoolean(map.immutable);
+            writeString(map.path.toString());
+            out.writeInt(map.keys.length);
+            
+            for(int i=0; i<map.keys.length; i++)
+            {
+                write(map.keys[i]);
+                write(map.values[i]);
+            }
+        }
+        
+        private void writeValue(Object value) throws IOException
+        {
+            if(value == null)
+            {
+                out.writeByte(NULL);
+            }
+            else if(value instanceof String)
+            {
+                out.writeByte(STRING);
+                writeString((String)value);
+            }
+            else if(value instanceof Integer)
+            {
+                out.writeByte(INTEGER);
+                out.writeInt((Integer)value);
+            }
+            else if(value instanceof Long)
+            {
+                out.writeByte(LONG);
+                out.writeLong((Long)value);
+            }
+            else if(value instanceof Float)
+            {
+                out.writeByte(FLOAT);
+                out.writeFloat((Float)value);
+            }
+            else if(value instanceof Double)
+            {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double)value);
+            }
+            else if(value instanceof Boolean)
+            {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean((Boolean)value);
+            }
+            else if(value instanceof BigInteger)
+            {
+                out.writeByte(BIG_INTEGER);
+                writeString(value.toString());
+            }
+            else if(value instanceof BigDecimal)
+            {
+                out.writeByte(BIG_DECIMAL);
+                writeString(value.toString());
+            }
+            else if(value instanceof JSONObject)
+            {
+                out.writeByte(JSON_OBJECT);
+                out.writeInt(((JSONObject)value).size());
+                
+                for(var entry : ((JSONObject)value).entrySet())
+                {
+                    writeString(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            }
+            else if(value instanceof JSONArray)
+            {
+                out.writeByte(JSON_ARRAY);
+                out.writeInt(((JSONArray)value).size());
+                
+                for(Object item : (JSONArray)value) writeValue(item);
+            }
+            else
+            {
+                throw new ConvirganceException("Unable to compile literal of type " + value.getClass().getName());
+            }
+        }
+    }
+    
+    private static class Reader
+    {
+        private final ByteBuffer buffer;
+        private final TagRegistry tags;
+        private final List<Instruction.LazyValue> lazy = new ArrayList<>();
+        private final List<Instruction.PrototypeValue> prototypes = new ArrayList<>();
+        private String[] strings;
+
+        public Reader(ByteBuffer buffer, TagRegistry tags)
+        {
+            this.buffer = buffer;
+            this.tags = tags;
+        }
+        
+        private WiringTemplate read()
+        {
+            var ids = new HashMap<String,Integer>();
+            var parameters = new HashMap<String,Integer>();
+            Instruction root;
+            byte[] bytes;
+            int version;
+            
+            if(buffer.getInt() != MAGIC) throw new ConvirganceException("Not a compiled wiring file");
+            
+            version = buffer.getShort();
+            
+            if(version != VERSION) throw new ConvirganceException("Unsupported compiled wiring version " + version);
+            
+            strings = new String[buffer.getInt()];
+            
+            for(int i=0; i<strings.length; i++)
+            {
+                bytes = new byte[buffer.getInt()];
+                
+                buffer.get(bytes);
+                
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            
+            for(int i=buffer.getInt(), slot=0; slot<i; slot++)
+            {
+                ids.put(readString(), slot);
+            }
+            
+            for(int i=buffer.getInt(), slot=0; slot<i; slot++)
+            {
+                parameters.put(readString(), slot);
+            }
+            
+            root = readInstruction();
+            
+            return new WiringTemplate(root, ids, parameters, lazy, prototypes);
+        }
+        
+        private String readString()
+        {
+            int index = buffer.getInt();
+            
+            return (index < 0) ? null : strings[index];
+        }
+        
+        private ByteOrder readOrder()
+        {
+            String order = readString();
+            
+            if(order == null) return null;
+            
+            return order.equals(ByteOrder.LITTLE_ENDIAN.toString()) ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        }
+        
+        // Paths are stored already rendered, so they are restored as a single node
+        private Instruction.Path readPath()
+        {
+            return new Instruction.Path(null, readString());
+        }
+        
+        private Instruction readInstruction()
+        {
+            byte type = buffer.get();
+            String name = readString();
+            int id = buffer.getInt();
+            Instruction instruction;
+            Instruction.Path path;
+            ByteBuffer bytes;
+            boolean immutable;
+            int length;
+            int slot;
+            
+            switch(type)
+            {
+                case CONSTANT:
+                    instruction = new Instruction.Constant(name, readValue());
+                    break;
+                    
+                case JSON:
+                    instruction = new Instruction.JSON(name, readValue());
+                    break;
+                    
+                case CONVERT:
+                    path = readPath();
+                    
+                    instruction = new Instruction.Convert(name, readInstruction(), path);
+                    break;
+                    
+                case REFERENCE:
+                    instruction = new Instruction.Reference(name, buffer.getInt(), buffer.get() != 0);
+                    break;
+                    
+                case OBJECT:
+                    instruction = readObject(name);
+                    break;
+                    
+                case LIST:
+                    immutable = (buffer.get() != 0);
+                    path = readPath();
+                    instruction = new Instruction.ListValue(name, readInstructions(buffer.getInt()), immutable, path);
+                    break;
+                    
+                case MAP:
+                    instruction = readMap(name);
+                    break;
+                    
+                case LAZY:
+                    instruction = new Instruction.LazyValue(name, readInstruction());
+                    break;
+                    
+                case PROTOTYPE:
+                    slot = buffer.getInt();
+                    instruction = new Instruction.PrototypeValue(name, readInstruction(), slot);
+                    
+                    prototypes.add((Instruction.PrototypeValue)instruction);
+                    break;
+                    
+                case EXTERNAL:
+                    instruction = new Instruction.External(name, readString(), readOrder(), readPath());
+                    break;
+                    
+                case PARAMETER:
+                    instruction = readParameter(name);
+                    break;
+                    
+                case ARRAY:
+                    length = buffer.getInt();
+                    bytes = buffer.slice().limit(length);
+                    instruction = new Instruction.ArrayValue(name, PrimitiveArrays.decode(name, bytes));
+                    
+                    buffer.position(buffer.position() + length);
+                    break;
+                    
+                default:
+                    throw new ConvirganceException("Unknown instruction type " + type + " in compiled wiring");
+            }
+            
+            instruction.id = id;
+            
+            if(type == LAZY && id >= 0) lazy.add((Instruction.LazyValue)instruction);
+            
+            return instruction;
+        }
+        
+        private Instruction[] readInstructions(int count)
+        {
+            Instruction[] instructions = new Instruction[count];
+            
+            for(int i=0; i<count; i++) instructions[i] = readInstruction();
+            
+            return instructions;
+        }
+        
+        private Instruction readObject(String name)
+        {
+            String type = readString();
+            Instruction.Path path = readPath();
+            int count = buffer.getInt();
+            Instruction.Property[] arguments = new Instruction.Property[Math.max(count, 0)];
+            Instruction.Property[] properties;
+            ClassMetadata.Creator creator = null;
+            ClassMetadata.Setter setter;
+            ClassMetadata metadata;
+            String property;
+            Instruction.Path location;
+            int id;
+            
+            try
+            {
+                metadata = ClassMetadata.get(tags.loadClass(type));
+            }
+            catch(ClassNotFoundException e)
+            {
+                throw new ConvirganceException("Error loading object at path [" + path + "], " + e.getMessage(), e);
+            }
+            
+            if(count >= 0) creator = metadata.getCreator(count);
+            
+            if(count < 0 && metadata.getConstructor() == null) throw new ConvirganceException("Unexpected error constructing object at [" + path + "], " + type + " does not have a public no-argument constructor");
+            if(count >= 0 && creator == null) throw new ConvirganceException("Unexpected error constructing object at [" + path + "], " + type + " does not have a single public constructor with " + count + " arguments");
+            
+            for(int i=0; i<arguments.length; i++)
+            {
+                property = readString();
+                location = readPath();
+                id = buffer.getInt();
+                
+                arguments[i] = new Instruction.Property(property, readInstruction(), location);
+                arguments[i].id = id;
+            }
+            
+            properties = new Instruction.Property[buffer.getInt()];
+            
+            for(int i=0; i<properties.length; i++)
+            {
+                property = readString();
+                location = readPath();
+                id = buffer.getInt();
+                setter = metadata.getSetter(property);
+                
+                if(setter == null) throw new ConvirganceException("Property " + property + " does not exist on object " + type + ", path [" + location + "]");
+                
+                properties[i] = new Instruction.Property(property, setter, readInstruction(), location);
+                properties[i].id = id;
+            }
+            
+            if(creator != null) return new Instruction.ObjectValue(name, metadata.getType(), creator, arguments, properties, path);
+            
+            return new Instruction.ObjectValue(name, metadata.getType(), metadata.getConstructor(), properties, path);
+        }
+        
+        private Instruction readParameter(String name)
+        {
+            Instruction.Path path = readPath();
+            int count = buffer.getInt();
+            String[] text = new String[count + 1];
+            String[] parameters = new String[count];
+            int[] slots = new int[count];
+            
+            for(int i=0; i<count; i++)
+            {
+                text[i] = readString();
+                parameters[i] = readString();
+                slots[i] = buffer.getInt();
+            }
+            
+            text[count] = readString();
+            
+            return new Instruction.Parameter(name, text, parameters, slots, path);
+        }
+        
+        private Instruction readMap(String name)
+        {
+            boolean immutable = (buffer.get() != 0);
+            Instruction.Path path = readPath();
+            int count = buffer.getInt();
+            Instruction[] keys = new Instruction[count];
+            Instruction[] values = new Instruction[count];
+            
+            for(int i=0; i<count; i++)
+            {
+                keys[i] = readInstruction();
+                values[i] = readInstruction();
+            }
+            
+            return new Instruction.MapValue(name, keys, values, immutable, path);
+        }
+        
+        private Object readValue()
+        {
+            byte type = buffer.get();
+            JSONObject object;
+            JSONArray array;
+            int count;
+            
+            switch(type)
+            {
+                case NULL:
+                    return null;
+                    
+                case STRING:
+                    return readString();
+                    
+                case INTEGER:
+                    return buffer.getInt();
+                    
+                case LONG:
+                    return buffer.getLong();
+                    
+                case FLOAT:
+                    return buffer.getFloat();
+                    
+                case DOUBLE:
+                    return buffer.getDouble();
+                    
+                case BOOLEAN:
+                    return buffer.get() != 0;
+                    
+                case BIG_INTEGER:
+                    return new BigInteger(readString());
+                    
+                case BIG_DECIMAL:
+                    return new BigDecimal(readString());
+                    
+                case JSON_OBJECT:
+                    object = new JSONObject();
+                    count = buffer.getInt();
+                    
+                    for(int i=0; i<count; i++) object.put(readString(), readValue());
+                    
+                    return object;
+                    
+                case JSON_ARRAY:
+                    array = new JSONArray();
+                    count = buffer.getInt();
+                    
+                    for(int i=0; i<count; i++) array.add(readValue());
+                    
+                    return array;
+                    
+                default:
+                    throw new ConvirganceException("Unknown literal type " + type + " in compiled wiring");
+            }
+        }
+    }
+}
@@ -0,0 +1,403 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.wiring.annotation.WiringPopulator;
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cached reflection information for classes constructed by wiring files. Each
+ * class is introspected only once per ClassLoader and the result is shared by
+ * all parsers and templates. Setters and constructors are prepared as 
+ * {@link MethodHandle}s so that they can be invoked without further lookups.
+ * Constructors taking arguments, including the canonical constructor of a
+ * record, are prepared as {@link Creator}s.
+ * <br><br>
+ * When the class has a {@link WiringPopulator} generated at compile time, the
+ * handles call the populator directly and reflection is only used for any
+ * properties the populator does not cover.
+ * 
+ * @author jbanes
+ */
+final class ClassMetadata
+{
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR = MethodType.methodType(Object.class);
+    
+    private static final MethodHandle POPULATOR_INSTANCE;
+    private static final MethodHandle POPULATOR_SETTER;
+    
+    static {
+        var lookup = MethodHandles.publicLookup();
+        
+        try
+        {
+            POPULATOR_INSTANCE = lookup.findVirtual(WiringPopulator.class, "newInstance", MethodType.methodType(Object.class));
+            POPULATOR_SETTER = lookup.findVirtual(WiringPopulator.class, "setProperty", MethodType.methodType(void.class, Object.class, int.class, Object.class));
+        }
+        catch(NoSuchMethodException | IllegalAccessException e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    private static final ClassValue<ClassMetadata> cache = new ClassValue<>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> type)
+        {
+            return new ClassMetadata(type);
+        }
+    };
+    
+    private final Class type;
+    private final Map<String,Setter> setters;
+    private final WiringPopulator populator;
+    
+    private final MethodHandle constructor;
+    private final Map<Integer,Creator> creators;
+    private final Creator canonical;
+
+    private ClassMetadata(Class type)
+    {
+        this.type = type;
+        this.setters = new HashMap<>();
+        this.creators = new HashMap<>();
+        this.populator = findPopulator(type);
+        
+        try
+        {
+            BeanInfo info = Introspector.getBeanInfo(type);
+            Method method;
+            
+            for(PropertyDescriptor descriptor : info.getPropertyDescriptors())
+            {
+                method = descriptor.getWriteMethod();
+                
+                if(method == null) continue;
+                
+                setters.put(capitalize(descriptor.getName()), createSetter(descriptor.getName(), method));
+            }
+        }
+        catch(IntrospectionException e)
+        {
+            throw new ConvirganceException("Unable to introspect " + type.getName() + ", " + e.getMessage(), e);
+        }
+        
+        this.constructor = findConstructor(type, populator);
+        this.canonical = findCanonical(type);
+        
+        // Constructors are chosen by their number of arguments. Ambiguous 
+        // counts are recorded as null so that they are never chosen.
+        for(Constructor creator : type.getConstructors())
+        {
+            if(creator.getParameterCount() < 1) continue;
+            
+            creators.put(creator.getParameterCount(), creators.containsKey(creator.getParameterCount()) ? null : Creator.create(creator, null));
+        }
+    }
+    
+    private static Creator findCanonical(Class type)
+    {
+        RecordComponent[] components;
+        Class[] types;
+        String[] names;
+        
+        if(!type.isRecord()) return null;
+        
+        components = type.getRecordComponents();
+        types = new Class[components.length];
+        names = new String[components.length];
+        
+        for(int i=0; i<components.length; i++)
+        {
+            types[i] = components[i].getType();
+            names[i] = components[i].getName();
+        }
+        
+        try
+        {
+            return Creator.create(type.getConstructor(types), names);
+        }
+        catch(NoSuchMethodException | SecurityException e)
+        {
+            return null; // Records that are not public
+        }
+    }
+    
+    private static WiringPopulator findPopulator(Class type)
+    {
+        String name = type.getName().replace('$', '_') + WiringPopulator.SUFFIX;
+        Class clazz;
+        
+        try
+        {
+            clazz = Class.forName(name, true, type.getClassLoader());
+            
+            if(!WiringPopulator.class.isAssignableFrom(clazz)) return null;
+            
+            return (WiringPopulator)clazz.getConstructor().newInstance();
+        }
+        catch(ReflectiveOperationException | LinkageError | SecurityException e)
+        {
+            return null; // No generated populator, fall back to reflection
+        }
+    }
+    
+    private static MethodHandle findConstructor(Class type, WiringPopulator populator)
+    {
+        if(populator != null) return POPULATOR_INSTANCE.bindTo(populator);
+        
+        try
+        {
+            return MethodHandles.lookup().unreflectConstructor(type.getConstructor()).asType(CONSTRUCTOR);
+        }
+        catch(NoSuchMethodException | IllegalAccessException | SecurityException e)
+        {
+            return null;
+        }
+    }
+    
+    private Setter createSetter(String name, Method method)
+    {
+        int index = (populator == null) ? -1 : populator.getPropertyIndex(name);
+        MethodHandle handle;
+        
+        if(index < 0) return new Setter(name, method);
+        
+        handle = MethodHandles.insertArguments(POPULATOR_SETTER.bindTo(populator), 1, index);
+        
+        return new Setter(name, populator.getPropertyType(index), method, handle.asType(SETTER));
+    }
+    
+    /**
+     * Returns the cached metadata for the given class, introspecting the class
+     * on first use.
+     */
+    static ClassMetadata get(Class type)
+    {
+        return cache.get(type);
+    }
+    
+    // Matches the name resolution of java.beans.PropertyDescriptor
+    private static String capitalize(String name)
+    {
+        if(name.isEmpty()) return name;
+        
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+    
+    Class getType()
+    {
+        return type;
+    }
+    
+    /**
+     * Returns the generated populator or <code>null</code> if the class does
+     * not have one.
+     */
+    WiringPopulator getPopulator()
+    {
+        return populator;
+    }
+    
+    /**
+     * Returns the setter for the named property or <code>null</code> if the
+     * class has no writable property by that name.
+     */
+    Setter getSetter(String name)
+    {
+        return setters.get(capitalize(name));
+    }
+    
+    /**
+     * Returns a handle to the public no-argument constructor or <code>null</code>
+     * if the class has none. The handle is typed as <code>()Object</code>.
+     */
+    MethodHandle getConstructor()
+    {
+        return constructor;
+    }
+    
+    /**
+     * Returns the public constructor taking the given number of arguments, 
+     * or <code>null</code> if there is none or more than one. The canonical
+     * constructor of a record is always chosen for its own number of 
+     * arguments.
+     */
+    Creator getCreator(int arguments)
+    {
+        if(canonical != null && canonical.parameters.length == arguments) return canonical;
+        
+        return creators.get(arguments);
+    }
+    
+    /**
+     * Returns the canonical constructor if the class is a public record, or 
+     * <code>null</code> otherwise.
+     */
+    Creator getCanonical()
+    {
+        return canonical;
+    }
+    
+    /**
+     * A constructor taking arguments. The handle is spread over an array of 
+     * arguments and typed as <code>(Object[])Object</code>. Arguments left 
+     * null for primitive parameters are passed as zero.
+     */
+    static final class Creator
+    {
+        final Class[] parameters;
+        final Type[] generics;
+        final String[] names;
+        
+        private final Object[] defaults;
+        private final MethodHandle handle;
+
+        private Creator(Class[] parameters, Type[] generics, String[] names, MethodHandle handle)
+        {
+            this.parameters = parameters;
+            this.generics = generics;
+            this.names = names;
+            this.defaults = new Object[parameters.length];
+            this.handle = handle;
+            
+            for(int i=0; i<parameters.length; i++)
+            {
+                if(parameters[i].isPrimitive()) defaults[i] = Array.get(Array.newInstance(parameters[i], 1), 0);
+            }
+        }
+        
+        private static Creator create(Constructor constructor, String[] names)
+        {
+            Type[] generics = constructor.getGenericParameterTypes();
+            MethodHandle handle;
+            
+            try
+            {
+                handle = MethodHandles.lookup().unreflectConstructor(constructor);
+            }
+            catch(IllegalAccessException e)
+            {
+                return null;
+            }
+            
+            handle = handle.asType(handle.type().generic()).asSpreader(Object[].class, constructor.getParameterCount());
+            
+            // Generic types omit synthetic parameters, such as the outer 
+            // instance of an inner class
+            if(generics.length != constructor.getParameterCount()) generics = constructor.getParameterTypes();
+            
+            return new Creator(constructor.getParameterTypes(), generics, names, handle);
+        }
+        
+        /**
+         * Returns the index of the named parameter, or -1 if the parameter 
+         * names are not known or none matches.
+         */
+        int indexOf(String name)
+        {
+            if(names == null) return -1;
+            
+            for(int i=0; i<names.length; i++)
+            {
+                if(names[i].equals(name)) return i;
+            }
+            
+            return -1;
+        }
+        
+        Object invoke(Object[] arguments) throws Throwable
+        {
+            for(int i=0; i<arguments.length; i++)
+            {
+                if(arguments[i] == null) arguments[i] = defaults[i];
+            }
+            
+            return (Object)handle.invokeExact(arguments);
+        }
+    }
+    
+    static final class Setter
+    {
+        final String name;
+        final Class type;
+        final Method method;
+        
+        private final Type generic;
+        private MethodHandle handle;
+        
+        // The populator resolves type variables of a generic superclass, in
+        // which case the generic type of the method no longer applies
+        private Setter(String name, Class type, Method method, MethodHandle handle)
+        {
+            this.name = name;
+            this.type = type;
+            this.method = null;
+            this.generic = (method.getParameterTypes()[0] == type) ? method.getGenericParameterTypes()[0] : type;
+            this.handle = handle;
+        }
+
+        private Setter(String name, Method method)
+        {
+            this.name = name;
+            this.type = method.getParameterTypes()[0];
+            this.method = method;
+            this.generic = method.getGenericParameterTypes()[0];
+            
+            try
+            {
+                this.handle = MethodHandles.lookup().unreflect(method).asType(SETTER);
+            }
+            catch(IllegalAccessException e)
+            {
+                this.handle = null; // Reported when the setter is used
+            }
+        }
+        
+        Type getGenericType()
+        {
+            return generic;
+        }
+        
+        void invoke(Object target, Object value) throws Throwable
+        {
+            if(handle == null) throw new IllegalAccessException("Setter " + method + " is not accessible");
+            
+            handle.invokeExact(target, value);
+        }
+    }
+}
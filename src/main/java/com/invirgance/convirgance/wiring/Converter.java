@@ -0,0 +1,46 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+/**
+ * Converts values read from a wiring file into the type expected by a setter.
+ * Converters are registered per target type with {@link Converters#register(Class, Converter)}.
+ * <br><br>
+ * Converters are only called with values that are not already instances of 
+ * the target type. In most cases the value will be the <code>String</code> 
+ * text of the XML element, but it may also be a <code>List</code>, a 
+ * <code>Map</code>, or any object produced by a nested element.
+ * 
+ * @author jbanes
+ * @param <T> the target type
+ */
+@FunctionalInterface
+public interface Converter<T>
+{
+    /**
+     * Converts the value into the target type
+     * 
+     * @param value the value to convert, never <code>null</code>
+     * @return the converted value
+     */
+    public T convert(Object value);
+}
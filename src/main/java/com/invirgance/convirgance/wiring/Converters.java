@@ -0,0 +1,313 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.json.JSONArray;
+import com.invirgance.convirgance.json.JSONObject;
+import java.lang.reflect.Array;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the {@link Converter}s used to coerce wiring values into setter 
+ * types. A converter is selected once per target type and cached, so setting
+ * a property does not need to search for the conversion each time.
+ * <br><br>
+ * Primitives, their wrappers, enums, <code>JSONObject</code>, <code>JSONArray</code>,
+ * sets, sorted maps, and arrays are supported out of the box. Arrays may be populated from a 
+ * <code>List</code> or from comma separated text. Converters for other types, 
+ * such as <code>Duration</code> or <code>Path</code>, can be added with 
+ * {@link #register(Class, Converter) register}:
+ * <pre>
+ * Converters.register(Duration.class, value -&gt; Duration.parse(value.toString().trim()));
+ * </pre>
+ * 
+ * @author jbanes
+ */
+public final class Converters
+{
+    private static final Map<Class,Converter> registered = new ConcurrentHashMap<>();
+    
+    private static final ClassValue<Converter> cache = new ClassValue<>() {
+        @Override
+        protected Converter computeValue(Class<?> type)
+        {
+            return createConverter(type);
+        }
+    };
+    
+    private Converters()
+    {
+    }
+    
+    /**
+     * Registers a converter for the given type. The converter replaces any 
+     * built-in conversion for the type and applies to all wiring files 
+     * compiled after the call.
+     * 
+     * @param <T> the target type
+     * @param type the target type
+     * @param converter the converter producing instances of the type
+     */
+    public static <T> void register(Class<T> type, Converter<? extends T> converter)
+    {
+        registered.put(type, converter);
+        cache.remove(type);
+    }
+    
+    /**
+     * Removes a converter previously added with {@link #register(Class, Converter) register},
+     * restoring the built-in conversion for the type.
+     * 
+     * @param type the target type
+     */
+    public static void unregister(Class<?> type)
+    {
+        registered.remove(type);
+        cache.remove(type);
+    }
+    
+    /**
+     * Returns the converter for the given type. The returned converter passes
+     * through <code>null</code> and any value already of the target type.
+     * 
+     * @param <T> the target type
+     * @param type the target type
+     * @return the converter for the type
+     */
+    public static <T> Converter<T> getConverter(Class<T> type)
+    {
+        return cache.get(type);
+    }
+    
+    /**
+     * Converts the value to the given type
+     * 
+     * @param type the target type
+     * @param value the value to convert
+     * @return the converted value
+     */
+    public static Object convert(Class type, Object value)
+    {
+        return cache.get(type).convert(value);
+    }
+    
+    private static Class box(Class type)
+    {
+        if(type == boolean.class) return Boolean.class;
+        if(type == byte.class) return Byte.class;
+        if(type == char.class) return Character.class;
+        if(type == short.class) return Short.class;
+        if(type == int.class) return Integer.class;
+        if(type == long.class) return Long.class;
+        if(type == float.class) return Float.class;
+        if(type == double.class) return Double.class;
+        
+        return type;
+    }
+    
+    private static Converter createConverter(Class type)
+    {
+        Class boxed = box(type);
+        Converter converter = registered.get(type);
+        
+        if(converter == null) converter = getBuiltIn(boxed);
+        if(converter == null) return value -> value;
+        
+        return new Checked(boxed, converter);
+    }
+    
+    private static Converter getBuiltIn(Class type)
+    {
+        if(type == Byte.class) return value -> (value instanceof String) ? Byte.valueOf((String)value) : value;
+        if(type == Short.class) return value -> (value instanceof String) ? Short.valueOf((String)value) : value;
+        if(type == Integer.class) return value -> (value instanceof String) ? Integer.valueOf((String)value) : value;
+        if(type == Long.class) return value -> (value instanceof String) ? Long.valueOf((String)value) : value;
+        if(type == Boolean.class) return value -> (value instanceof String) ? Boolean.valueOf((String)value) : value;
+        if(type == Float.class) return value -> (value instanceof String) ? Float.valueOf((String)value) : value;
+        if(type == Double.class) return value -> (value instanceof String) ? Double.valueOf((String)value) : value;
+        if(type == Character.class) return value -> (value instanceof String) ? ((String)value).charAt(0) : value;
+        
+        if(type == JSONObject.class)
+        {
+            return value -> (value instanceof Map) ? new JSONObject((Map)value) : new JSONObject(value.toString());
+        }
+        
+        if(type == JSONArray.class)
+        {
+            return value -> (value instanceof Collection) ? new JSONArray((Collection)value) : new JSONArray(value.toString());
+        }
+        
+        // Lists and maps written inside a property are created as the declared
+        // type, so these only convert collections that arrive by reference
+        if(type == Set.class) return value -> (value instanceof Collection) ? new LinkedHashSet((Collection)value) : value;
+        if(type == SortedSet.class || type == NavigableSet.class) return value -> (value instanceof Collection) ? new TreeSet((Collection)value) : value;
+        if(type == SortedMap.class || type == NavigableMap.class) return value -> (value instanceof Map) ? new TreeMap((Map)value) : value;
+        
+        if(type.isEnum()) return value -> (value instanceof String) ? Enum.valueOf(type, ((String)value).trim()) : value;
+        if(type.isArray()) return new ArrayConverter(type.componentType());
+        
+        return null;
+    }
+    
+    private static class Checked implements Converter
+    {
+        private final Class type;
+        private final Converter converter;
+
+        public Checked(Class type, Converter converter)
+        {
+            this.type = type;
+            this.converter = converter;
+        }
+
+        @Override
+        public Object convert(Object value)
+        {
+            if(value == null || type.isInstance(value)) return value;
+            
+            return converter.convert(value);
+        }
+    }
+    
+    private static class ArrayConverter implements Converter
+    {
+        private final Class component;
+
+        public ArrayConverter(Class component)
+        {
+            this.component = component;
+        }
+        
+        private static List split(String value)
+        {
+            String[] values = value.split(",");
+            
+            for(int i=0; i<values.length; i++) values[i] = values[i].trim();
+            
+            return Arrays.asList(values);
+        }
+
+        @Override
+        public Object convert(Object value)
+        {
+            if(value instanceof String) return toArray(split((String)value));
+            if(value instanceof List) return toArray((List)value);
+            
+            return value;
+        }
+        
+        private Object toArray(List values)
+        {
+            Converter converter = getConverter(component);
+            int size = values.size();
+            Object array;
+            
+            try
+            {
+                // Primitive arrays are filled directly rather than element by element through Array.set
+                if(component == int.class)
+                {
+                    int[] ints = new int[size];
+                    
+                    for(int i=0; i<size; i++) ints[i] = (Integer)converter.convert(values.get(i));
+                    
+                    return ints;
+                }
+                
+                if(component == long.class)
+                {
+                    long[] longs = new long[size];
+                    
+                    for(int i=0; i<size; i++) longs[i] = (Long)converter.convert(values.get(i));
+                    
+                    return longs;
+                }
+                
+                if(component == double.class)
+                {
+                    double[] doubles = new double[size];
+                    
+                    for(int i=0; i<size; i++) doubles[i] = (Double)converter.convert(values.get(i));
+                    
+                    return doubles;
+                }
+                
+                if(component == float.class)
+                {
+                    float[] floats = new float[size];
+                    
+                    for(int i=0; i<size; i++) floats[i] = (Float)converter.convert(values.get(i));
+                    
+                    return floats;
+                }
+                
+                if(component == boolean.class)
+                {
+                    boolean[] booleans = new boolean[size];
+                    
+                    for(int i=0; i<size; i++) booleans[i] = (Boolean)converter.convert(values.get(i));
+                    
+                    return booleans;
+                }
+                
+                if(component == byte.class)
+                {
+                    byte[] bytes = new byte[size];
+                    
+                    for(int i=0; i<size; i++) bytes[i] = (Byte)converter.convert(values.get(i));
+                    
+                    return bytes;
+                }
+                
+                if(component == short.class)
+                {
+                    short[] shorts = new short[size];
+                    
+                    for(int i=0; i<size; i++) shorts[i] = (Short)converter.convert(values.get(i));
+                    
+                    return shorts;
+                }
+                
+                if(component == char.class)
+                {
+                    char[] chars = new char[size];
+                    
+                    for(int i=0; i<size; i++) chars[i] = (Character)converter.convert(values.get(i));
+                    
+                    return chars;
+                }
+                
+                array = Array.newInstance(component, size);
+                
+                for(int i=0; i<size; i++) ((Object[])array)[i] = converter.convert(values.get(i));
+                
+                return array;
+            }
+            catch(ClassCastException | ArrayStoreException | NullPointerException e)
+            {
+                throw new ConvirganceException("Unable to convert " + values + " to an array of " + component.getName() + ", " + e.getMessage(), e);
+            }
+        }
+    }
+}
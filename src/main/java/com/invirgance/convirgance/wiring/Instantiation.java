@@ -0,0 +1,788 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.ConvirganceException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Executes the instructions of a {@link WiringTemplate} to produce a single,
+ * independent object graph. Values registered with an <code>id</code> are 
+ * stored in numbered slots assigned when the template was compiled. Forward
+ * references are deferred and applied in document order once the graph has 
+ * been constructed, after linking each to the final value of its slot.
+ * <br><br>
+ * An instantiation created for reloading records the value produced by every
+ * instruction. A later instantiation of a changed template can then be 
+ * reconciled against it, reusing the live objects of unchanged subtrees and
+ * only calling setters where values differ.
+ * <br><br>
+ * If an {@link Executor} is provided, the entries of lists and maps that 
+ * construct objects are built concurrently as branches of the instantiation.
+ * Branches share the slots but defer their references separately, and are
+ * joined in document order.
+ * <br><br>
+ * Elements marked <code>lazy</code> occupy their slot with a {@link Lazy}
+ * holder and are only constructed once something requests them. Elements 
+ * with <code>scope="prototype"</code> occupy their slot with a 
+ * {@link Prototype} holder that builds a new instance for each request.
+ * Objects whose constructor arguments include forward references are 
+ * represented by a {@link Construction} until the graph is complete.
+ * 
+ * @author jbanes
+ */
+final class Instantiation
+{
+    // Marks the slots of a placeholder chain while it is being linked
+    private static final Object LINKING = new Object();
+    
+    private static final Object[] NO_PARAMETERS = new Object[0];
+    
+    final WiringTemplate template;
+    final Object[] values;
+    final Object[] parameters;
+    Object root;
+    
+    final Monitor monitor;
+    int objects;
+    
+    private final Executor executor;
+    private List<Reference> references;
+    
+    private Map<Instruction,Object> record;
+    private Instruction[] sources;
+    private Instantiation previous;
+    private List<Runnable> updates;
+
+    Instantiation(WiringTemplate template)
+    {
+        this(template, (Executor)null);
+    }
+    
+    /**
+     * Creates an instantiation that builds independent list and map entries
+     * on the given executor. The graph is built serially if the executor is
+     * null.
+     */
+    Instantiation(WiringTemplate template, Executor executor)
+    {
+        this(template, executor, Monitor.DEFAULT);
+    }
+    
+    Instantiation(WiringTemplate template, Executor executor, Monitor monitor)
+    {
+        this(template, executor, monitor, NO_PARAMETERS);
+    }
+    
+    /**
+     * Creates an instantiation with the given parameter values, ordered by 
+     * the template's parameter slots.
+     */
+    Instantiation(WiringTemplate template, Executor executor, Monitor monitor, Object[] parameters)
+    {
+        WiringEvents.Instantiate event = new WiringEvents.Instantiate();
+        long start = monitor.start();
+        
+        event.begin();
+        
+        this.template = template;
+        this.values = new Object[template.getSlots()];
+        this.parameters = parameters;
+        this.references = new ArrayList<>();
+        this.executor = executor;
+        this.monitor = monitor;
+        
+        prepare();
+        
+        this.root = execute(template.getInstruction());
+        
+        complete();
+        
+        this.root = link(root);
+        
+        monitor.instantiated(event, objects, start);
+    }
+    
+    // A branch executing part of the graph on another thread. Branches are 
+    // always serial, so a task never waits on other tasks.
+    private Instantiation(Instantiation parent)
+    {
+        this.template = parent.template;
+        this.values = parent.values;
+        this.parameters = parent.parameters;
+        this.references = new ArrayList<>();
+        this.executor = null;
+        this.monitor = parent.monitor;
+    }
+    
+    /**
+     * Creates a recorded instantiation, reusing as much of the 
+     * <code>previous</code> graph as possible. If <code>previous</code> is 
+     * null, the graph is built from scratch.
+     */
+    Instantiation(WiringTemplate template, Instantiation previous)
+    {
+        this.template = template;
+        this.values = new Object[template.getSlots()];
+        this.parameters = NO_PARAMETERS;
+        this.references = new ArrayList<>();
+        this.record = new IdentityHashMap<>();
+        this.sources = new Instruction[values.length];
+        this.updates = new ArrayList<>();
+        this.executor = null;
+        this.monitor = Monitor.DEFAULT;
+        this.previous = previous;
+        
+        prepare();
+        
+        this.root = reconcile(previous == null ? null : previous.template.getInstruction(), template.getInstruction());
+        
+        complete();
+        
+        this.root = link(root);
+        
+        // Placeholders are recorded as the values they resolved to so that
+        // the next reload compares against the real objects
+        for(var entry : record.entrySet())
+        {
+            if(entry.getValue() instanceof Reference) entry.setValue(((Reference)entry.getValue()).getValue());
+        }
+        
+        // The live objects of the previous graph are only modified once the
+        // new graph is known to be complete
+        for(Runnable update : updates)
+        {
+            update.run();
+        }
+        
+        this.updates = null;
+        this.previous = null;
+    }
+    
+    // Lazy and prototype elements can be requested before the subtree 
+    // containing them is built
+    private void prepare()
+    {
+        for(Instruction.LazyValue lazy : template.getLazy())
+        {
+            values[lazy.id] = new Lazy(lazy);
+        }
+        
+        for(Instruction.PrototypeValue prototype : template.getPrototypes())
+        {
+            values[prototype.slot] = new Prototype(prototype);
+        }
+    }
+    
+    private void complete()
+    {
+        WiringEvents.Resolve event = new WiringEvents.Resolve();
+        long start = monitor.start();
+        
+        event.begin();
+        
+        // References can be added while others are applied, such as by objects
+        // constructed once their arguments are linked
+        for(int i=0; i<references.size(); i++)
+        {
+            references.get(i).apply();
+        }
+        
+        monitor.resolved(event, references.size(), start);
+        
+        this.references = null;
+    }
+    
+    private void register(Instruction instruction, Object value)
+    {
+        if(instruction.id >= 0) values[instruction.id] = value;
+        
+        if(record != null)
+        {
+            record.put(instruction, value);
+            
+            if(instruction.id >= 0) sources[instruction.id] = instruction;
+        }
+    }
+    
+    Object execute(Instruction instruction)
+    {
+        Object value = instruction.execute(this);
+        
+        register(instruction, value);
+        
+        return value;
+    }
+    
+    /**
+     * Produces the value of <code>instruction</code>, reusing the live value
+     * of the previous graph where possible. Elements with an <code>id</code> 
+     * are matched against the previous element with the same id. All others
+     * are matched by position, which the callers track by passing the 
+     * instruction found at the same place in the previous template.
+     */
+    Object reconcile(Instruction previous, Instruction instruction)
+    {
+        Object value;
+        
+        if(this.previous == null) previous = null;
+        else if(instruction.id >= 0) previous = this.previous.getSource(template.getId(instruction.id));
+        else if(previous != null && previous.id >= 0) previous = null;
+        
+        if(previous == null || previous.getClass() != instruction.getClass()) return execute(instruction);
+        
+        value = instruction.reconcile(this, previous);
+        
+        register(instruction, value);
+        
+        return value;
+    }
+    
+    /**
+     * Queues a setter call on a live object reused from the previous graph.
+     * The value is checked against the setter's type immediately, but the
+     * setter is not called until the rest of the graph has been built.
+     */
+    void update(Instruction.Property property, Object parent, Object value)
+    {
+        property.check(value);
+        updates.add(() -> property.set(this, parent, value));
+    }
+    
+    Object getPrevious(Instruction instruction)
+    {
+        return previous.record.get(instruction);
+    }
+    
+    private Instruction getSource(String id)
+    {
+        Integer slot = template.getSlot(id);
+        
+        if(slot == null) return null;
+        
+        return sources[slot];
+    }
+    
+    /**
+     * Returns the value a slot finally refers to. A slot holds a placeholder
+     * when a property with an <code>id</code> is set from a forward reference,
+     * and placeholders can chain through any number of such slots. The chain
+     * is walked once without recursion and every slot along it is replaced by
+     * the final value, so that linking all references is linear in the number
+     * of slots.
+     */
+    private Object link(int slot)
+    {
+        Object value = values[slot];
+        int[] chain = null;
+        int length = 0;
+        
+        while(value instanceof Reference)
+        {
+            // Objects waiting on their constructor arguments are built on demand
+            if(value instanceof Construction)
+            {
+                value = ((Construction)value).getValue();
+                break;
+            }
+            
+            if(chain == null) chain = new int[8];
+            if(length >= chain.length) chain = Arrays.copyOf(chain, length * 2);
+            
+            chain[length++] = slot;
+            values[slot] = LINKING;
+            slot = ((Reference)value).slot;
+            value = values[slot];
+            
+            if(value == LINKING) throw new ConvirganceException("Circular reference between ids " + describe(chain, length, slot));
+        }
+        
+        for(int i=0; i<length; i++) values[chain[i]] = value;
+        
+        return value;
+    }
+    
+    // Returns the final value of a placeholder produced outside of any slot
+    private Object link(Object value)
+    {
+        return (value instanceof Reference) ? ((Reference)value).getValue() : value;
+    }
+    
+    // Formats the cycle in a chain as "a -> b -> a"
+    private String describe(int[] chain, int length, int slot)
+    {
+        StringBuilder buffer = new StringBuilder();
+        int start = 0;
+        
+        while(chain[start] != slot) start++;
+        
+        for(int i=start; i<length; i++)
+        {
+            buffer.append(template.getId(chain[i])).append(" -> ");
+        }
+        
+        return buffer.append(template.getId(slot)).toString();
+    }
+    
+    void defer(Reference reference)
+    {
+        references.add(reference);
+    }
+    
+    boolean isParallel()
+    {
+        return (executor != null);
+    }
+    
+    private Object[] execute(Instruction[] group)
+    {
+        Object[] results = new Object[group.length];
+        
+        for(int i=0; i<group.length; i++) results[i] = execute(group[i]);
+        
+        return results;
+    }
+    
+    private CompletableFuture<Object[]> submit(Instantiation branch, Instruction[] group, CompletableFuture[] dependencies)
+    {
+        if(dependencies.length == 0) return CompletableFuture.supplyAsync(() -> branch.execute(group), executor);
+        
+        return CompletableFuture.allOf(dependencies).thenApplyAsync(ignored -> branch.execute(group), executor);
+    }
+    
+    /**
+     * Executes the groups of a {@link Instruction.Fork} concurrently, 
+     * starting each group once the groups it depends on have completed. 
+     * Results are returned and deferred references collected in document 
+     * order, so the outcome is the same as serial execution.
+     */
+    Object[][] fork(Instruction.Fork fork)
+    {
+        CompletableFuture<Object[]>[] futures = new CompletableFuture[fork.groups.length];
+        Instantiation[] branches = new Instantiation[fork.groups.length];
+        Object[][] results = new Object[fork.groups.length][];
+        CompletableFuture[] dependencies;
+        Instruction[] group;
+        Instantiation branch;
+        
+        // Dependencies always precede the groups that depend on them, so
+        // their futures already exist
+        for(int i=0; i<futures.length; i++)
+        {
+            dependencies = new CompletableFuture[fork.dependencies[i].length];
+            group = fork.groups[i];
+            branch = new Instantiation(this);
+            branches[i] = branch;
+            
+            for(int j=0; j<dependencies.length; j++) dependencies[j] = futures[fork.dependencies[i][j]];
+            
+            futures[i] = submit(branch, group, dependencies);
+        }
+        
+        for(int i=0; i<futures.length; i++)
+        {
+            try
+            {
+                results[i] = futures[i].join();
+            }
+            catch(CompletionException e)
+            {
+                if(e.getCause() instanceof RuntimeException) throw (RuntimeException)e.getCause();
+                if(e.getCause() instanceof Error) throw (Error)e.getCause();
+                
+                throw new ConvirganceException(e.getCause());
+            }
+            
+            // Lazy elements forced by branches still running add to the
+            // references of the graph as well
+            synchronized(values)
+            {
+                references.addAll(branches[i].references);
+                objects += branches[i].objects;
+            }
+            
+            // Lazy values created by the branch are forced after it has joined
+            branches[i].references = null;
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Returns the value itself, the constructed object if the value is a 
+     * {@link Lazy} holder, or a new instance if the value is a 
+     * {@link Prototype} holder.
+     */
+    static Object resolve(Object value)
+    {
+        if(value instanceof Lazy) return ((Lazy)value).get();
+        if(value instanceof Prototype) return ((Prototype)value).get();
+        
+        return value;
+    }
+    
+    Object getRoot()
+    {
+        return resolve(root);
+    }
+    
+    Object get(String id)
+    {
+        Integer slot = template.getSlot(id);
+        
+        if(slot == null) return null;
+        
+        return resolve(values[slot]);
+    }
+    
+    /**
+     * Holds an element marked <code>lazy</code> until it is first requested.
+     * The subtree is then constructed exactly once. The holder remains in its
+     * slot so that <code>Supplier</code> properties referencing the element
+     * continue to receive the holder. Construction is serialized across
+     * the whole graph so that lazy elements referencing each other cannot
+     * deadlock.
+     */
+    class Lazy implements Supplier, InvocationHandler
+    {
+        private final Instruction.LazyValue instruction;
+        private boolean resolved;
+        private Object value;
+
+        public Lazy(Instruction.LazyValue instruction)
+        {
+            this.instruction = instruction;
+        }
+        
+        Class getType()
+        {
+            return instruction.getType();
+        }
+        
+        Object proxy(Class type)
+        {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class[]{ type }, this);
+        }
+
+        @Override
+        public Object get()
+        {
+            List<Reference> deferred;
+            
+            synchronized(values)
+            {
+                if(resolved) return value;
+                if(isParallel()) return build(new Instantiation(Instantiation.this));
+                
+                deferred = references;
+                
+                // The graph is complete, so references in the subtree are applied
+                // as soon as it is built. Otherwise they join the graph's own.
+                if(deferred == null) references = new ArrayList<>();
+                
+                try
+                {
+                    value = resolve(execute(instruction.value));
+                    
+                    // Must be set before references are applied in case the
+                    // subtree refers back to this element
+                    resolved = true;
+
+                    if(deferred == null) complete();
+                    if(deferred == null) value = link(value);
+                }
+                finally
+                {
+                    if(deferred == null) references = null;
+                }
+                
+                return value;
+            }
+        }
+        
+        // Builds the subtree of a parallel graph on a serial branch, so that a
+        // task forcing the element never forks from inside the executor
+        private Object build(Instantiation branch)
+        {
+            value = resolve(branch.execute(instruction.value));
+            resolved = true;
+            objects += branch.objects;
+            
+            if(references != null)
+            {
+                references.addAll(branch.references);
+                
+                return value;
+            }
+            
+            branch.complete();
+            
+            value = branch.link(value);
+            
+            return value;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            try
+            {
+                return method.invoke(get(), args);
+            }
+            catch(InvocationTargetException e)
+            {
+                throw e.getCause();
+            }
+        }
+    }
+    
+    /**
+     * Holds an element with <code>scope="prototype"</code>. Every request 
+     * executes the compiled subtree again to produce a new instance, while 
+     * references elsewhere in the subtree still resolve to the shared objects
+     * of the graph. Instances requested once the graph is complete are built 
+     * on a branch of their own, so concurrent requests do not lock.
+     */
+    class Prototype
+    {
+        private final Instruction.PrototypeValue instruction;
+
+        public Prototype(Instruction.PrototypeValue instruction)
+        {
+            this.instruction = instruction;
+        }
+        
+        // Builds an instance as part of the given instantiation, which defers
+        // any forward references in the subtree along with its own
+        Object build(Instantiation instance)
+        {
+            return instance.execute(instruction.value);
+        }
+        
+        public Object get()
+        {
+            Instantiation branch = new Instantiation(Instantiation.this);
+            Object value = resolve(build(branch));
+            
+            branch.complete();
+            
+            return branch.link(value);
+        }
+    }
+    
+    class Reference
+    {
+        private int slot;
+        private Reference source;
+        
+        public Reference(int slot)
+        {
+            this.slot = slot;
+        }
+        
+        // Takes its value from another placeholder, which may not have a slot
+        Reference(Reference source)
+        {
+            this.slot = source.slot;
+            this.source = source;
+        }
+        
+        public Object getValue()
+        {
+            if(source != null) return source.getValue();
+            
+            return link(slot);
+        }
+        
+        // A bare reference links its own slot, so that a property id set 
+        // from a forward reference holds the final value once complete
+        public void apply()
+        {
+            link(slot);
+        }
+    }
+    
+    /**
+     * Stands in for an object with constructor arguments that are forward 
+     * references. The object is constructed and its properties set the first
+     * time its value is requested, which happens at the latest when the 
+     * graph's deferred references are applied. Anything referring to the 
+     * object waits for it in the same way as for a forward reference.
+     */
+    class Construction extends Reference
+    {
+        private final Instruction.ObjectValue instruction;
+        private final Object[] arguments;
+        private boolean building;
+        private Object value;
+
+        public Construction(Instruction.ObjectValue instruction, Object[] arguments)
+        {
+            super(instruction.id);
+            
+            this.instruction = instruction;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public Object getValue()
+        {
+            List<Reference> deferred = references;
+            
+            if(value != null) return value;
+            if(building) throw new ConvirganceException("Circular constructor arguments at [" + instruction.path + "]");
+            
+            building = true;
+            
+            for(int i=0; i<arguments.length; i++)
+            {
+                if(arguments[i] instanceof Reference) arguments[i] = ((Reference)arguments[i]).getValue();
+            }
+            
+            // Branches stop collecting references once joined, so any the 
+            // properties defer are applied straight away
+            if(deferred == null) references = new ArrayList<>();
+            
+            try
+            {
+                value = instruction.build(Instantiation.this, arguments);
+                
+                if(instruction.id >= 0) values[instruction.id] = value;
+                if(deferred == null) complete();
+            }
+            finally
+            {
+                if(deferred == null) references = null;
+            }
+            
+            return value;
+        }
+
+        @Override
+        public void apply()
+        {
+            getValue();
+        }
+    }
+    
+    class MethodReference extends Reference
+    {
+        final Object parent;
+        final Instruction.Property property;
+        
+        public MethodReference(Object parent, Instruction.Property property, Reference reference)
+        {
+            super(reference);
+            
+            this.parent = parent;
+            this.property = property;
+        }
+
+        @Override
+        public void apply()
+        {
+            property.set(Instantiation.this, parent, property.convert(getValue()));
+        }
+    }
+    
+    // Sets a reference on a live object reused from the previous graph. The
+    // setter is skipped if the property already holds the same value.
+    class UpdateReference extends MethodReference
+    {
+        private Object current;
+        private boolean existing;
+        
+        public UpdateReference(Object parent, Instruction.Property property, Reference reference, Object current, boolean existing)
+        {
+            super(parent, property, reference);
+            
+            this.current = current;
+            this.existing = existing;
+        }
+
+        @Override
+        public void apply()
+        {
+            if(!existing || getValue() != current) update(property, parent, property.convert(getValue()));
+        }
+    }
+    
+    class ListReference extends Reference
+    {
+        private List list;
+        private int index;
+        
+        public ListReference(List list, int index, Reference reference)
+        {
+            super(reference);
+            
+            this.list = list;
+            this.index = index;
+        }
+
+        @Override
+        public void apply()
+        {
+            list.set(index, resolve(getValue()));
+        }
+    }
+    
+    class MapEntryReference extends Reference
+    {
+        private Map map;
+        private Object key;
+        private Object value;
+
+        public MapEntryReference(Map map, Object key, Object value)
+        {
+            super(-1);
+            
+            this.map = map;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public void apply()
+        {
+            Object key = this.key;
+            Object value = this.value;
+            
+            if(key instanceof Reference) key = ((Reference)key).getValue();
+            if(value instanceof Reference) value = ((Reference)value).getValue();
+            
+            map.put(resolve(key), resolve(value));
+        }
+    }
+}
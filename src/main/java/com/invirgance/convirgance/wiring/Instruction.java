@@ -0,0 +1,1267 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.json.JSONArray;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.json.JSONParser;
+import com.invirgance.convirgance.source.ClasspathSource;
+import com.invirgance.convirgance.source.FileSource;
+import com.invirgance.convirgance.source.Source;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * A single compiled step of a {@link WiringTemplate}. Instructions are produced
+ * once by {@link XMLWiringParser} with classes, setters, and literal values
+ * already resolved. They are then executed against an {@link Instantiation} 
+ * any number of times to produce fresh object graphs.
+ * 
+ * @author jbanes
+ */
+abstract class Instruction
+{
+    String name; // Debugging
+    int id = -1;
+    
+    Instruction(String name)
+    {
+        this.name = name;
+    }
+    
+    abstract Object execute(Instantiation instance);
+    
+    /**
+     * Produces the value for this instruction during a reload, reusing the
+     * live value produced by the <code>previous</code> instruction where 
+     * nothing has changed. The previous instruction is always of the same 
+     * class. By default the value is rebuilt.
+     */
+    Object reconcile(Instantiation instance, Instruction previous)
+    {
+        return execute(instance);
+    }
+    
+    /**
+     * Records the slots this instruction and its children define, and the 
+     * slots they read through backward references. Used to determine which
+     * subtrees can be built concurrently.
+     */
+    void collect(BitSet defines, BitSet uses)
+    {
+        if(id >= 0) defines.set(id);
+    }
+    
+    static boolean isImmutable(Object value)
+    {
+        return (value == null || value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof Character || value instanceof Enum);
+    }
+    
+    static boolean isUnchanged(Object previous, Object value)
+    {
+        if(value instanceof Instantiation.Reference) return false;
+        
+        return (previous == value || (isImmutable(value) && Objects.equals(previous, value)));
+    }
+    
+    /**
+     * Location of an element in the source document. Each element links to
+     * its parent rather than copying it, so recording a location costs a
+     * single node and the text is only rendered for error messages.
+     */
+    static final class Path
+    {
+        final Path parent;
+        final String name;
+        
+        Path(Path parent, String name)
+        {
+            this.parent = parent;
+            this.name = name;
+        }
+        
+        @Override
+        public String toString()
+        {
+            StringBuilder buffer = new StringBuilder();
+            String[] names;
+            Path path = this;
+            int depth = 0;
+            
+            for(Path node = this; node != null; node = node.parent) depth++;
+            
+            names = new String[depth];
+            
+            for(int i=depth-1; i>=0; i--)
+            {
+                names[i] = path.name;
+                path = path.parent;
+            }
+            
+            for(String element : names)
+            {
+                if(buffer.length() > 0) buffer.append(" > ");
+                
+                buffer.append(element);
+            }
+            
+            return buffer.toString();
+        }
+    }
+    
+    static class Constant extends Instruction
+    {
+        Object value;
+
+        Constant(String name, Object value)
+        {
+            super(name);
+            
+            this.value = value;
+        }
+
+        @Override
+        Object execute(Instantiation instance)
+        {
+            return value;
+        }
+    }
+    
+    /**
+     * Text containing <code>${name}</code> placeholders. Each placeholder is
+     * compiled to a parameter slot that is filled from the values passed to
+     * {@link WiringTemplate#instantiate(Map)}. Text that is a single 
+     * placeholder yields the parameter value itself, so that it is coerced 
+     * to the property type like any other value. Otherwise the values are 
+     * concatenated with the surrounding text.
+     */
+    static class Parameter extends Instruction
+    {
+        String[] text;
+        String[] parameters;
+        int[] slots;
+        Path path;
+
+        // The text has one more segment than there are parameters
+        Parameter(String name, String[] text, String[] parameters, int[] slots, Path path)
+        {
+            super(name);
+            
+            this.text = text;
+            this.parameters = parameters;
+            this.slots = slots;
+            this.path = path;
+        }
+        
+        private Object get(Instantiation instance, int index)
+        {
+            if(slots[index] >= instance.parameters.length) throw new ConvirganceException("No value given for parameter \"" + parameters[index] + "\" at [" + path + "]");
+            
+            return instance.parameters[slots[index]];
+        }
+
+        @Override
+        Object execute(Instantiation instance)
+        {
+            StringBuilder buffer;
+            
+            if(slots.length == 1 && text[0].isEmpty() && text[1].isEmpty()) return get(instance, 0);
+            
+            buffer = new StringBuilder(text[0]);
+            
+            for(int i=0; i<slots.length; i++) buffer.append(get(instance, i)).append(text[i+1]);
+            
+            return buffer.toString();
+        }
+    }
+    
+    static class JSON extends Instruction
+    {
+        Object value;
+
+        JSON(String name, Object value)
+        {
+            super(name);
+            
+            this.value = value;
+        }
+        
+        private Object copy(Object value)
+        {
+            JSONObject object;
+            JSONArray array;
+            
+            if(value instanceof JSONObject)
+            {
+                object = new JSONObject();
+                
+                for(var entry : ((JSONObject)value).entrySet())
+                {
+                    object.put(entry.getKey(), copy(entry.getValue()));
+                }
+                
+                return object;
+            }
+            
+            if(value instanceof JSONArray)
+            {
+                array = new JSONArray();
+                
+                for(Object item : (JSONArray)value) array.add(copy(item));
+                
+                return array;
+            }
+            
+            return value;
+        }
+
+        @Override
+        Object execute(Instantiation instance)
+        {
+            return copy(value);
+        }
+
+        @Override
+        Object reconcile(Instantiation instance, Instruction previous)
+        {
+            if(Objects.equals(value, ((JSON)previous).value)) return instance.getPrevious(previous);
+            
+            return execute(instance);
+        }
+    }
+    
+    static class ArrayValue extends Instruction
+    {
+        Object value;
+
+        ArrayValue(String name, Object value)
+        {
+            super(name);
+            
+            this.value = value;
+        }
+
+        // Arrays are mutable, so each graph receives its own copy
+        @Override
+        Object execute(Instantiation instance)
+        {
+            return PrimitiveArrays.copy(value);
+        }
+
+        @Override
+        Object reconcile(Instantiation instance, Instruction previous)
+        {
+            if(Objects.deepEquals(value, ((ArrayValue)previous).value)) return instance.getPrevious(previous);
+            
+            return execute(instance);
+        }
+    }
+    
+    static class External extends Instruction
+    {
+        String location;
+        ByteOrder order;
+        Path path;
+
+        External(String name, String location, ByteOrder order, Path path)
+        {
+            super(name);
+            
+            this.location = location;
+            this.order = order;
+            this.path = path;
+        }
+        
+        Source getSource()
+        {
+            if(location.startsWith("classpath:")) return new ClasspathSource(location.substring("classpath:".length()));
+            
+            return new FileSource(location);
+        }
+
+        // Files are memory mapped so large arrays are copied straight from the page cache
+        private ByteBuffer map() throws IOException
+        {
+            if(location.startsWith("classpath:"))
+            {
+                try(InputStream in = getSource().getInputStream())
+                {
+                    return ByteBuffer.wrap(in.readAllBytes());
+                }
+            }
+            
+            try(FileChannel channel = FileChannel.open(Paths.get(location), StandardOpenOption.READ))
+            {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+
+        // The payload is read on every execution so the template never holds a copy of it
+        @Override
+        Object execute(Instantiation instance)
+        {
+            if(PrimitiveArrays.isArray(name)) return executeArray();
+            
+            try(InputStream in = getSource().getInputStream())
+            {
+                if(name.equals("json")) return new JSONParser(new InputStreamReader(in, StandardCharsets.UTF_8)).parse();
+                
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            catch(IOException e)
+            {
+                throw new ConvirganceException("Unable to load " + location + " at [" + path + "], " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        Object reconcile(Instantiation instance, Instruction previous)
+        {
+            External external = (External)previous;
+            
+            if(name.equals(external.name) && location.equals(external.location) && Objects.equals(order, external.order)) 
+            {
+                return instance.getPrevious(previous);
+            }
+            
+            return execute(instance);
+        }
+        
+        private Object executeArray()
+        {
+            try
+            {
+                return PrimitiveArrays.decode(name, map().order(order));
+            }
+            catch(IOException | ConvirganceException e)
+            {
+                throw new ConvirganceException("Unable to load " + location + " at [" + path + "], " + e.getMessage(), e);
+            }
+        }
+    }
+    
+    static class Convert extends Instruction
+    {
+        Instruction value;
+        Path path;
+
+        Convert(String name, Instruction value, Path path)
+        {
+            super(name);
+            
+            this.value = value;
+            this.path = path;
+        }
+
+        @Override
+        Object execute(Instantiation instance)
+        {
+            return convert(Instantiation.resolve(instance.execute(value)));
+        }
+
+        @Override
+        Object reconcile(Instantiation instance, Instruction previous)
+        {
+            Convert convert = (Convert)previous;
+            Object text = instance.reconcile(convert.value, value);
+            
+            if(name.equals(convert.name) && isUnchanged(instance.getPrevious(convert.value), text))
+            {
+                return instance.getPrevious(previous);
+            }
+            
+            return convert(text);
+        }
+        
+        @Override
+        void collect(BitSet defines, BitSet uses)
+        {
+            super.collect(defines, uses);
+            value.collect(defines, uses);
+        }
+        
+        private Object convert(Object value)
+        {
+            String text = String.valueOf(value);
+            
+            try
+            {
+                switch(name)
+                {
+                    case "int":
+                    case "integer":
+                        return Integer.valueOf(text);
+
+                    case "long":
+                        return Long.valueOf(text);
+
+                    case "boolean":
+                        return Boolean.valueOf(text);
+
+                    case "float":
+                        return Float.valueOf(text);
+
+                    case "double":
+                        return Double.valueOf(text);
+
+                    case "json":
+                        return new JSONParser(text).parse();
+
+                    default:
+                        return text;
+                }
+            }
+            catch(IOException | NumberFormatException e)
+            {
+                throw new ConvirganceException("Unable to convert value at [" + path + "], " + e.getMessage(), e);
+            }
+        }
+    }
+    
+    static class Reference extends Instruction
+    {
+        int slot;
+        boolean forward;
+
+        Reference(String name, int slot, boolean forward)
+        {
+            super(name);
+            
+            this.slot = slot;
+            this.forward = forward;
+        }
+
+        @Override
+        Object execute(Instantiation instance)
+        {
+            Object value = instance.values[slot];
+            
+            if(forward || value instanceof Instantiation.Reference) return instance.new Reference(slot);
+            
+            // Each backward reference to a prototype receives its own instance
+            if(value instanceof Instantiation.Prototype) return ((Instantiation.Prototype)value).build(instance);
+            
+            return value;
+        }
+
+        @Override
+        void collect(BitSet defines, BitSet uses)
+        {
+            super.collect(defines, uses);
+            
+            // Forward references are resolved once the graph is complete
+            if(!forward) uses.set(slot);
+        }
+    }
+    
+    /**
+     * An element marked <code>lazy</code>. Executing it produces a holder 
+     * that constructs the wrapped subtree the first time it is requested.
+     */
+    static class LazyValue extends Instruction
+    {
+        Instruction value;
+
+        LazyValue(String name, Instruction value)
+        {
+            super(name);
+            
+            this.value = value;
+        }
+        
+        // The class constructed by the subtree, if known without building it
+        Class getType()
+        {
+            return (value instanceof ObjectValue) ? ((ObjectValue)value).type : null;
+        }
+
+        @Override
+        Object execute(Instantiation instance)
+        {
+            // Holders for elements with an id are created with the instantiation
+            if(id >= 0) return instance.values[id];
+            
+            return instance.new Lazy(this);
+        }
+
+        @Override
+        void collect(BitSet defines, BitSet uses)
+        {
+            super.collect(defines, uses);
+            value.collect(defines, uses);
+        }
+    }
+    
+    /**
+     * An element with <code>scope="prototype"</code>. The element builds its 
+     * own instance where it appears, while its slot holds a holder that 
+     * builds a new instance from the wrapped subtree for every lookup. The
+     * wrapper does not take the slot's <code>id</code> so that executing it
+     * never replaces the holder.
+     */
+    static class PrototypeValue extends Instruction
+    {
+        Instruction value;
+        int slot;
+
+        PrototypeValue(String name, Instruction value, int slot)
+        {
+            super(name);
+            
+            this.value = value;
+            this.slot = slot;
+        }
+
+        @Override
+        Object execute(Instantiation instance)
+        {
+            return instance.execute(value);
+        }
+
+        @Override
+        void collect(BitSet defines, BitSet uses)
+        {
+            // References build the prototype in place, so they depend on 
+            // whatever the subtree depends on
+            defines.set(slot);
+            value.collect(defines, uses);
+        }
+    }
+    
+    /**
+     * Constructs an object and sets its properties. Objects are constructed
+     * through their public no-argument constructor, or through a 
+     * {@link ClassMetadata.Creator} when the element has constructor 
+     * arguments or is a record. If any argument is a forward reference, the
+     * object is represented by an {@link Instantiation.Construction} until the
+     * reference can be linked.
+     */
+    static class ObjectValue extends Instruction
+    {
+        Class type;
+        MethodHandle constructor;
+        ClassMetadata.Creator creator;
+        Property[] arguments;
+        Property[] properties;
+        Path path;
+
+        ObjectValue(String name, Class type, MethodHandle constructor, Property[] properties, Path path)
+        {
+            super(name);
+            
+            this.type = type;
+            this.constructor = constructor;
+            this.arguments = new Property[0];
+            this.properties = properties;
+            this.path = path;
+        }
+
+        ObjectValue(String name, Class type, ClassMetadata.Creator creator, Property[] arguments, Property[] properties, Path path)
+        {
+            this(name, type, (MethodHandle)null, properties, path);
+            
+            this.creator = creator;
+            this.arguments = arguments;
+            
+            for(int i=0; i<arguments.length; i++) arguments[i].bind(creator.parameters[i], creator.generics[i]);
+        }
+        
+        private Object construct(Instantiation instance, Object[] values)
+        {
+            WiringEvents.Construct event = new WiringEvents.Construct();
+            long start = instance.monitor.start();
+            Object object;
+            
+            event.begin();
+            
+            try
+            {
+                if(creator == null) object = (Object)constructor.invokeExact();
+                else object = creator.invoke(values);
+            }
+            catch(Throwable e)
+            {
+                throw new ConvirganceException("Unexpected error constructing object at [" + path + "], " + e.getMessage(), e);
+            }
+            
+            instance.objects++;
+            instance.monitor.constructed(event, type, path, start);
+            
+            return object;
+        }
+        
+        private static Property find(Property[] properties, String name)
+        {
+            for(Property property : properties)
+            {
+                if(property.name.equals(name)) return property;
+            }
+            
+            return null;
+        }
+
+        @Override
+        Object execute(Instantiation instance)
+        {
+            Instantiation.Construction construction;
+            Object[] values;
+            
+            if(creator == null) return build(instance, null);
+            
+            values = new Object[arguments.length];
+            
+            for(int i=0; i<arguments.length; i++) values[i] = arguments[i].evaluate(instance);
+            
+            // Construction waits until forward references can be linked
+            for(Object value : values)
+            {
+                if(!(value instanceof Instantiation.Reference)) continue;
+                
+                construction = instance.new Construction(this, values);
+                
+                instance.defer(construction);
+                
+                return construction;
+            }
+            
+            return build(instance, values);
+        }
+        
+        // Constructs the object from evaluated arguments and sets its properties
+        Object build(Instantiation instance, Object[] values)
+        {
+            Object object;
+            
+            for(int i=0; i<arguments.length; i++) values[i] = arguments[i].coerce(values[i]);
+            
+            object = construct(instance, values);
+            
+            for(Property property : properties)
+            {
+                property.apply(instance, object);
+            }
+            
+            return object;
+        }
+
+        @Override
+        void collect(BitSet defines, BitSet uses)
+        {
+            super.collect(defines, uses);
+            
+            for(Property property : arguments)
+            {
+                if(property.id >= 0) defines.set(property.id);
+                
+                property.value.collect(defines, uses);
+            }
+            
+            for(Property property : properties)
+            {
+                if(property.id >= 0) defines.set(property.id);
+                
+                property.value.collect(defines, uses);
+            }
+        }
+
+        @Override
+        Object reconcile(Instantiation instance, Instruction previous)
+        {
+            ObjectValue value = (ObjectValue)previous;
+            Object object = instance.getPrevious(previous);
+            boolean fresh = false;
+            
+            // Objects built through a constructor cannot be updated in place
+            if(creator != null || value.creator != null || type != value.type || object == null) return execute(instance);
+            
+            // A property removed from the file cannot be reverted on the live
+            // object, so a new one is constructed. Unchanged children are 
+            // still carried over.
+            for(Property property : value.properties)
+            {
+                if(find(properties, property.name) == null) fresh = true;
+            }
+            
+            if(fresh) object = construct(instance, null);
+            
+            for(Property property : properties)
+            {
+                property.update(instance, object, find(value.properties, property.name), fresh);
+            }
+            
+            return object;
+        }
+    }
+    
+    static class ListValue extends Instruction
+    {
+        Instruction[] items;
+        boolean immutable;
+        Class target;
+        Path path;
+        
+        private volatile Fork fork;
+
+        ListValue(String name, Instruction[] items, boolean immutable, Path path)
+        {
+            super(name);
+            
+            this.items = items;
+            this.immutable = immutable;
+            this.path = path;
+        }
+        
+        // Sets the declared type of the property the list is injected into
+        void bind(Class type)
+        {
+            this.target = type;
+        }
+        
+        private Fork getFork()
+        {
+            Instruction[][] groups;
+            
+            if(fork == null)
+            {
+                groups = new Instruction[items.length][];
+                
+                for(int i=0; i<items.length; i++) groups[i] = new Instruction[]{ items[i] };
+                
+                fork = Fork.create(groups);
+            }
+            
+            return fork;
+        }
+
+        @Override
+        Object execute(Instantiation instance)
+        {
+            var list = new ArrayList(items.length);
+            boolean deferred = false;
+            
+            if(instance.isParallel() && getFork() != Fork.NONE)
+            {
+                for(Object[] value : instance.fork(getFork())) deferred |= add(instance, list, value[0]);
+                
+                return materialize(list, deferred);
+            }
+            
+            for(Instruction item : items)
+            {
+                deferred |= add(instance, list, instance.execute(item));
+            }
+            
+            return materialize(list, deferred);
+        }
+
+        @Override
+        void collect(BitSet defines, BitSet uses)
+        {
+            super.collect(defines, uses);
+            
+            for(Instruction item : items) item.collect(defines, uses);
+        }
+        
+        // Returns true if the value is a forward reference filled in later
+        private boolean add(Instantiation instance, List list, Object value)
+        {
+            value = Instantiation.resolve(value);
+            
+            if(value instanceof Instantiation.Reference)
+            {
+                instance.defer(instance.new ListReference(list, list.size(), (Instantiation.Reference)value));
+                list.add(null);
+                
+                return true;
+            }
+            
+            list.add(value);
+            
+            return false;
+        }
+        
+        // Copies the items into the collection the target property declares.
+        // Lists with forward references must stay the list that is patched
+        // once the references resolve, so they can only be wrapped.
+        private Object materialize(List list, boolean deferred)
+        {
+            Set set;
+            
+            if(target != null && Set.class.isAssignableFrom(target))
+            {
+                if(deferred) throw new ConvirganceException("Forward references cannot be added to a Set at [" + path + "]");
+                
+                set = SortedSet.class.isAssignableFrom(target) ? new TreeSet(list) : new LinkedHashSet(list);
+                
+                if(!immutable) return set;
+                if(set instanceof SortedSet) return target.isAssignableFrom(SortedSet.class) ? Collections.unmodifiableSortedSet((SortedSet)set) : set;
+                if(!target.isAssignableFrom(Set.class)) return set;
+                
+                return list.contains(null) ? Collections.unmodifiableSet(set) : Set.copyOf(set);
+            }
+            
+            if(!immutable || (target != null && !target.isAssignableFrom(List.class))) return list;
+            if(deferred || list.contains(null)) return Collections.unmodifiableList(list);
+            
+            return List.copyOf(list);
+        }
+
+        @Override
+        Object reconcile(Instantiation instance, Instruction previous)
+        {
+            Instruction[] old = ((ListValue)previous).items;
+            Object[] values = new Object[items.length];
+            boolean unchanged = (items.length == old.length);
+            boolean deferred = false;
+            List list;
+            
+            for(int i=0; i<items.length; i++)
+            {
+                values[i] = instance.reconcile(i < old.length ? old[i] : null, items[i]);
+                
+                if(unchanged) unchanged = (i < old.length && isUnchanged(instance.getPrevious(old[i]), values[i]));
+            }
+            
+            if(unchanged) return instance.getPrevious(previous);
+            
+            list = new ArrayList(items.length);
+            
+            for(Object value : values) deferred |= add(instance, list, value);
+            
+            return materialize(list, deferred);
+        }
+    }
+    
+    static class MapValue extends Instruction
+    {
+        Instruction[] keys;
+        Instruction[] values;
+        boolean immutable;
+        Class target;
+        Class keyType;
+        Path path;
+        
+        private volatile Fork fork;
+
+        MapValue(String name, Instruction[] keys, Instruction[] values, boolean immutable, Path path)
+        {
+            super(name);
+            
+            this.keys = keys;
+            this.values = values;
+            this.immutable = immutable;
+            this.path = path;
+        }
+        
+        // Sets the declared type of the property the map is injected into. 
+        // An EnumMap also needs its key type from the generic declaration.
+        void bind(Class type, Type generic)
+        {
+            Type key = (generic instanceof ParameterizedType) ? ((ParameterizedType)generic).getActualTypeArguments()[0] : null;
+            
+            this.target = type;
+            this.keyType = (key instanceof Class && ((Class)key).isEnum()) ? (Class)key : null;
+            
+            if(type == EnumMap.class && keyType == null) throw new ConvirganceException("Unable to determine the enum key type of the EnumMap at [" + path + "]");
+        }
+        
+        private Fork getFork()
+        {
+            Instruction[][] groups;
+            
+            if(fork == null)
+            {
+                groups = new Instruction[keys.length][];
+                
+                for(int i=0; i<keys.length; i++) groups[i] = new Instruction[]{ keys[i], values[i] };
+                
+                fork = Fork.create(groups);
+            }
+            
+            return fork;
+        }
+        
+        // Creates the map the target property declares, sized so that it 
+        // never rehashes while the entries are added
+        private Map create()
+        {
+            if(target == EnumMap.class) return new EnumMap(keyType);
+            if(target != null && SortedMap.class.isAssignableFrom(target)) return new TreeMap();
+            
+            return new HashMap((int)(keys.length / 0.75f) + 1);
+        }
+
+        @Override
+        Object execute(Instantiation instance)
+        {
+            var map = create();
+            boolean deferred = false;
+            Object key;
+            Object value;
+            
+            if(instance.isParallel() && getFork() != Fork.NONE)
+            {
+                for(Object[] entry : instance.fork(getFork())) deferred |= put(instance, map, entry[0], entry[1]);
+                
+                return materialize(map, deferred);
+            }
+            
+            for(int i=0; i<keys.length; i++)
+            {
+                key = instance.execute(keys[i]);
+                value = instance.execute(values[i]);
+                
+                deferred |= put(instance, map, key, value);
+            }
+            
+            return materialize(map, deferred);
+        }
+        
+        // Returns true if the entry has a forward reference and is put later
+        private boolean put(Instantiation instance, Map map, Object key, Object value)
+        {
+            key = Instantiation.resolve(key);
+            value = Instantiation.resolve(value);
+            
+            if(keyType != null && key instanceof String) key = Enum.valueOf(keyType, ((String)key).trim());
+            if(map.containsKey(key)) throw new ConvirganceException("Duplicate Map entry: " + key + " at [" + path + "]");
+
+            if(key instanceof Instantiation.Reference || value instanceof Instantiation.Reference)
+            {
+                instance.defer(instance.new MapEntryReference(map, key, value));
+                return true;
+            }
+
+            map.put(key, value);
+            
+            return false;
+        }
+        
+        // Maps with forward references are filled in once the references 
+        // resolve, so they can only be wrapped rather than copied
+        private Object materialize(Map map, boolean deferred)
+        {
+            if(!immutable) return map;
+            if(map instanceof SortedMap) return target.isAssignableFrom(SortedMap.class) ? Collections.unmodifiableSortedMap((SortedMap)map) : map;
+            if(target != null && !target.isAssignableFrom(Map.class)) return map;
+            if(deferred || map.containsKey(null) || map.containsValue(null)) return Collections.unmodifiableMap(map);
+            
+            return Map.copyOf(map);
+        }
+
+        @Override
+        void collect(BitSet defines, BitSet uses)
+        {
+            super.collect(defines, uses);
+            
+            for(Instruction key : keys) key.collect(defines, uses);
+            for(Instruction value : values) value.collect(defines, uses);
+        }
+
+        @Override
+        Object reconcile(Instantiation instance, Instruction previous)
+        {
+            MapValue old = (MapValue)previous;
+            Object[] keys = new Object[this.keys.length];
+            Object[] values = new Object[this.values.length];
+            boolean unchanged = (keys.length == old.keys.length);
+            boolean deferred = false;
+            Map map;
+            
+            for(int i=0; i<keys.length; i++)
+            {
+                keys[i] = instance.reconcile(i < old.keys.length ? old.keys[i] : null, this.keys[i]);
+                values[i] = instance.reconcile(i < old.values.length ? old.values[i] : null, this.values[i]);
+                
+                if(unchanged) unchanged = (i < old.keys.length && isUnchanged(instance.getPrevious(old.keys[i]), keys[i]));
+                if(unchanged) unchanged = isUnchanged(instance.getPrevious(old.values[i]), values[i]);
+            }
+            
+            if(unchanged) return instance.getPrevious(previous);
+            
+            map = create();
+            
+            for(int i=0; i<keys.length; i++) deferred |= put(instance, map, keys[i], values[i]);
+            
+            return materialize(map, deferred);
+        }
+    }
+    
+    /**
+     * The entries of a list or map that may be built concurrently. Each group
+     * holds the instructions for one entry. An entry that reads an id defined 
+     * by an earlier entry depends on that entry and is only started once it 
+     * has completed.
+     */
+    static class Fork
+    {
+        static final Fork NONE = new Fork(null, null);
+        
+        final Instruction[][] groups;
+        final int[][] dependencies;
+
+        private Fork(Instruction[][] groups, int[][] dependencies)
+        {
+            this.groups = groups;
+            this.dependencies = dependencies;
+        }
+        
+        private static boolean isConstructed(Instruction[] group)
+        {
+            for(Instruction instruction : group)
+            {
+                if(instruction instanceof LazyValue) instruction = ((LazyValue)instruction).value;
+                if(instruction instanceof PrototypeValue) instruction = ((PrototypeValue)instruction).value;
+                if(instruction instanceof ObjectValue || instruction instanceof ListValue || instruction instanceof MapValue) return true;
+            }
+            
+            return false;
+        }
+        
+        // Returns NONE unless at least two entries construct objects
+        static Fork create(Instruction[][] groups)
+        {
+            BitSet[] defines = new BitSet[groups.length];
+            BitSet[] uses = new BitSet[groups.length];
+            int[][] dependencies = new int[groups.length][];
+            int constructed = 0;
+            int count;
+            
+            for(Instruction[] group : groups)
+            {
+                if(isConstructed(group)) constructed++;
+            }
+            
+            if(constructed < 2) return NONE;
+            
+            for(int i=0; i<groups.length; i++)
+            {
+                defines[i] = new BitSet();
+                uses[i] = new BitSet();
+                
+                for(Instruction instruction : groups[i]) instruction.collect(defines[i], uses[i]);
+            }
+            
+            for(int i=0; i<groups.length; i++)
+            {
+                dependencies[i] = new int[i];
+                count = 0;
+                
+                for(int j=0; j<i; j++)
+                {
+                    if(uses[i].intersects(defines[j])) dependencies[i][count++] = j;
+                }
+                
+                dependencies[i] = Arrays.copyOf(dependencies[i], count);
+            }
+            
+            return new Fork(groups, dependencies);
+        }
+    }
+    
+    static class Property
+    {
+        String name;
+        ClassMetadata.Setter setter;
+        Class type;
+        Converter converter;
+        Instruction value;
+        Object coerced;
+        boolean constant;
+        int id = -1;
+        Path path;
+
+        Property(String name, ClassMetadata.Setter setter, Instruction value, Path path)
+        {
+            this(name, value, path);
+            
+            this.setter = setter;
+            
+            bind(setter.type, setter.getGenericType());
+        }
+        
+        // A constructor argument, which is bound to its parameter type once
+        // the constructor has been chosen
+        Property(String name, Instruction value, Path path)
+        {
+            this.name = name;
+            this.value = value;
+            this.path = path;
+        }
+        
+        void bind(Class type, Type generic)
+        {
+            this.type = type;
+            this.converter = Converters.getConverter(type);
+            
+            // Collections are created directly as the declared type
+            if(value instanceof ListValue) ((ListValue)value).bind(type);
+            if(value instanceof MapValue) ((MapValue)value).bind(type, generic);
+            
+            // Immutable literals can be coerced once rather than on every instantiation
+            if(value instanceof Constant && ((Constant)value).value instanceof String)
+            {
+                this.coerced = convert(((Constant)value).value);
+                this.constant = isImmutable(coerced);
+            }
+        }
+        
+        Object convert(Object value)
+        {
+            Instantiation.Lazy lazy;
+            
+            // Lazy values are injected without being constructed into Supplier 
+            // properties, or as a proxy into properties typed by an interface 
+            // the lazy object implements. Any other property forces construction.
+            if(value instanceof Instantiation.Lazy)
+            {
+                lazy = (Instantiation.Lazy)value;
+                
+                if(type == Supplier.class) return lazy;
+                if(type.isInterface() && lazy.getType() != null && type.isAssignableFrom(lazy.getType())) return lazy.proxy(type);
+                
+                value = lazy.get();
+            }
+            
+            // Forward references to a prototype link to its holder
+            if(value instanceof Instantiation.Prototype) value = ((Instantiation.Prototype)value).get();
+            
+            try
+            {
+                return converter.convert(value);
+            }
+            catch(IllegalArgumentException e)
+            {
+                throw new ConvirganceException("Unable to set property at [" + path + "] with expected type [" + type + "], " + e.getMessage(), e);
+            }
+        }
+        
+        Object coerce(Object raw)
+        {
+            return constant ? coerced : convert(raw);
+        }
+        
+        // Executes the value, registering it under the property's id if it has one
+        Object evaluate(Instantiation instance)
+        {
+            Object raw = instance.execute(value);
+            
+            if(id >= 0) instance.values[id] = raw;
+            if(id >= 0 && raw instanceof Instantiation.Reference) instance.defer(instance.new Reference(id));
+            
+            return raw;
+        }
+        
+        void apply(Instantiation instance, Object parent)
+        {
+            Object raw = evaluate(instance);
+            
+            if(raw instanceof Instantiation.Reference)
+            {
+                instance.defer(instance.new MethodReference(parent, this, (Instantiation.Reference)raw));
+                return;
+            }
+            
+            set(instance, parent, coerce(raw));
+        }
+        
+        // Reload counterpart of apply(). The setter is only called if the
+        // value differs from the one previously set on the live parent, and 
+        // is queued until the reload completes unless the parent is new.
+        void update(Instantiation instance, Object parent, Property previous, boolean fresh)
+        {
+            Object raw = (previous == null) ? instance.execute(value) : instance.reconcile(previous.value, value);
+            Object current = (previous == null) ? null : instance.getPrevious(previous.value);
+            
+            if(id >= 0) instance.values[id] = raw;
+            
+            if(raw instanceof Instantiation.Reference)
+            {
+                if(id >= 0) instance.defer(instance.new Reference(id));
+                
+                if(fresh) instance.defer(instance.new MethodReference(parent, this, (Instantiation.Reference)raw));
+                else instance.defer(instance.new UpdateReference(parent, this, (Instantiation.Reference)raw, current, previous != null));
+                
+                return;
+            }
+            
+            if(fresh) set(instance, parent, coerce(raw));
+            else if(previous == null || !isUnchanged(current, raw)) instance.update(this, parent, coerce(raw));
+        }
+        
+        // Performs the same conversion as the setter's handle without calling
+        // the setter, so that a queued update cannot fail on its value
+        void check(Object value)
+        {
+            try
+            {
+                MethodHandles.identity(type).asType(MethodType.methodType(type, Object.class)).invoke(value);
+            }
+            catch(ClassCastException | NullPointerException e)
+            {
+                throw new ConvirganceException("Unable to set property at [" + path + "] with expected type [" + type + "] and actual type of [" + (value == null ? null : value.getClass()) + "], " + e.getMessage(), e);
+            }
+            catch(Throwable ex)
+            {
+                throw new ConvirganceException("Unable to set property at [" + path + "], " + ex.getMessage(), ex);
+            }
+        }
+        
+        void set(Instantiation instance, Object parent, Object value)
+        {
+            WiringEvents.Setter event = new WiringEvents.Setter();
+            long start = instance.monitor.start();
+            
+            event.begin();
+            
+            try
+            {
+                setter.invoke(parent, value);
+            }
+            catch(ClassCastException | NullPointerException e)
+            {
+                throw new ConvirganceException("Unable to set property at [" + path + "] with expected type [" + type + "] and actual type of [" + (value == null ? null : value.getClass()) + "], " + e.getMessage(), e);
+            }
+            catch(Throwable ex)
+            {
+                throw new ConvirganceException("Unable to set property at [" + path + "], " + ex.getMessage(), ex);
+            }
+            
+            instance.monitor.set(event, parent.getClass(), name, path, start);
+        }
+    }
+}
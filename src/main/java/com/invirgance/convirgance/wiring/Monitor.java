@@ -0,0 +1,154 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Dispatches instrumentation to the JFR events and the {@link WiringListener}s 
+ * in effect for a parse. Listeners installed through the service loader are
+ * found once and apply to every parse. Timing is only taken when at least 
+ * one listener is present, so an unmonitored parse pays for little more than
+ * the JFR events, which are free unless a recording is running.
+ * 
+ * @author jbanes
+ */
+final class Monitor
+{
+    private static final WiringListener[] installed = load();
+    
+    static final Monitor DEFAULT = new Monitor(installed);
+    
+    private final WiringListener[] listeners;
+
+    private Monitor(WiringListener[] listeners)
+    {
+        this.listeners = listeners;
+    }
+    
+    private static WiringListener[] load()
+    {
+        return ServiceLoader.load(WiringListener.class).stream().map(ServiceLoader.Provider::get).toArray(WiringListener[]::new);
+    }
+    
+    static Monitor get(WiringOptions options)
+    {
+        List<WiringListener> added = options.getListeners();
+        WiringListener[] listeners;
+        
+        if(added.isEmpty()) return DEFAULT;
+        
+        listeners = Arrays.copyOf(installed, installed.length + added.size());
+        
+        for(int i=0; i<added.size(); i++) listeners[installed.length + i] = added.get(i);
+        
+        return new Monitor(listeners);
+    }
+    
+    long start()
+    {
+        return (listeners.length > 0) ? System.nanoTime() : 0;
+    }
+    
+    private long elapsed(long start)
+    {
+        return (listeners.length > 0) ? System.nanoTime() - start : 0;
+    }
+    
+    void parsed(String tag, long start)
+    {
+        long nanos = elapsed(start);
+        
+        for(WiringListener listener : listeners) listener.parsed(tag, nanos);
+    }
+    
+    void compiled(WiringEvents.Compile event, long bytes, int elements, long start)
+    {
+        long nanos = elapsed(start);
+        
+        if(event.shouldCommit())
+        {
+            event.bytes = bytes;
+            event.elements = elements;
+            event.commit();
+        }
+        
+        for(WiringListener listener : listeners) listener.compiled(bytes, elements, nanos);
+    }
+    
+    void constructed(WiringEvents.Construct event, Class type, Instruction.Path path, long start)
+    {
+        long nanos = elapsed(start);
+        
+        if(event.shouldCommit())
+        {
+            event.type = type.getName();
+            event.path = path.toString();
+            event.commit();
+        }
+        
+        for(WiringListener listener : listeners) listener.constructed(type, nanos);
+    }
+    
+    void set(WiringEvents.Setter event, Class type, String property, Instruction.Path path, long start)
+    {
+        long nanos = elapsed(start);
+        
+        if(event.shouldCommit())
+        {
+            event.type = type.getName();
+            event.property = property;
+            event.path = path.toString();
+            event.commit();
+        }
+        
+        for(WiringListener listener : listeners) listener.set(type, property, nanos);
+    }
+    
+    void resolved(WiringEvents.Resolve event, int references, long start)
+    {
+        long nanos = elapsed(start);
+        
+        if(event.shouldCommit())
+        {
+            event.references = references;
+            event.commit();
+        }
+        
+        for(WiringListener listener : listeners) listener.resolved(references, nanos);
+    }
+    
+    void instantiated(WiringEvents.Instantiate event, int objects, long start)
+    {
+        long nanos = elapsed(start);
+        
+        if(event.shouldCommit())
+        {
+            event.objects = objects;
+            event.commit();
+        }
+        
+        for(WiringListener listener : listeners) listener.instantiated(objects, nanos);
+    }
+}
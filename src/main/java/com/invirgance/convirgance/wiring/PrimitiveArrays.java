@@ -0,0 +1,271 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.ConvirganceException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+
+/**
+ * Parses and decodes the compact primitive array tags. Text values are 
+ * separated by commas and/or whitespace and are parsed in place, so no string
+ * is created per value. Binary values are raw, fixed width numbers in the 
+ * order given by the tag.
+ * 
+ * @author jbanes
+ */
+final class PrimitiveArrays
+{
+    private PrimitiveArrays()
+    {
+    }
+    
+    static boolean isArray(String name)
+    {
+        switch(name)
+        {
+            case "int-array":
+            case "long-array":
+            case "double-array":
+            case "byte-array":
+                return true;
+                
+            default:
+                return false;
+        }
+    }
+    
+    static Object parse(String name, String text, String encoding)
+    {
+        if(encoding != null && !name.equals("byte-array")) throw new IllegalArgumentException("The encoding attribute is only supported on byte-array tags");
+        
+        switch(name)
+        {
+            case "int-array":
+                return parseInts(text);
+                
+            case "long-array":
+                return parseLongs(text);
+                
+            case "double-array":
+                return parseDoubles(text);
+                
+            default:
+                if(encoding == null) return parseBytes(text);
+                if(encoding.equals("base64")) return Base64.getMimeDecoder().decode(text);
+                
+                throw new IllegalArgumentException("Unknown encoding \"" + encoding + "\"");
+        }
+    }
+    
+    static Object decode(String name, ByteBuffer buffer)
+    {
+        int width = getWidth(name);
+        Object array;
+        
+        if(buffer.remaining() % width != 0) throw new ConvirganceException("Length of " + buffer.remaining() + " bytes is not a multiple of " + width + " for " + name);
+        
+        switch(name)
+        {
+            case "int-array":
+                array = new int[buffer.remaining() / width];
+                
+                buffer.asIntBuffer().get((int[])array);
+                break;
+                
+            case "long-array":
+                array = new long[buffer.remaining() / width];
+                
+                buffer.asLongBuffer().get((long[])array);
+                break;
+                
+            case "double-array":
+                array = new double[buffer.remaining() / width];
+                
+                buffer.asDoubleBuffer().get((double[])array);
+                break;
+                
+            default:
+                array = new byte[buffer.remaining()];
+                
+                buffer.get((byte[])array);
+        }
+        
+        return array;
+    }
+    
+    // The inverse of decode, always in big endian order
+    static byte[] encode(Object array)
+    {
+        ByteBuffer buffer;
+        
+        if(array instanceof byte[]) return ((byte[])array).clone();
+        
+        if(array instanceof int[])
+        {
+            buffer = ByteBuffer.allocate(((int[])array).length * Integer.BYTES);
+            
+            buffer.asIntBuffer().put((int[])array);
+        }
+        else if(array instanceof long[])
+        {
+            buffer = ByteBuffer.allocate(((long[])array).length * Long.BYTES);
+            
+            buffer.asLongBuffer().put((long[])array);
+        }
+        else
+        {
+            buffer = ByteBuffer.allocate(((double[])array).length * Double.BYTES);
+            
+            buffer.asDoubleBuffer().put((double[])array);
+        }
+        
+        return buffer.array();
+    }
+    
+    static Object copy(Object array)
+    {
+        if(array instanceof int[]) return ((int[])array).clone();
+        if(array instanceof long[]) return ((long[])array).clone();
+        if(array instanceof double[]) return ((double[])array).clone();
+        
+        return ((byte[])array).clone();
+    }
+    
+    static ByteOrder getOrder(String order)
+    {
+        if(order == null || order.equals("big-endian")) return ByteOrder.BIG_ENDIAN;
+        if(order.equals("little-endian")) return ByteOrder.LITTLE_ENDIAN;
+        
+        throw new IllegalArgumentException("Unknown byte order \"" + order + "\"");
+    }
+    
+    private static int getWidth(String name)
+    {
+        switch(name)
+        {
+            case "int-array":
+                return Integer.BYTES;
+                
+            case "long-array":
+            case "double-array":
+                return Long.BYTES;
+                
+            default:
+                return 1;
+        }
+    }
+    
+    private static boolean isDelimiter(char c)
+    {
+        return (c == ',' || c <= ' ');
+    }
+    
+    private static int skipDelimiters(String text, int index)
+    {
+        while(index < text.length() && isDelimiter(text.charAt(index))) index++;
+        
+        return index;
+    }
+    
+    private static int skipValue(String text, int index)
+    {
+        while(index < text.length() && !isDelimiter(text.charAt(index))) index++;
+        
+        return index;
+    }
+    
+    private static int count(String text)
+    {
+        int count = 0;
+        
+        for(int i=skipDelimiters(text, 0); i<text.length(); i=skipDelimiters(text, skipValue(text, i))) count++;
+        
+        return count;
+    }
+    
+    private static int[] parseInts(String text)
+    {
+        int[] values = new int[count(text)];
+        int index = 0;
+        int end;
+        
+        for(int i=skipDelimiters(text, 0); i<text.length(); i=skipDelimiters(text, end))
+        {
+            end = skipValue(text, i);
+            values[index++] = Integer.parseInt(text, i, end, 10);
+        }
+        
+        return values;
+    }
+    
+    private static long[] parseLongs(String text)
+    {
+        long[] values = new long[count(text)];
+        int index = 0;
+        int end;
+        
+        for(int i=skipDelimiters(text, 0); i<text.length(); i=skipDelimiters(text, end))
+        {
+            end = skipValue(text, i);
+            values[index++] = Long.parseLong(text, i, end, 10);
+        }
+        
+        return values;
+    }
+    
+    private static double[] parseDoubles(String text)
+    {
+        double[] values = new double[count(text)];
+        int index = 0;
+        int end;
+        
+        for(int i=skipDelimiters(text, 0); i<text.length(); i=skipDelimiters(text, end))
+        {
+            end = skipValue(text, i);
+            values[index++] = Double.parseDouble(text.substring(i, end));
+        }
+        
+        return values;
+    }
+    
+    private static byte[] parseBytes(String text)
+    {
+        byte[] values = new byte[count(text)];
+        int index = 0;
+        int value;
+        int end;
+        
+        for(int i=skipDelimiters(text, 0); i<text.length(); i=skipDelimiters(text, end))
+        {
+            end = skipValue(text, i);
+            value = Integer.parseInt(text, i, end, 10);
+            
+            if(value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) throw new NumberFormatException("Value out of range. Value:\"" + text.substring(i, end) + "\"");
+            
+            values[index++] = (byte)value;
+        }
+        
+        return values;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.wiring.annotation.Wiring;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps custom tag names to the classes that service them. Each ClassLoader has
+ * its own registry, populated from the <code>META-INF/wiring.properties</code>
+ * and <code>META-INF/wirings.properties</code> files visible to that loader. 
+ * Tags can also be registered at runtime with {@link #register(String, Class)}.
+ * <br><br>
+ * Each tag is resolved to its class only once. Lookups do not lock, so a 
+ * registry can be shared by any number of parsers on any number of threads.
+ * 
+ * @author jbanes
+ */
+public final class TagRegistry
+{
+    private static final Map<ClassLoader,TagRegistry> registries = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final TagRegistry defaultRegistry = forClassLoader(TagRegistry.class.getClassLoader());
+    
+    private final WeakReference<ClassLoader> loader;
+    private final Map<String,Tag> tags;
+    private final Map<String,WeakReference<Class>> classes;
+
+    private TagRegistry(ClassLoader loader)
+    {
+        this.loader = new WeakReference<>(loader);
+        this.tags = new ConcurrentHashMap<>();
+        this.classes = new ConcurrentHashMap<>();
+        
+        load(loader, "META-INF/wiring.properties");
+        load(loader, "META-INF/wirings.properties");
+    }
+    
+    /**
+     * Returns the registry for the ClassLoader that loaded the wiring library.
+     * This is the registry used by {@link XMLWiringParser} unless another is 
+     * provided.
+     * 
+     * @return the default registry
+     */
+    public static TagRegistry getDefault()
+    {
+        return defaultRegistry;
+    }
+    
+    /**
+     * Returns the registry for the given ClassLoader, scanning the loader for
+     * wiring properties files the first time it is requested. Tag classes are 
+     * loaded through this ClassLoader.
+     * 
+     * @param loader the ClassLoader to load tags from
+     * @return the registry for the ClassLoader
+     */
+    public static TagRegistry forClassLoader(ClassLoader loader)
+    {
+        if(loader == null) loader = ClassLoader.getSystemClassLoader();
+        
+        return registries.computeIfAbsent(loader, TagRegistry::new);
+    }
+    
+    private void load(ClassLoader loader, String path)
+    {
+        Enumeration<URL> resources;
+        Properties properties;
+        URL url;
+        
+        try
+        {
+            resources = loader.getResources(path);
+
+            while(resources.hasMoreElements())
+            {
+                url = resources.nextElement();
+                properties = new Properties();
+
+                // Don't let one bad file stop the load
+                try(InputStream in = url.openStream())
+                {
+                    properties.load(in);
+                    
+                    for(String name : properties.stringPropertyNames())
+                    {
+                        tags.put(name, new Tag(properties.getProperty(name)));
+                    }
+                }
+                catch(Exception e)
+                {
+                    e.printStackTrace();
+                }
+            }
+        }
+        catch(IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+    
+    private ClassLoader getClassLoader()
+    {
+        ClassLoader loader = this.loader.get();
+        
+        if(loader == null) throw new ConvirganceException("ClassLoader for tag registry has been unloaded");
+        
+        return loader;
+    }
+    
+    /**
+     * Registers a custom tag for the given class. Replaces any existing 
+     * registration for the tag. Only affects wiring files parsed after the 
+     * call.
+     * 
+     * @param tag the name of the tag as used in the XML
+     * @param type the class to construct for the tag
+     */
+    public void register(String tag, Class<?> type)
+    {
+        tags.put(tag, new Tag(type));
+    }
+    
+    /**
+     * Registers a custom tag for a class annotated with {@link Wiring}. The tag
+     * name is taken from the annotation, or the simple name of the class if 
+     * the annotation does not specify one.
+     * 
+     * @param type a class annotated with {@link Wiring}
+     */
+    public void register(Class<?> type)
+    {
+        Wiring wiring = type.getAnnotation(Wiring.class);
+        
+        if(wiring == null) throw new ConvirganceException(type.getName() + " is not annotated with @Wiring");
+        
+        register(wiring.value().isBlank() ? type.getSimpleName() : wiring.value(), type);
+    }
+    
+    /**
+     * Removes a custom tag from the registry
+     * 
+     * @param tag the name of the tag to remove
+     */
+    public void unregister(String tag)
+    {
+        tags.remove(tag);
+    }
+    
+    /**
+     * Checks if a custom tag has been registered
+     * 
+     * @param tag the name of the tag
+     * @return true if the tag is registered
+     */
+    public boolean isRegistered(String tag)
+    {
+        return tags.containsKey(tag);
+    }
+    
+    /**
+     * Returns the class servicing a custom tag, loading it on first use.
+     * 
+     * @param tag the name of the tag
+     * @return the class for the tag or <code>null</code> if the tag is not registered
+     * @throws ClassNotFoundException if the class registered for the tag cannot be loaded
+     */
+    public Class<?> getTagClass(String tag) throws ClassNotFoundException
+    {
+        Tag entry = tags.get(tag);
+        
+        if(entry == null) return null;
+        
+        return entry.resolve(this);
+    }
+    
+    /**
+     * Loads a class by name through this registry's ClassLoader. Classes are
+     * cached after the first load.
+     * 
+     * @param name the fully qualified name of the class
+     * @return the loaded class
+     * @throws ClassNotFoundException if the class cannot be found
+     */
+    public Class<?> loadClass(String name) throws ClassNotFoundException
+    {
+        WeakReference<Class> reference = classes.get(name);
+        Class clazz = (reference == null) ? null : reference.get();
+        
+        if(clazz != null) return clazz;
+        
+        clazz = Class.forName(name, true, getClassLoader());
+        
+        classes.put(name, new WeakReference<>(clazz));
+        
+        return clazz;
+    }
+    
+    /**
+     * Provides a snapshot of the custom tags in this registry.
+     * 
+     * @return A Properties object with the tag name as the key and class name as the value
+     */
+    public Properties getTags()
+    {
+        Properties properties = new Properties();
+        
+        for(var entry : tags.entrySet())
+        {
+            properties.setProperty(entry.getKey(), entry.getValue().className);
+        }
+        
+        return properties;
+    }
+    
+    // Classes, including those registered directly, are only weakly held so
+    // the registry does not pin its ClassLoader. A registered class stays 
+    // reachable for as long as the loader that defined it.
+    private static class Tag
+    {
+        private final String className;
+        private volatile WeakReference<Class> type;
+
+        public Tag(String className)
+        {
+            this.className = className;
+        }
+
+        public Tag(Class type)
+        {
+            this.className = type.getName();
+            this.type = new WeakReference<>(type);
+        }
+        
+        public Class resolve(TagRegistry registry) throws ClassNotFoundException
+        {
+            WeakReference<Class> reference = type;
+            Class resolved = (reference == null) ? null : reference.get();
+            
+            // Benign race: concurrent first lookups resolve to the same class
+            if(resolved == null)
+            {
+                resolved = registry.loadClass(className);
+                type = new WeakReference<>(resolved);
+            }
+            
+            return resolved;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.source.Source;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size bounded cache of compiled {@link WiringTemplate}s. Templates are 
+ * keyed by a SHA-256 hash of the wiring file's content, so the same file 
+ * loaded from any number of call sites is only parsed once. Least recently
+ * used templates are evicted once the cache is full.
+ * <br><br>
+ * A {@link Source} still has to be read to compute its hash, but the XML is
+ * not parsed again. Files are additionally keyed by their path, size, and last
+ * modified time so that an unchanged file is not read at all.
+ * <pre>
+ * var cache = new WiringCache(100);
+ * var pipeline = cache.&lt;ETLOperation&gt;getParser(new File("mypipeline.xml")).getRoot();
+ * </pre>
+ * 
+ * This class is thread safe.
+ * 
+ * @author jbanes
+ */
+public class WiringCache
+{
+    private final int maximumSize;
+    private final TagRegistry tags;
+    private final Map<ByteBuffer,WiringTemplate> templates;
+    private final Map<File,Stamp> files;
+    
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Create a new cache holding at most <code>maximumSize</code> templates,
+     * resolving custom tags from the default {@link TagRegistry}.
+     * 
+     * @param maximumSize the maximum number of templates to retain
+     */
+    public WiringCache(int maximumSize)
+    {
+        this(maximumSize, TagRegistry.getDefault());
+    }
+    
+    /**
+     * Create a new cache holding at most <code>maximumSize</code> templates,
+     * resolving custom tags from the given {@link TagRegistry}.
+     * 
+     * @param maximumSize the maximum number of templates to retain
+     * @param tags the registry of custom tags
+     */
+    public WiringCache(int maximumSize, TagRegistry tags)
+    {
+        if(maximumSize < 1) throw new IllegalArgumentException("Cache size must be at least 1");
+        
+        this.maximumSize = maximumSize;
+        this.tags = tags;
+        
+        this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry eldest)
+            {
+                if(size() <= WiringCache.this.maximumSize) return false;
+                
+                evictions++;
+                
+                return true;
+            }
+        };
+        
+        this.files = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry eldest)
+            {
+                return size() > WiringCache.this.maximumSize;
+            }
+        };
+    }
+    
+    private static ByteBuffer hash(byte[] data)
+    {
+        try
+        {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(data));
+        }
+        catch(NoSuchAlgorithmException e)
+        {
+            throw new ConvirganceException(e);
+        }
+    }
+    
+    private synchronized WiringTemplate lookup(ByteBuffer key)
+    {
+        WiringTemplate template = templates.get(key);
+        
+        if(template != null) hits++;
+        else misses++;
+        
+        return template;
+    }
+    
+    private WiringTemplate getTemplate(ByteBuffer key, byte[] data)
+    {
+        WiringTemplate template = lookup(key);
+        
+        if(template != null) return template;
+        
+        // Compile outside of the lock so that a slow parse does not block other files
+        template = XMLWiringParser.compile(new ByteArrayInputStream(data), tags);
+        
+        synchronized(this)
+        {
+            WiringTemplate existing = templates.putIfAbsent(key, template);
+            
+            return (existing != null) ? existing : template;
+        }
+    }
+    
+    /**
+     * Returns the compiled template for the content of the {@link Source}. The
+     * source is read in full, but only parsed if the content is not already
+     * cached.
+     * 
+     * @param <T> the type of the root object
+     * @param source the source from where to read the XML file
+     * @return the compiled template
+     */
+    public <T> WiringTemplate<T> getTemplate(Source source)
+    {
+        byte[] data;
+        
+        try(InputStream in = source.getInputStream())
+        {
+            data = in.readAllBytes();
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException(e);
+        }
+        
+        return getTemplate(hash(data), data);
+    }
+    
+    /**
+     * Returns the compiled template for a file. If the size and last modified
+     * time of the file are unchanged since the previous call, the cached 
+     * template is returned without reading the file.
+     * 
+     * @param <T> the type of the root object
+     * @param file the XML file
+     * @return the compiled template
+     */
+    public <T> WiringTemplate<T> getTemplate(File file)
+    {
+        File key = file.getAbsoluteFile();
+        long modified = key.lastModified();
+        long length = key.length();
+        WiringTemplate template;
+        Stamp stamp;
+        byte[] data;
+        
+        synchronized(this)
+        {
+            stamp = files.get(key);
+        }
+        
+        if(stamp != null && stamp.modified == modified && stamp.length == length)
+        {
+            synchronized(this)
+            {
+                template = templates.get(stamp.hash);
+                
+                if(template != null)
+                {
+                    hits++;
+                    return template;
+                }
+            }
+        }
+        
+        try
+        {
+            data = Files.readAllBytes(key.toPath());
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException(e);
+        }
+        
+        stamp = new Stamp(modified, length, hash(data));
+        template = getTemplate(stamp.hash, data);
+        
+        synchronized(this)
+        {
+            files.put(key, stamp);
+        }
+        
+        return template;
+    }
+    
+    /**
+     * Returns a new {@link XMLWiringParser} with a freshly instantiated object 
+     * graph built from the cached template for the {@link Source}.
+     * 
+     * @param <T> the type of the root object
+     * @param source the source from where to read the XML file
+     * @return a parser holding a new object graph
+     */
+    public <T> XMLWiringParser<T> getParser(Source source)
+    {
+        return new XMLWiringParser<>(this.<T>getTemplate(source));
+    }
+    
+    /**
+     * Returns a new {@link XMLWiringParser} with a freshly instantiated object 
+     * graph built from the cached template for the file.
+     * 
+     * @param <T> the type of the root object
+     * @param file the XML file
+     * @return a parser holding a new object graph
+     */
+    public <T> XMLWiringParser<T> getParser(File file)
+    {
+        return new XMLWiringParser<>(this.<T>getTemplate(file));
+    }
+    
+    /**
+     * Removes all templates from the cache. Statistics are not reset.
+     */
+    public synchronized void clear()
+    {
+        templates.clear();
+        files.clear();
+    }
+    
+    /**
+     * Returns the number of templates currently cached
+     * 
+     * @return the number of cached templates
+     */
+    public synchronized int size()
+    {
+        return templates.size();
+    }
+    
+    /**
+     * Returns the maximum number of templates the cache will retain
+     * 
+     * @return the maximum size
+     */
+    public int getMaximumSize()
+    {
+        return maximumSize;
+    }
+    
+    /**
+     * Returns the number of lookups served from the cache
+     * 
+     * @return the number of cache hits
+     */
+    public synchronized long getHitCount()
+    {
+        return hits;
+    }
+    
+    /**
+     * Returns the number of lookups that required the XML to be parsed
+     * 
+     * @return the number of cache misses
+     */
+    public synchronized long getMissCount()
+    {
+        return misses;
+    }
+    
+    /**
+     * Returns the number of templates removed to keep the cache within its
+     * maximum size
+     * 
+     * @return the number of evictions
+     */
+    public synchronized long getEvictionCount()
+    {
+        return evictions;
+    }
+    
+    /**
+     * Returns the fraction of lookups served from the cache
+     * 
+     * @return the hit rate between 0.0 and 1.0
+     */
+    public synchronized double getHitRate()
+    {
+        long total = hits + misses;
+        
+        return (total == 0) ? 0.0 : (double)hits / total;
+    }
+    
+    private static class Stamp
+    {
+        private final long modified;
+        private final long length;
+        private final ByteBuffer hash;
+
+        public Stamp(long modified, long length, ByteBuffer hash)
+        {
+            this.modified = modified;
+            this.length = length;
+            this.hash = hash;
+        }
+    }
+}
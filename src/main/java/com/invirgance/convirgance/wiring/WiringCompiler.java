@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.source.FileSource;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Build step that converts Wiring XML files into the binary format loaded by
+ * {@link XMLWiringParser#load(File)}. Intended to be run from the build with
+ * the project's classes on the classpath, as every class referenced by the
+ * XML must be resolvable at compile time.
+ * <pre>
+ * java -cp ... com.invirgance.convirgance.wiring.WiringCompiler pipeline.xml pipeline.wire
+ * </pre>
+ * 
+ * @author jbanes
+ */
+public final class WiringCompiler
+{
+    private WiringCompiler()
+    {
+    }
+    
+    /**
+     * Compiles a Wiring XML file and writes it in the binary format.
+     * 
+     * @param xml the Wiring XML file
+     * @param output the file to write the compiled wiring to
+     */
+    public static void compile(File xml, File output)
+    {
+        WiringTemplate template = XMLWiringParser.compile(new FileSource(xml));
+        
+        try(OutputStream out = new BufferedOutputStream(new FileOutputStream(output)))
+        {
+            template.write(out);
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException("Unable to write " + output + ", " + e.getMessage(), e);
+        }
+    }
+    
+    public static void main(String[] args)
+    {
+        if(args.length < 2 || args.length % 2 != 0)
+        {
+            System.err.println("Usage: WiringCompiler <input.xml> <output> [<input.xml> <output> ...]");
+            System.exit(1);
+        }
+        
+        for(int i=0; i<args.length; i+=2)
+        {
+            compile(new File(args[i]), new File(args[i+1]));
+        }
+    }
+}
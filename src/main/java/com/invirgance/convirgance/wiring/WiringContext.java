@@ -0,0 +1,184 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.ConvirganceException;
+import java.util.Set;
+
+/**
+ * An immutable view of a constructed object graph. The objects registered 
+ * with an <code>id</code> are captured once construction has completed and 
+ * can then be looked up from any number of threads without locking. The 
+ * context can be shared freely, such as by storing it in a static field, 
+ * without further synchronization.
+ * <br><br>
+ * Ids are found through a compact open addressing table rather than a 
+ * <code>HashMap</code>, so a lookup is a hash of the id followed by a short
+ * scan of adjacent array entries. Elements marked <code>lazy</code> are 
+ * constructed on first lookup, which does take a lock. Elements with 
+ * <code>scope="prototype"</code> return a new instance from every lookup
+ * without locking.
+ * <pre>
+ * var context = new XMLWiringParser&lt;Pipeline&gt;(source).getContext();
+ * var target = context.get("target", Target.class);
+ * </pre>
+ * 
+ * @author jbanes
+ */
+public final class WiringContext<T>
+{
+    private final String[] keys;
+    private final Object[] values;
+    private final int mask;
+    private final Object root;
+    private final Set<String> ids;
+
+    WiringContext(Instantiation instance)
+    {
+        WiringTemplate template = instance.template;
+        int capacity = 2;
+        Object value;
+        String id;
+        int index;
+        
+        // Keeps the table at most half full so that probes stay short
+        while(capacity < instance.values.length * 2) capacity <<= 1;
+        
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        this.root = instance.root;
+        this.ids = template.getIds();
+        
+        for(int slot=0; slot<instance.values.length; slot++)
+        {
+            id = template.getId(slot);
+            value = instance.values[slot];
+            index = hash(id) & mask;
+            
+            if(value instanceof Instantiation.Reference) value = ((Instantiation.Reference)value).getValue();
+            
+            while(keys[index] != null) index = (index + 1) & mask;
+            
+            keys[index] = id;
+            values[index] = value;
+        }
+    }
+    
+    private static int hash(String id)
+    {
+        int hash = id.hashCode();
+        
+        return hash ^ (hash >>> 16);
+    }
+    
+    /**
+     * Returns the object described by the XML file
+     * 
+     * @return the root object in the XML file
+     */
+    public T getRoot()
+    {
+        return (T)Instantiation.resolve(root);
+    }
+    
+    /**
+     * Returns the set of <code>id</code> attributes declared in the wiring file.
+     * 
+     * @return an unmodifiable set of ids
+     */
+    public Set<String> getIds()
+    {
+        return ids;
+    }
+    
+    /**
+     * Returns true if the wiring file declares the given <code>id</code>.
+     * 
+     * @param id the string identifier to find
+     * @return true if the id exists
+     */
+    public boolean contains(String id)
+    {
+        return (find(id) >= 0);
+    }
+    
+    private int find(String id)
+    {
+        int index = hash(id) & mask;
+        String key;
+        
+        while((key = keys[index]) != null)
+        {
+            if(key == id || key.equals(id)) return index;
+            
+            index = (index + 1) & mask;
+        }
+        
+        return -1;
+    }
+    
+    // True if lookups of the id build a new instance each time
+    boolean isPrototype(String id)
+    {
+        int index = find(id);
+        
+        return (index >= 0 && values[index] instanceof Instantiation.Prototype);
+    }
+    
+    /**
+     * Returns the object with the specified <code>id</code> attribute on its 
+     * tag. If the <code>id</code> is not found, <code>null</code> is returned 
+     * instead.
+     * 
+     * @param id the string identifier to find
+     * @return the object registered with the id
+     */
+    public Object get(String id)
+    {
+        int index = find(id);
+        
+        if(index < 0) return null;
+        
+        return Instantiation.resolve(values[index]);
+    }
+    
+    /**
+     * Returns the object with the specified <code>id</code> attribute, 
+     * checking that it is of the expected type. If the <code>id</code> is not 
+     * found, <code>null</code> is returned instead.
+     * 
+     * @param <V> the expected type
+     * @param id the string identifier to find
+     * @param type the class the object is expected to be an instance of
+     * @return the object registered with the id
+     * @throws ConvirganceException if the object is not of the expected type
+     */
+    public <V> V get(String id, Class<V> type)
+    {
+        Object value = get(id);
+        
+        if(value == null || type.isInstance(value)) return (V)value;
+        
+        throw new ConvirganceException("Object with id \"" + id + "\" is of type " + value.getClass().getName() + ", expected " + type.getName());
+    }
+}
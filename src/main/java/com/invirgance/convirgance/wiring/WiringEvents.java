@@ -0,0 +1,116 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Java Flight Recorder events emitted while compiling and instantiating
+ * wiring files. Events cost nothing unless a recording enables them.
+ * Constructor and setter events default to a 1 ms threshold so that only 
+ * slow custom objects are recorded.
+ * 
+ * @author jbanes
+ */
+final class WiringEvents
+{
+    private WiringEvents()
+    {
+    }
+    
+    @Name("com.invirgance.convirgance.wiring.Compile")
+    @Label("Wiring Compile")
+    @Description("Parsing of a wiring file into a template")
+    @Category({"Convirgance", "Wiring"})
+    @StackTrace(false)
+    static class Compile extends Event
+    {
+        @Label("Bytes Read")
+        @DataAmount
+        long bytes;
+        
+        @Label("Elements")
+        int elements;
+    }
+    
+    @Name("com.invirgance.convirgance.wiring.Construct")
+    @Label("Wiring Construct")
+    @Description("Construction of a wired object, excluding its properties")
+    @Category({"Convirgance", "Wiring"})
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static class Construct extends Event
+    {
+        @Label("Class")
+        String type;
+        
+        @Label("Path")
+        String path;
+    }
+    
+    @Name("com.invirgance.convirgance.wiring.Setter")
+    @Label("Wiring Setter")
+    @Description("Invocation of a property setter on a wired object")
+    @Category({"Convirgance", "Wiring"})
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static class Setter extends Event
+    {
+        @Label("Class")
+        String type;
+        
+        @Label("Property")
+        String property;
+        
+        @Label("Path")
+        String path;
+    }
+    
+    @Name("com.invirgance.convirgance.wiring.Resolve")
+    @Label("Wiring Reference Resolution")
+    @Description("Application of the deferred references of an object graph")
+    @Category({"Convirgance", "Wiring"})
+    @StackTrace(false)
+    static class Resolve extends Event
+    {
+        @Label("References")
+        int references;
+    }
+    
+    @Name("com.invirgance.convirgance.wiring.Instantiate")
+    @Label("Wiring Instantiate")
+    @Description("Construction of a complete object graph from a template")
+    @Category({"Convirgance", "Wiring"})
+    @StackTrace(false)
+    static class Instantiate extends Event
+    {
+        @Label("Objects")
+        int objects;
+    }
+}
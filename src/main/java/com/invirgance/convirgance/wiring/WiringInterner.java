@@ -0,0 +1,240 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.json.JSONArray;
+import com.invirgance.convirgance.json.JSONObject;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Canonicalizes the literal values of wiring files so that equal values 
+ * share a single instance. Generated wiring files tend to repeat the same 
+ * table names, column lists, and JSON blocks many times, and each repeat 
+ * would otherwise be a separate object held by every graph built from the
+ * file. Strings, boxed numbers, and <code>&lt;json&gt;</code> literals are 
+ * interned, including the keys and values inside JSON literals.
+ * <br><br>
+ * Interning is enabled for a parse with {@link WiringOptions#setInterner(WiringInterner) setInterner}.
+ * Use {@link #getDefault()} to share values across every document in the 
+ * process, or a new instance to limit sharing to a group of documents.
+ * Values are held weakly and are released once no template uses them.
+ * <pre>
+ * var options = new WiringOptions();
+ * 
+ * options.setInterner(WiringInterner.getDefault());
+ * 
+ * new XMLWiringParser&lt;Pipeline&gt;(source, options);
+ * System.out.println(WiringInterner.getDefault());
+ * </pre>
+ * 
+ * The bytes saved are estimated from typical object layouts on a 64-bit JVM
+ * with compressed pointers, and count only the duplicates that were 
+ * discarded. 
+ * 
+ * @author jbanes
+ */
+public class WiringInterner
+{
+    private static final WiringInterner DEFAULT = new WiringInterner();
+    
+    private final Map<Object,WeakReference<Object>> values = new WeakHashMap<>();
+    private long lookups;
+    private long duplicates;
+    private long saved;
+    
+    /**
+     * Returns the interner shared by the whole process.
+     * 
+     * @return the shared interner
+     */
+    public static WiringInterner getDefault()
+    {
+        return DEFAULT;
+    }
+    
+    /**
+     * Returns the canonical instance equal to the given value. Values that
+     * are not strings, boxed numbers, or JSON are returned unchanged. JSON
+     * values must not be modified once interned.
+     * 
+     * @param value the value to intern
+     * @return the canonical instance of the value
+     */
+    public Object intern(Object value)
+    {
+        if(value instanceof JSONObject || value instanceof JSONArray) return lookup(internJSON(value), true);
+        if(!isInternable(value)) return value;
+        
+        return lookup(value, false);
+    }
+    
+    private static boolean isInternable(Object value)
+    {
+        return (value instanceof String || value instanceof Integer || value instanceof Long 
+             || value instanceof Double || value instanceof Float || value instanceof Short 
+             || value instanceof Byte || value instanceof Character);
+    }
+    
+    private synchronized Object lookup(Object value, boolean container)
+    {
+        WeakReference<Object> reference = values.get(value);
+        Object canonical = (reference == null) ? null : reference.get();
+        
+        lookups++;
+        
+        if(canonical == null)
+        {
+            values.put(value, new WeakReference<>(value));
+            
+            return value;
+        }
+        
+        // The children of a JSON duplicate, including nested containers, were
+        // already counted as they were interned
+        duplicates++;
+        saved += container ? estimateContainer(value) : estimate(value);
+        
+        return canonical;
+    }
+    
+    // Rebuilds the JSON with its keys and values interned
+    private Object internJSON(Object value)
+    {
+        JSONObject object;
+        JSONArray array;
+        
+        if(value instanceof JSONObject)
+        {
+            object = new JSONObject();
+            
+            for(var entry : ((JSONObject)value).entrySet())
+            {
+                object.put((String)intern(entry.getKey()), intern(entry.getValue()));
+            }
+            
+            return object;
+        }
+        
+        if(value instanceof JSONArray)
+        {
+            array = new JSONArray();
+            
+            for(Object item : (JSONArray)value) array.add(intern(item));
+            
+            return array;
+        }
+        
+        return intern(value);
+    }
+    
+    private static long estimate(Object value)
+    {
+        String string;
+        long bytes;
+        
+        if(value instanceof Long || value instanceof Double) return 24;
+        if(!(value instanceof String)) return 16;
+        
+        string = (String)value;
+        bytes = string.length();
+        
+        // Strings are stored one byte per character unless they contain non-Latin-1 characters
+        for(int i=0; i<string.length(); i++)
+        {
+            if(string.charAt(i) > 0xFF)
+            {
+                bytes *= 2;
+                break;
+            }
+        }
+        
+        return 24 + align(16 + bytes);
+    }
+    
+    // Counts only the container's own storage, not that of its children
+    private static long estimateContainer(Object value)
+    {
+        if(value instanceof JSONObject) return 56 + align(16 + 4 * ((JSONObject)value).size()) + 40 * ((JSONObject)value).size();
+        
+        return 24 + align(16 + 4 * ((JSONArray)value).size());
+    }
+    
+    private static long align(long bytes)
+    {
+        return (bytes + 7) & ~7;
+    }
+    
+    /**
+     * Returns the number of values passed through the interner.
+     * 
+     * @return the number of values looked up
+     */
+    public synchronized long getLookups()
+    {
+        return lookups;
+    }
+    
+    /**
+     * Returns the number of values that were replaced by an equal instance
+     * already held by the interner.
+     * 
+     * @return the number of duplicates discarded
+     */
+    public synchronized long getDuplicates()
+    {
+        return duplicates;
+    }
+    
+    /**
+     * Returns the estimated number of bytes of heap saved by discarding 
+     * duplicates.
+     * 
+     * @return the estimated bytes saved
+     */
+    public synchronized long getSavedBytes()
+    {
+        return saved;
+    }
+    
+    /**
+     * Returns the number of distinct values currently held.
+     * 
+     * @return the number of canonical values
+     */
+    public synchronized int size()
+    {
+        return values.size();
+    }
+
+    /**
+     * Returns a summary of the duplicates found and the heap saved.
+     * 
+     * @return the report
+     */
+    @Override
+    public synchronized String toString()
+    {
+        return "Interned " + lookups + " values, " + duplicates + " duplicates, saving ~" + saved + " bytes (" + values.size() + " distinct values held)";
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+/**
+ * Receives timing and count information as wiring files are compiled and
+ * instantiated. Listeners can be added for a single parse through 
+ * {@link WiringOptions#addListener(WiringListener)}, or installed for every 
+ * parse by listing the implementation in 
+ * <code>META-INF/services/com.invirgance.convirgance.wiring.WiringListener</code>.
+ * <br><br>
+ * All methods have empty defaults, so implementations only override the 
+ * events they are interested in. Times are in nanoseconds. Subtrees may be
+ * built on several threads at once, so implementations must be thread-safe.
+ * See {@link WiringStatistics} for a listener that aggregates everything into
+ * a summary report.
+ * 
+ * @author jbanes
+ */
+public interface WiringListener
+{
+    /**
+     * Called as each element finishes parsing. The time includes the 
+     * element's children.
+     * 
+     * @param tag the name of the element
+     * @param nanos the time spent parsing the element
+     */
+    default void parsed(String tag, long nanos) {}
+    
+    /**
+     * Called once a wiring file has been compiled into a template.
+     * 
+     * @param bytes the number of bytes of XML read
+     * @param elements the number of elements parsed
+     * @param nanos the time spent compiling
+     */
+    default void compiled(long bytes, int elements, long nanos) {}
+    
+    /**
+     * Called after each object is constructed. The time only covers the
+     * constructor, not the properties set afterward.
+     * 
+     * @param type the class constructed
+     * @param nanos the time spent in the constructor
+     */
+    default void constructed(Class type, long nanos) {}
+    
+    /**
+     * Called after each property setter is invoked.
+     * 
+     * @param type the class of the object the property was set on
+     * @param property the name of the property
+     * @param nanos the time spent in the setter
+     */
+    default void set(Class type, String property, long nanos) {}
+    
+    /**
+     * Called once the deferred references of an object graph have been
+     * applied.
+     * 
+     * @param references the number of references applied
+     * @param nanos the time spent applying them
+     */
+    default void resolved(int references, long nanos) {}
+    
+    /**
+     * Called once an object graph has been completely constructed.
+     * 
+     * @param objects the number of objects constructed
+     * @param nanos the total time spent constructing the graph
+     */
+    default void instantiated(int objects, long nanos) {}
+}
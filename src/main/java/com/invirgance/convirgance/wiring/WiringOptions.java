@@ -0,0 +1,184 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Options controlling how {@link XMLWiringParser} compiles a wiring file. 
+ * The defaults match the behavior of parsing without options.
+ * 
+ * @author jbanes
+ */
+public class WiringOptions
+{
+    private TagRegistry tags = TagRegistry.getDefault();
+    private boolean lazy;
+    private boolean immutableCollections;
+    private WiringInterner interner;
+    private boolean parameters;
+    private final List<WiringListener> listeners = new ArrayList<>();
+
+    /**
+     * Returns the registry custom tags are resolved from. Defaults to 
+     * {@link TagRegistry#getDefault()}.
+     * 
+     * @return the registry of custom tags
+     */
+    public TagRegistry getTags()
+    {
+        return tags;
+    }
+
+    /**
+     * Sets the registry custom tags are resolved from.
+     * 
+     * @param tags the registry of custom tags
+     */
+    public void setTags(TagRegistry tags)
+    {
+        this.tags = tags;
+    }
+
+    /**
+     * Returns true if every element with an <code>id</code> is treated as if
+     * it were marked <code>lazy="true"</code>.
+     * 
+     * @return true if the parser is in lazy mode
+     */
+    public boolean isLazy()
+    {
+        return lazy;
+    }
+
+    /**
+     * Enables lazy mode. Elements with an <code>id</code> and the root object
+     * are not constructed until they are first requested through 
+     * {@link XMLWiringParser#get(String) get} or {@link XMLWiringParser#getRoot() getRoot},
+     * or are needed by another object being constructed. An element can opt
+     * out with <code>lazy="false"</code>.
+     * 
+     * @param lazy true to defer construction of all id registered elements
+     */
+    public void setLazy(boolean lazy)
+    {
+        this.lazy = lazy;
+    }
+    
+    /**
+     * Returns true if lists and maps are created as unmodifiable collections.
+     * 
+     * @return true if the parser creates immutable collections
+     */
+    public boolean isImmutableCollections()
+    {
+        return immutableCollections;
+    }
+
+    /**
+     * Creates lists and maps as compact unmodifiable collections, such as 
+     * those returned by <code>List.copyOf</code>, in place of 
+     * <code>ArrayList</code> and <code>HashMap</code>. Collections injected 
+     * into a property declared as a concrete type, such as 
+     * <code>ArrayList</code>, are left mutable. A list or map can override 
+     * this with the <code>immutable</code> attribute.
+     * 
+     * @param immutableCollections true to create unmodifiable collections
+     */
+    public void setImmutableCollections(boolean immutableCollections)
+    {
+        this.immutableCollections = immutableCollections;
+    }
+    
+    /**
+     * Returns the interner literal values are canonicalized through, or null
+     * if interning is disabled.
+     * 
+     * @return the interner or null
+     */
+    public WiringInterner getInterner()
+    {
+        return interner;
+    }
+
+    /**
+     * Enables interning of strings, numbers, and JSON literals so that equal
+     * values share one instance. Pass {@link WiringInterner#getDefault()} to
+     * share values with every other document parsed in the process. Disabled
+     * by default.
+     * 
+     * @param interner the interner to use, or null to disable interning
+     */
+    public void setInterner(WiringInterner interner)
+    {
+        this.interner = interner;
+    }
+    
+    /**
+     * Returns true if <code>${name}</code> placeholders in text are compiled
+     * into parameters.
+     * 
+     * @return true if parameters are enabled
+     */
+    public boolean isParameters()
+    {
+        return parameters;
+    }
+
+    /**
+     * Compiles <code>${name}</code> placeholders in element text into 
+     * parameters that are filled by {@link WiringTemplate#instantiate(Map)}.
+     * Text inside CDATA sections is never treated as a placeholder. Disabled
+     * by default, so that existing files containing <code>${</code> are read
+     * as written.
+     * 
+     * @param parameters true to compile placeholders into parameters
+     */
+    public void setParameters(boolean parameters)
+    {
+        this.parameters = parameters;
+    }
+    
+    /**
+     * Returns the listeners notified while compiling and instantiating with
+     * these options.
+     * 
+     * @return an unmodifiable list of listeners
+     */
+    public List<WiringListener> getListeners()
+    {
+        return Collections.unmodifiableList(listeners);
+    }
+    
+    /**
+     * Adds a listener to be notified while compiling and instantiating with
+     * these options, in addition to any listeners installed as services.
+     * 
+     * @param listener the listener to add
+     */
+    public void addListener(WiringListener listener)
+    {
+        listeners.add(listener);
+    }
+}
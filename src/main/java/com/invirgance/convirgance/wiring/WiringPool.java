@@ -0,0 +1,380 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.ConvirganceException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recycles the instances of <code>scope="prototype"</code> elements between
+ * jobs. Instead of wiring a new instance for every job, an instance is 
+ * {@link #borrow(String) borrowed} by its <code>id</code>, used, and then 
+ * {@link #release(String, Object) released} back to the pool. Components that
+ * are expensive to construct are then only built when no idle instance is
+ * available.
+ * <br><br>
+ * Each <code>id</code> has its own pool, holding at most 
+ * {@link #setMaxIdle(int) max idle} instances. Released instances are reset 
+ * through {@link Resettable}, or through a {@link #setResetMethod(String) reset method}
+ * if one is configured. Objects that are neither are pooled as they are. 
+ * Instances left idle for longer than the {@link #setIdleTimeout(long) idle timeout}
+ * are evicted as the pool is used, or by calling {@link #evict()}. Discarded 
+ * instances that are <code>AutoCloseable</code> are closed.
+ * <br><br>
+ * Only prototypes can be pooled. Their references to the rest of the graph 
+ * are shared objects, so a recycled instance is as valid as a new one. The 
+ * pool is safe to use from any number of threads.
+ * <pre>
+ * var pool = new WiringPool(new XMLWiringParser&lt;&gt;(source).getContext());
+ * var worker = pool.borrow("worker", Worker.class);
+ * 
+ * try
+ * {
+ *     worker.run(job);
+ * }
+ * finally
+ * {
+ *     pool.release("worker", worker);
+ * }
+ * </pre>
+ * 
+ * @author jbanes
+ */
+public class WiringPool implements AutoCloseable
+{
+    private final WiringContext context;
+    private final Map<String,ArrayDeque<Idle>> pools = new ConcurrentHashMap<>();
+    private final Map<Class,Method> resets = new ConcurrentHashMap<>();
+    
+    private volatile int maxIdle = 8;
+    private volatile long idleTimeout = 60000;
+    private volatile String resetMethod;
+    private volatile boolean closed;
+
+    /**
+     * Creates a pool of the prototype elements in the given context.
+     * 
+     * @param context the constructed graph to obtain new instances from
+     */
+    public WiringPool(WiringContext context)
+    {
+        this.context = context;
+    }
+
+    /**
+     * Returns the maximum number of idle instances kept for each 
+     * <code>id</code>. Defaults to 8.
+     * 
+     * @return the maximum number of idle instances per id
+     */
+    public int getMaxIdle()
+    {
+        return maxIdle;
+    }
+
+    /**
+     * Sets the maximum number of idle instances kept for each 
+     * <code>id</code>. Instances released while the pool for their id is 
+     * full are discarded.
+     * 
+     * @param maxIdle the maximum number of idle instances per id
+     */
+    public void setMaxIdle(int maxIdle)
+    {
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Returns the time in milliseconds an instance may remain idle before it
+     * is evicted. Defaults to 60 seconds.
+     * 
+     * @return the idle timeout in milliseconds
+     */
+    public long getIdleTimeout()
+    {
+        return idleTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds an instance may remain idle before it is
+     * evicted. 
+     * 
+     * @param idleTimeout the idle timeout in milliseconds
+     */
+    public void setIdleTimeout(long idleTimeout)
+    {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Returns the name of the no-argument method called to reset released 
+     * objects that do not implement {@link Resettable}, or null if there is
+     * none.
+     * 
+     * @return the name of the reset method
+     */
+    public String getResetMethod()
+    {
+        return resetMethod;
+    }
+
+    /**
+     * Sets the name of a public no-argument method, such as 
+     * <code>clear</code>, that is called to reset released objects that do 
+     * not implement {@link Resettable}.
+     * 
+     * @param resetMethod the name of the reset method
+     */
+    public void setResetMethod(String resetMethod)
+    {
+        this.resetMethod = resetMethod;
+    }
+    
+    private ArrayDeque<Idle> getPool(String id)
+    {
+        if(!context.isPrototype(id)) throw new ConvirganceException("Object with id \"" + id + "\" is not a prototype and cannot be pooled");
+        
+        return pools.computeIfAbsent(id, key -> new ArrayDeque<>());
+    }
+    
+    /**
+     * Returns an idle instance of the prototype with the given 
+     * <code>id</code>, or a newly built instance if none is idle.
+     * 
+     * @param id the id of a <code>scope="prototype"</code> element
+     * @return an instance for the exclusive use of the caller
+     * @throws ConvirganceException if the id is not a prototype
+     */
+    public Object borrow(String id)
+    {
+        ArrayDeque<Idle> pool = getPool(id);
+        Idle idle;
+        
+        evict(pool);
+        
+        synchronized(pool)
+        {
+            idle = pool.pollFirst();
+        }
+        
+        return (idle == null) ? context.get(id) : idle.value;
+    }
+    
+    /**
+     * Returns an idle or newly built instance of the prototype with the given
+     * <code>id</code>, checking that it is of the expected type.
+     * 
+     * @param <V> the expected type
+     * @param id the id of a <code>scope="prototype"</code> element
+     * @param type the class the object is expected to be an instance of
+     * @return an instance for the exclusive use of the caller
+     * @throws ConvirganceException if the id is not a prototype or the object 
+     *         is not of the expected type
+     */
+    public <V> V borrow(String id, Class<V> type)
+    {
+        Object value = borrow(id);
+        
+        if(value == null || type.isInstance(value)) return (V)value;
+        
+        release(id, value);
+        
+        throw new ConvirganceException("Object with id \"" + id + "\" is of type " + value.getClass().getName() + ", expected " + type.getName());
+    }
+    
+    /**
+     * Resets an instance and returns it to the pool for its <code>id</code>.
+     * The instance is discarded instead if the pool is full or closed, or if 
+     * resetting it fails. The caller must not use the instance afterward.
+     * 
+     * @param id the id the instance was borrowed with
+     * @param value the instance to return
+     * @throws ConvirganceException if the id is not a prototype, or the 
+     *         configured reset method does not exist
+     */
+    public void release(String id, Object value)
+    {
+        ArrayDeque<Idle> pool = getPool(id);
+        boolean pooled = false;
+        
+        if(value == null) return;
+        
+        if(!closed && reset(value))
+        {
+            synchronized(pool)
+            {
+                if(pool.size() < maxIdle)
+                {
+                    pool.addFirst(new Idle(value));
+                    
+                    pooled = true;
+                }
+            }
+        }
+        
+        if(!pooled) discard(value);
+        
+        evict(pool);
+    }
+    
+    /**
+     * Returns the number of idle instances currently pooled for the given
+     * <code>id</code>.
+     * 
+     * @param id the id of a <code>scope="prototype"</code> element
+     * @return the number of idle instances
+     */
+    public int getIdle(String id)
+    {
+        ArrayDeque<Idle> pool = pools.get(id);
+        
+        if(pool == null) return 0;
+        
+        synchronized(pool)
+        {
+            return pool.size();
+        }
+    }
+    
+    /**
+     * Discards every instance that has been idle for longer than the idle 
+     * timeout. Eviction also happens as instances are borrowed and released,
+     * so this only needs to be called to free pools that are no longer used.
+     */
+    public void evict()
+    {
+        for(ArrayDeque<Idle> pool : pools.values()) evict(pool);
+    }
+    
+    private void evict(ArrayDeque<Idle> pool)
+    {
+        long expired = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+        List<Object> evicted = null;
+        
+        // The oldest instances are at the end of the queue
+        synchronized(pool)
+        {
+            while(!pool.isEmpty() && pool.peekLast().released - expired < 0)
+            {
+                if(evicted == null) evicted = new ArrayList<>();
+                
+                evicted.add(pool.pollLast().value);
+            }
+        }
+        
+        if(evicted != null) evicted.forEach(this::discard);
+    }
+    
+    private Method getResetMethod(Class type, String name)
+    {
+        Method method = resets.get(type);
+        
+        if(method != null && method.getName().equals(name)) return method;
+        
+        try
+        {
+            method = type.getMethod(name);
+        }
+        catch(NoSuchMethodException e)
+        {
+            throw new ConvirganceException("Reset method " + name + "() not found on " + type.getName(), e);
+        }
+        
+        resets.put(type, method);
+        
+        return method;
+    }
+    
+    private boolean reset(Object value)
+    {
+        String name = resetMethod;
+        Method method = null;
+        
+        if(!(value instanceof Resettable) && name != null) method = getResetMethod(value.getClass(), name);
+        
+        try
+        {
+            if(value instanceof Resettable) ((Resettable)value).reset();
+            else if(method != null) method.invoke(value);
+            
+            return true;
+        }
+        catch(InvocationTargetException | IllegalAccessException | RuntimeException e)
+        {
+            return false;
+        }
+    }
+    
+    private void discard(Object value)
+    {
+        if(!(value instanceof AutoCloseable)) return;
+        
+        try
+        {
+            ((AutoCloseable)value).close();
+        }
+        catch(Exception e)
+        {
+            // The instance is being thrown away, so there is nothing to recover
+        }
+    }
+
+    /**
+     * Discards all idle instances. Instances released after the pool is 
+     * closed are discarded rather than pooled.
+     */
+    @Override
+    public void close()
+    {
+        List<Object> discarded = new ArrayList<>();
+        
+        closed = true;
+        
+        for(ArrayDeque<Idle> pool : pools.values())
+        {
+            synchronized(pool)
+            {
+                while(!pool.isEmpty()) discarded.add(pool.pollFirst().value);
+            }
+        }
+        
+        discarded.forEach(this::discard);
+    }
+    
+    private static class Idle
+    {
+        final Object value;
+        final long released = System.nanoTime();
+
+        Idle(Object value)
+        {
+            this.value = value;
+        }
+    }
+}
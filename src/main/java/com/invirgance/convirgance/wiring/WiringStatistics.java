@@ -0,0 +1,299 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link WiringListener} that totals the time spent compiling and 
+ * instantiating wiring files. Time is broken down by tag and by class, so a
+ * single slow constructor among hundreds of custom tags stands out in the
+ * report returned by {@link #toString()}.
+ * <pre>
+ * var statistics = new WiringStatistics();
+ * var options = new WiringOptions();
+ * 
+ * options.addListener(statistics);
+ * 
+ * new XMLWiringParser&lt;Pipeline&gt;(source, options);
+ * System.out.println(statistics);
+ * </pre>
+ * 
+ * @author jbanes
+ */
+public class WiringStatistics implements WiringListener
+{
+    private final Tally compile = new Tally();
+    private final Tally instantiate = new Tally();
+    private final Tally setters = new Tally();
+    private final Tally references = new Tally();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder elements = new LongAdder();
+    private final LongAdder objects = new LongAdder();
+    private final Map<String,Tally> tags = new ConcurrentHashMap<>();
+    private final Map<Class,Tally> classes = new ConcurrentHashMap<>();
+
+    @Override
+    public void parsed(String tag, long nanos)
+    {
+        tags.computeIfAbsent(tag, key -> new Tally()).add(1, nanos);
+    }
+
+    @Override
+    public void compiled(long bytes, int elements, long nanos)
+    {
+        this.compile.add(1, nanos);
+        this.bytes.add(bytes);
+        this.elements.add(elements);
+    }
+
+    @Override
+    public void constructed(Class type, long nanos)
+    {
+        classes.computeIfAbsent(type, key -> new Tally()).add(1, nanos);
+    }
+
+    @Override
+    public void set(Class type, String property, long nanos)
+    {
+        setters.add(1, nanos);
+    }
+
+    @Override
+    public void resolved(int references, long nanos)
+    {
+        this.references.add(references, nanos);
+    }
+
+    @Override
+    public void instantiated(int objects, long nanos)
+    {
+        this.instantiate.add(1, nanos);
+        this.objects.add(objects);
+    }
+    
+    /**
+     * Returns the number of bytes of XML read while compiling.
+     * 
+     * @return the number of bytes read
+     */
+    public long getBytesRead()
+    {
+        return bytes.sum();
+    }
+    
+    /**
+     * Returns the number of elements parsed, including property elements.
+     * 
+     * @return the number of elements
+     */
+    public long getElements()
+    {
+        return elements.sum();
+    }
+    
+    /**
+     * Returns the time spent compiling wiring files into templates.
+     * 
+     * @return the time in nanoseconds
+     */
+    public long getCompileTime()
+    {
+        return compile.nanos.sum();
+    }
+    
+    /**
+     * Returns the number of elements parsed with the given tag name.
+     * 
+     * @param tag the name of the element
+     * @return the number of elements parsed
+     */
+    public long getTagCount(String tag)
+    {
+        Tally tally = tags.get(tag);
+        
+        return (tally == null) ? 0 : tally.count.sum();
+    }
+    
+    /**
+     * Returns the time spent parsing elements with the given tag name, 
+     * including their children.
+     * 
+     * @param tag the name of the element
+     * @return the time in nanoseconds
+     */
+    public long getTagTime(String tag)
+    {
+        Tally tally = tags.get(tag);
+        
+        return (tally == null) ? 0 : tally.nanos.sum();
+    }
+    
+    /**
+     * Returns the total number of objects constructed.
+     * 
+     * @return the number of objects
+     */
+    public long getObjects()
+    {
+        return objects.sum();
+    }
+    
+    /**
+     * Returns the time spent constructing object graphs, including reference
+     * resolution.
+     * 
+     * @return the time in nanoseconds
+     */
+    public long getInstantiationTime()
+    {
+        return instantiate.nanos.sum();
+    }
+    
+    /**
+     * Returns the number of instances constructed of the given class.
+     * 
+     * @param type the class constructed
+     * @return the number of instances
+     */
+    public long getInstances(Class type)
+    {
+        Tally tally = classes.get(type);
+        
+        return (tally == null) ? 0 : tally.count.sum();
+    }
+    
+    /**
+     * Returns the time spent in the constructors of the given class.
+     * 
+     * @param type the class constructed
+     * @return the time in nanoseconds
+     */
+    public long getConstructorTime(Class type)
+    {
+        Tally tally = classes.get(type);
+        
+        return (tally == null) ? 0 : tally.nanos.sum();
+    }
+    
+    /**
+     * Returns the number of property setters invoked.
+     * 
+     * @return the number of setter calls
+     */
+    public long getSetterCalls()
+    {
+        return setters.count.sum();
+    }
+    
+    /**
+     * Returns the time spent in property setters.
+     * 
+     * @return the time in nanoseconds
+     */
+    public long getSetterTime()
+    {
+        return setters.nanos.sum();
+    }
+    
+    /**
+     * Returns the number of deferred references applied.
+     * 
+     * @return the number of references
+     */
+    public long getReferences()
+    {
+        return references.count.sum();
+    }
+    
+    /**
+     * Returns the time spent applying deferred references.
+     * 
+     * @return the time in nanoseconds
+     */
+    public long getResolutionTime()
+    {
+        return references.nanos.sum();
+    }
+    
+    private static String format(long nanos)
+    {
+        return String.format("%.3f ms", nanos / 1000000.0);
+    }
+    
+    private static <K> void append(StringBuilder buffer, String title, Map<K,Tally> tallies)
+    {
+        var entries = new ArrayList<>(tallies.entrySet());
+        
+        entries.sort((a, b) -> Long.compare(b.getValue().nanos.sum(), a.getValue().nanos.sum()));
+        
+        buffer.append(title).append('\n');
+        
+        for(var entry : entries)
+        {
+            buffer.append("    ")
+                  .append(entry.getKey() instanceof Class ? ((Class)entry.getKey()).getName() : entry.getKey())
+                  .append(": ")
+                  .append(entry.getValue().count.sum())
+                  .append(" in ")
+                  .append(format(entry.getValue().nanos.sum()))
+                  .append('\n');
+        }
+    }
+
+    /**
+     * Returns a summary report of the statistics, with tags and classes 
+     * ordered from slowest to fastest.
+     * 
+     * @return the report
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder buffer = new StringBuilder();
+        
+        buffer.append("Compiled ").append(getBytesRead()).append(" bytes, ").append(getElements()).append(" elements in ").append(format(getCompileTime())).append('\n');
+        buffer.append("Instantiated ").append(getObjects()).append(" objects in ").append(format(getInstantiationTime())).append('\n');
+        buffer.append("Invoked ").append(getSetterCalls()).append(" setters in ").append(format(getSetterTime())).append('\n');
+        buffer.append("Resolved ").append(getReferences()).append(" references in ").append(format(getResolutionTime())).append('\n');
+        
+        append(buffer, "Constructors by time:", classes);
+        append(buffer, "Tags by time:", tags);
+        
+        return buffer.toString();
+    }
+    
+    private static class Tally
+    {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        
+        void add(long count, long nanos)
+        {
+            this.count.add(count);
+            this.nanos.add(nanos);
+        }
+    }
+}
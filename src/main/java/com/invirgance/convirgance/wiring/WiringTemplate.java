@@ -0,0 +1,221 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.source.Source;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * A compiled, immutable form of a Wiring XML file. The XML is parsed exactly 
+ * once and translated into a tree of instructions with classes, setters, 
+ * literal values, and reference slots already resolved. Each call to
+ * {@link #instantiate() instantiate} then produces a fresh object graph 
+ * without touching the XML again.
+ * <br><br>
+ * Templates are obtained from {@link XMLWiringParser#compile(Source)} and are
+ * safe to share between threads.
+ * <pre>
+ * var template = XMLWiringParser.&lt;ETLOperation&gt;compile(new FileSource("mypipeline.xml"));
+ * var pipeline = template.instantiate();
+ * </pre>
+ * 
+ * @author jbanes
+ * @param <T> the type of the root object
+ */
+public class WiringTemplate<T>
+{
+    private final Instruction root;
+    private final Map<String,Integer> ids;
+    private final String[] names;
+    private final String[] parameters;
+    private final int slots;
+    private final Instruction.LazyValue[] lazy;
+    private final Instruction.PrototypeValue[] prototypes;
+
+    WiringTemplate(Instruction root, Map<String,Integer> ids, Map<String,Integer> parameters, List<Instruction.LazyValue> lazy, List<Instruction.PrototypeValue> prototypes)
+    {
+        this.root = root;
+        this.lazy = lazy.toArray(Instruction.LazyValue[]::new);
+        this.prototypes = prototypes.toArray(Instruction.PrototypeValue[]::new);
+        this.ids = Collections.unmodifiableMap(ids);
+        this.slots = ids.size();
+        this.names = new String[slots];
+        
+        this.parameters = new String[parameters.size()];
+        
+        for(var entry : ids.entrySet()) names[entry.getValue()] = entry.getKey();
+        for(var entry : parameters.entrySet()) this.parameters[entry.getValue()] = entry.getKey();
+    }
+    
+    Instruction getInstruction()
+    {
+        return root;
+    }
+    
+    int getSlots()
+    {
+        return slots;
+    }
+    
+    Integer getSlot(String id)
+    {
+        return ids.get(id);
+    }
+    
+    String getId(int slot)
+    {
+        return names[slot];
+    }
+    
+    String[] getParameterNames()
+    {
+        return parameters;
+    }
+    
+    // Orders the values by parameter slot
+    Object[] getParameters(Map<String,?> values)
+    {
+        Object[] ordered = new Object[parameters.length];
+        
+        for(int i=0; i<parameters.length; i++)
+        {
+            if(!values.containsKey(parameters[i])) throw new ConvirganceException("No value given for parameter \"" + parameters[i] + "\"");
+            
+            ordered[i] = values.get(parameters[i]);
+        }
+        
+        return ordered;
+    }
+    
+    // Lazy elements with an id, which are available before their parent is built
+    Instruction.LazyValue[] getLazy()
+    {
+        return lazy;
+    }
+    
+    // Elements with scope="prototype", which build a new instance per lookup
+    Instruction.PrototypeValue[] getPrototypes()
+    {
+        return prototypes;
+    }
+    
+    /**
+     * Returns the set of <code>id</code> attributes declared in the wiring file.
+     * 
+     * @return an unmodifiable set of ids
+     */
+    public Set<String> getIds()
+    {
+        return ids.keySet();
+    }
+    
+    /**
+     * Constructs a new, independent object graph from the compiled template.
+     * No mutable objects are shared between the graphs returned by successive
+     * calls.
+     * 
+     * @return the root object of the new graph
+     */
+    public T instantiate()
+    {
+        return (T)new Instantiation(this).getRoot();
+    }
+    
+    /**
+     * Returns the names of the <code>${name}</code> placeholders used in the
+     * wiring file. A value must be given for each of them to 
+     * {@link #instantiate(Map)}.
+     * 
+     * @return an unmodifiable set of parameter names
+     */
+    public Set<String> getParameters()
+    {
+        return Set.of(parameters);
+    }
+    
+    /**
+     * Constructs a new, independent object graph with its <code>${name}</code>
+     * placeholders filled from the given values. A placeholder that makes up
+     * all of an element's text is replaced by the value itself, which is 
+     * coerced to the property type in the same way as text. Placeholders 
+     * within longer text are replaced by the value as a string. This allows 
+     * one compiled template to build a graph per tenant or environment 
+     * without parsing the XML again.
+     * <pre>
+     * var options = new WiringOptions();
+     * 
+     * options.setParameters(true);
+     * 
+     * var template = XMLWiringParser.&lt;ETLOperation&gt;compile(new FileSource("pipeline.xml"), options);
+     * var pipeline = template.instantiate(Map.of("schema", "tenant42", "batchSize", 500));
+     * </pre>
+     * 
+     * @param parameters the value of each parameter by name
+     * @return the root object of the new graph
+     * @throws ConvirganceException if a parameter used in the file has no value
+     */
+    public T instantiate(Map<String,?> parameters)
+    {
+        return (T)new Instantiation(this, null, Monitor.DEFAULT, getParameters(parameters)).getRoot();
+    }
+    
+    /**
+     * Constructs a new, independent object graph, building the entries of 
+     * lists and maps concurrently on the given executor. Entries are only
+     * built concurrently if they do not reference an <code>id</code> defined
+     * by an earlier entry, and the results are assembled in document order. 
+     * The resulting graph is the same as the one returned by {@link #instantiate()}.
+     * <br><br>
+     * This is worthwhile when the wired objects do slow work in their 
+     * constructors or setters. Any executor may be used, including 
+     * <code>ForkJoinPool.commonPool()</code> or a virtual thread executor.
+     * 
+     * @param executor the executor to build subtrees on
+     * @return the root object of the new graph
+     */
+    public T instantiate(Executor executor)
+    {
+        return (T)new Instantiation(this, executor).getRoot();
+    }
+    
+    /**
+     * Writes the template in a compact binary form that can be loaded with
+     * {@link XMLWiringParser#load(File)} without parsing XML. Class names are
+     * stored rather than classes, so the classes must be available when the
+     * template is loaded.
+     * 
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(OutputStream out) throws IOException
+    {
+        BinaryWiring.write(this, out);
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.ConvirganceException;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+
+/**
+ * Keeps an object graph in sync with a Wiring XML file as it is edited. When
+ * the file changes, the new document is compared against the previous one and
+ * only the changed parts of the graph are rebuilt. Objects whose elements are
+ * unchanged are kept, and setters are only called on live parents where a 
+ * value or reference actually differs. Elements with an <code>id</code> are 
+ * matched by id, all other elements by their position in the document.
+ * <br><br>
+ * Changes can be applied explicitly with {@link #reload()} or automatically 
+ * by calling {@link #start()}, which watches the file for modifications on a
+ * background thread. The new root is published atomically once a reload 
+ * completes. Setters on reused objects are held back and only called once the
+ * rest of the new graph has been built successfully.
+ * <pre>
+ * var watcher = new WiringWatcher&lt;Schema&gt;(new File("schema.xml"));
+ * 
+ * watcher.start();
+ * 
+ * var schema = watcher.getRoot();
+ * </pre>
+ * 
+ * If a modified file fails to parse or build, the current graph is left in 
+ * place and the error is available from {@link #getLastError()}. An exception
+ * thrown by a setter itself while the held back updates are applied can still
+ * leave reused objects partially updated.
+ * 
+ * @author jbanes
+ * @param <T> the type of the root object
+ */
+public class WiringWatcher<T> implements AutoCloseable
+{
+    private final File file;
+    private final TagRegistry tags;
+    
+    private volatile Instantiation instance;
+    private volatile ConvirganceException error;
+    private volatile long reloads;
+    private byte[] content;
+    
+    private WatchService service;
+    private Thread thread;
+
+    /**
+     * Loads the wiring file, resolving custom tags from the default 
+     * {@link TagRegistry}.
+     * 
+     * @param file the XML file to watch
+     */
+    public WiringWatcher(File file)
+    {
+        this(file, TagRegistry.getDefault());
+    }
+    
+    /**
+     * Loads the wiring file, resolving custom tags from the given 
+     * {@link TagRegistry}.
+     * 
+     * @param file the XML file to watch
+     * @param tags the registry of custom tags
+     */
+    public WiringWatcher(File file, TagRegistry tags)
+    {
+        this.file = file.getAbsoluteFile();
+        this.tags = tags;
+        
+        reload();
+    }
+    
+    private byte[] read()
+    {
+        try
+        {
+            return Files.readAllBytes(file.toPath());
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException("Unable to read " + file + ", " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Returns the root of the current object graph
+     * 
+     * @return the current root object
+     */
+    public T getRoot()
+    {
+        return (T)instance.getRoot();
+    }
+    
+    /**
+     * Returns the object with the given <code>id</code> in the current object
+     * graph.
+     * 
+     * @param id the id attribute of the element
+     * @return the object or null if the id is not declared
+     */
+    public Object get(String id)
+    {
+        return instance.get(id);
+    }
+    
+    /**
+     * Re-reads the file and applies any changes to the object graph. Nothing 
+     * is done if the content of the file is unchanged.
+     * 
+     * @return true if the graph was updated
+     * @throws ConvirganceException if the file cannot be read or parsed
+     */
+    public synchronized boolean reload()
+    {
+        Instantiation next;
+        WiringTemplate template;
+        byte[] data;
+        
+        try
+        {
+            data = read();
+            
+            if(Arrays.equals(data, content)) return false;
+            
+            template = XMLWiringParser.compile(new ByteArrayInputStream(data), tags);
+            next = new Instantiation(template, instance);
+        }
+        catch(ConvirganceException e)
+        {
+            this.error = e;
+            
+            throw e;
+        }
+        
+        this.content = data;
+        this.instance = next;
+        this.error = null;
+        this.reloads++;
+        
+        return true;
+    }
+    
+    /**
+     * Returns the error raised by the most recent reload, or null if it 
+     * succeeded.
+     * 
+     * @return the last error or null
+     */
+    public ConvirganceException getLastError()
+    {
+        return error;
+    }
+    
+    /**
+     * Returns the number of times the graph has been loaded, including the 
+     * initial load.
+     * 
+     * @return the number of successful loads
+     */
+    public long getReloadCount()
+    {
+        return reloads;
+    }
+    
+    /**
+     * Starts watching the file for changes on a background daemon thread. 
+     * Calling this method on a watcher that is already started has no effect.
+     */
+    public synchronized void start()
+    {
+        if(thread != null) return;
+        
+        try
+        {
+            service = file.toPath().getFileSystem().newWatchService();
+            
+            file.getParentFile().toPath().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException("Unable to watch " + file + ", " + e.getMessage(), e);
+        }
+        
+        thread = new Thread(this::watch, "WiringWatcher " + file.getName());
+        
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    private void watch()
+    {
+        WatchKey key;
+        
+        while(true)
+        {
+            try
+            {
+                key = service.take();
+            }
+            catch(InterruptedException | ClosedWatchServiceException e)
+            {
+                return;
+            }
+            
+            for(WatchEvent event : key.pollEvents())
+            {
+                if(!file.getName().equals(String.valueOf(event.context()))) continue;
+                
+                try
+                {
+                    reload();
+                }
+                catch(ConvirganceException e)
+                {
+                    // Retained in getLastError(). The previous graph stays live.
+                }
+                
+                break;
+            }
+            
+            if(!key.reset()) return;
+        }
+    }
+
+    /**
+     * Stops watching the file. The current object graph remains available.
+     */
+    @Override
+    public synchronized void close()
+    {
+        if(thread == null) return;
+        
+        try
+        {
+            service.close();
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException(e);
+        }
+        
+        thread.interrupt();
+        
+        service = null;
+        thread = null;
+    }
+}
@@ -23,55 +23,163 @@ package com.invirgance.convirgance.wiring;
 
 import com.invirgance.convirgance.wiring.annotation.Wiring;
 import com.invirgance.convirgance.ConvirganceException;
-import com.invirgance.convirgance.json.JSONArray;
-import com.invirgance.convirgance.json.JSONObject;
 import com.invirgance.convirgance.json.JSONParser;
 import com.invirgance.convirgance.source.Source;
-import java.beans.IntrospectionException;
-import java.beans.PropertyDescriptor;
+import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Array;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.net.URL;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import org.w3c.dom.*;
-import org.xml.sax.SAXException;
+import java.util.concurrent.Executor;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import static javax.xml.stream.XMLStreamConstants.*;
 
 /**
  * Provides facilities for loading Wiring XML files. In most circumstances, you
  * merely need to provide a {@link Source} to the constructor that points to the XML
  * file and then call {@link #getRoot() getRoot} to retrieve the configured object. In 
  * cases where you wish to access objects within the structure, {@link get(string) get(id)}
- * can be used.
+ * can be used. Once construction has completed, {@link #getContext() getContext}
+ * provides an immutable view of the same objects that can be shared across 
+ * threads.
+ * <br><br>
+ * The XML is read in a single streaming pass. No DOM is built, so memory use
+ * is proportional to the wired objects rather than the size of the file.
+ * <br><br>
+ * When the same file will be wired many times, use {@link #compile(Source) compile}
+ * to obtain a {@link WiringTemplate}. The template parses the XML once and can 
+ * then produce any number of fresh object graphs. Templates can also be 
+ * written to a compact binary form with {@link WiringTemplate#write(OutputStream) write}
+ * at build time and later loaded with {@link #load(File) load} without 
+ * parsing any XML.
  * <br><br>
  * Custom tags can be plugged into XMLWiringParser by including a 
- * <code>/META-INF/wirings.properties</code> file in your project, or by using
- * the {@link Wiring} annotation.
+ * <code>/META-INF/wirings.properties</code> file in your project, by using
+ * the {@link Wiring} annotation, or by registering them at runtime with a
+ * {@link TagRegistry}.
+ * <br><br>
+ * Objects are normally built through a public no-argument constructor and
+ * then populated through setters. Objects can instead be built through a 
+ * constructor by listing <code>&lt;constructor-arg&gt;</code> elements, 
+ * which choose the public constructor with that many arguments. Records are
+ * built through their canonical constructor, with each component given as
+ * if it were a property. Components left out are passed as null or zero. An
+ * argument that is a forward reference delays construction until the 
+ * referenced object exists.
+ * <pre>
+ * &lt;object class="com.example.Stage"&gt;
+ *     &lt;constructor-arg&gt;transform&lt;/constructor-arg&gt;
+ *     &lt;constructor-arg&gt;&lt;ref id="target" /&gt;&lt;/constructor-arg&gt;
+ * &lt;/object&gt;
+ * </pre>
+ * 
+ * Large payloads can be kept out of the wiring file. A <code>&lt;json&gt;</code>
+ * or <code>&lt;string&gt;</code> element with a <code>src</code> attribute
+ * reads its value from the named file, or from the classpath when the location
+ * starts with <code>classpath:</code>. JSON is parsed directly from the stream
+ * and the payload is read each time the element is constructed, so compiled
+ * templates do not hold a copy. Combine <code>src</code> with 
+ * <code>lazy="true"</code> to defer loading until the value is first used.
+ * <pre>
+ * &lt;json id="rates" src="classpath:/rates.json" lazy="true" /&gt;
+ * </pre>
+ * 
+ * Primitive arrays can be written compactly with <code>&lt;int-array&gt;</code>,
+ * <code>&lt;long-array&gt;</code>, <code>&lt;double-array&gt;</code>, and
+ * <code>&lt;byte-array&gt;</code>. Values are separated by commas or 
+ * whitespace, and byte arrays also accept <code>encoding="base64"</code>. 
+ * Large vectors can be kept in a raw binary file named by <code>src</code>, 
+ * which is memory mapped and read in big endian order unless 
+ * <code>order="little-endian"</code> is given.
+ * <pre>
+ * &lt;weights&gt;&lt;double-array src="/data/weights.bin" order="little-endian" /&gt;&lt;/weights&gt;
+ * </pre>
+ * 
+ * Lists and maps are created as the collection type declared by the
+ * property they are set on. <code>Set</code> and <code>SortedSet</code> 
+ * properties receive a <code>LinkedHashSet</code> or <code>TreeSet</code>, 
+ * <code>SortedMap</code> properties a <code>TreeMap</code>, and 
+ * <code>EnumMap</code> properties an <code>EnumMap</code> with the keys
+ * converted to the declared enum. Marking a list or map 
+ * <code>immutable="true"</code>, or enabling 
+ * {@link WiringOptions#setImmutableCollections(boolean) immutable collections},
+ * creates compact unmodifiable collections instead.
+ * <br><br>
+ * When {@link WiringOptions#setParameters(boolean) parameters} are enabled,
+ * text may contain <code>${name}</code> placeholders, which are compiled 
+ * into parameter slots and filled each time a template is instantiated with
+ * {@link WiringTemplate#instantiate(Map)}. A single template can then build
+ * a graph for each tenant without parsing the XML again. Write 
+ * <code>$${</code> for text that should contain a literal <code>${</code>.
+ * Text in CDATA sections is always literal.
+ * <pre>
+ * &lt;object class="com.example.Loader"&gt;
+ *     &lt;table&gt;${schema}.customers&lt;/table&gt;
+ *     &lt;batchSize&gt;${batchSize}&lt;/batchSize&gt;
+ * &lt;/object&gt;
+ * </pre>
+ * 
+ * Files that repeat the same literals many times can share a single 
+ * instance of each through a {@link WiringInterner}, set with 
+ * {@link WiringOptions#setInterner(WiringInterner) setInterner}.
+ * <br><br>
+ * Elements marked <code>lazy="true"</code> are not constructed until they are
+ * first requested with {@link #get(String) get}. Until then they are injected
+ * into <code>Supplier</code> properties as the supplier that constructs them,
+ * and into interface typed properties as a proxy. {@link WiringOptions#setLazy(boolean) Lazy mode}
+ * applies this to every element with an <code>id</code>. Inside a lazy 
+ * element, only elements that are lazy themselves may have an 
+ * <code>id</code>, as nothing else exists until the element is constructed.
+ * <br><br>
+ * Elements with an <code>id</code> can be marked <code>scope="prototype"</code>.
+ * Each call to {@link #get(String) get} then returns a new instance built 
+ * from the compiled element, and each reference to the element receives an
+ * instance of its own. References inside the element still resolve to the 
+ * shared objects of the graph. This gives every concurrent job its own 
+ * component state without wiring the whole file again. A {@link WiringPool}
+ * can recycle these instances between jobs.
+ * <pre>
+ * &lt;object id="worker" scope="prototype" class="com.example.Worker"&gt;
+ *     &lt;pool&gt;&lt;ref id="pool" /&gt;&lt;/pool&gt;
+ * &lt;/object&gt;
+ * </pre>
  * 
  * @author jbanes
  */
 public class XMLWiringParser<T>
 {
-    private Document document;
-    private T root;
+    private WiringTemplate<T> template;
+    private Instantiation instance;
+    private WiringContext<T> context;
     
-    private Map<String,Object> lookup;
-    private List<Reference> references;
+    private XMLStreamReader reader;
+    private Monitor monitor;
+    private int elements;
+    private TagRegistry tags;
+    private boolean lazyMode;
+    private boolean immutableMode;
+    private boolean parameterMode;
+    private WiringInterner interner;
+    private Map<String,Integer> ids;
+    private Map<String,Integer> parameters;
+    private Set<String> defined;
+    private List<Instruction.LazyValue> lazy;
+    private List<Instruction.PrototypeValue> prototypes;
+    private int prototypeDepth;
+    private int lazyDepth;
     
-    private Stack<String> path; // Debugging
+    private Instruction.Path path; // Debugging
+    private StringBuilder buffer;
+    private StringBuilder text;
+    private BitSet cdata;
     
-    private static Properties tags = new Properties();
-    
-    static {
-        initTags("META-INF/wiring.properties");
-        initTags("META-INF/wirings.properties");
-    }
+    private static final String REPORT_CDATA = "http://java.sun.com/xml/stream/properties/report-cdata-event";
     
     /**
      * Create a new XMLWiringParser to parse the given {@link Source}.
@@ -80,380 +188,732 @@ public class XMLWiringParser<T>
      */
     public XMLWiringParser(Source source)
     {
-        this.document = load(source);
-        this.lookup = new HashMap<>();
-        this.references = new ArrayList<>();
-        this.path = new Stack<>();
-        this.root = (T)parse(this.document.getDocumentElement());
+        this(XMLWiringParser.<T>compile(source));
+    }
+    
+    /**
+     * Create a new XMLWiringParser to parse the given {@link Source}, resolving
+     * custom tags from the given {@link TagRegistry}.
+     * 
+     * @param source the source from where to read the XML file
+     * @param tags the registry of custom tags
+     */
+    public XMLWiringParser(Source source, TagRegistry tags)
+    {
+        this(XMLWiringParser.<T>compile(source, tags));
+    }
+    
+    /**
+     * Create a new XMLWiringParser to parse the given {@link Source} with the
+     * given {@link WiringOptions}.
+     * 
+     * @param source the source from where to read the XML file
+     * @param options the options to compile the XML file with
+     */
+    public XMLWiringParser(Source source, WiringOptions options)
+    {
+        this(source, options, Monitor.get(options));
+    }
+    
+    private XMLWiringParser(Source source, WiringOptions options, Monitor monitor)
+    {
+        this(XMLWiringParser.<T>compile(source, options, monitor), null, monitor);
+    }
+    
+    /**
+     * Create a new XMLWiringParser that constructs its object graph from a
+     * previously compiled {@link WiringTemplate}. The XML is not parsed again.
+     * 
+     * @param template the compiled wiring file
+     */
+    public XMLWiringParser(WiringTemplate<T> template)
+    {
+        this(template, null, Monitor.DEFAULT);
+    }
+    
+    /**
+     * Create a new XMLWiringParser that constructs its object graph from a
+     * previously compiled {@link WiringTemplate}, building independent list
+     * and map entries concurrently on the given executor.
+     * 
+     * @param template the compiled wiring file
+     * @param executor the executor to build subtrees on
+     * @see WiringTemplate#instantiate(Executor)
+     */
+    public XMLWiringParser(WiringTemplate<T> template, Executor executor)
+    {
+        this(template, executor, Monitor.DEFAULT);
+    }
+    
+    /**
+     * Create a new XMLWiringParser that constructs its object graph from a
+     * previously compiled {@link WiringTemplate}, filling its 
+     * <code>${name}</code> placeholders from the given parameters.
+     * 
+     * @param template the compiled wiring file
+     * @param parameters the value of each parameter by name
+     * @see WiringTemplate#instantiate(Map)
+     */
+    public XMLWiringParser(WiringTemplate<T> template, Map<String,?> parameters)
+    {
+        this.template = template;
+        this.instance = new Instantiation(template, null, Monitor.DEFAULT, template.getParameters(parameters));
+        this.context = new WiringContext<>(instance);
+    }
+    
+    private XMLWiringParser(WiringTemplate<T> template, Executor executor, Monitor monitor)
+    {
+        this.template = template;
+        this.instance = new Instantiation(template, executor, monitor);
+        this.context = new WiringContext<>(instance);
+    }
+    
+    private XMLWiringParser(XMLStreamReader reader, WiringOptions options, Monitor monitor)
+    {
+        this.reader = reader;
+        this.monitor = monitor;
+        this.tags = options.getTags();
+        this.lazyMode = options.isLazy();
+        this.immutableMode = options.isImmutableCollections();
+        this.parameterMode = options.isParameters();
+        this.interner = options.getInterner();
+        this.lazy = new ArrayList<>();
+        this.prototypes = new ArrayList<>();
+        this.ids = new HashMap<>();
+        this.parameters = new HashMap<>();
+        this.defined = new HashSet<>();
+        this.buffer = new StringBuilder();
+        this.text = new StringBuilder();
+        this.cdata = new BitSet();
+        
+        while(next() != START_ELEMENT);
+        
+        Instruction instruction = parse();
         
-        for(Reference reference : references)
+        if(lazyMode && !(instruction instanceof Instruction.LazyValue)) instruction = new Instruction.LazyValue(instruction.name, instruction);
+        
+        for(String id : ids.keySet())
         {
-            reference.apply();
+            if(!defined.contains(id)) throw new ConvirganceException("Reference to id \"" + id + "\" not found");
         }
+        
+        this.template = new WiringTemplate<>(instruction, ids, parameters, lazy, prototypes);
     }
     
-    private static void initTags(String path)
+    /**
+     * Parses the given {@link Source} into a reusable {@link WiringTemplate}.
+     * The XML is read once and the template can then be instantiated as many
+     * times as needed.
+     * 
+     * @param <T> the type of the root object
+     * @param source the source from where to read the XML file
+     * @return the compiled template
+     */
+    public static <T> WiringTemplate<T> compile(Source source)
     {
-        ClassLoader loader = XMLWiringParser.class.getClassLoader();
-        Enumeration<URL> resources;
-        Properties properties;
-        URL url;
+        return compile(source, TagRegistry.getDefault());
+    }
+    
+    /**
+     * Parses the given {@link Source} into a reusable {@link WiringTemplate},
+     * resolving custom tags from the given {@link TagRegistry}.
+     * 
+     * @param <T> the type of the root object
+     * @param source the source from where to read the XML file
+     * @param tags the registry of custom tags
+     * @return the compiled template
+     */
+    public static <T> WiringTemplate<T> compile(Source source, TagRegistry tags)
+    {
+        WiringOptions options = new WiringOptions();
         
-        try
+        options.setTags(tags);
+        
+        return compile(source, options);
+    }
+    
+    /**
+     * Parses the given {@link Source} into a reusable {@link WiringTemplate}
+     * with the given {@link WiringOptions}.
+     * 
+     * @param <T> the type of the root object
+     * @param source the source from where to read the XML file
+     * @param options the options to compile the XML file with
+     * @return the compiled template
+     */
+    public static <T> WiringTemplate<T> compile(Source source, WiringOptions options)
+    {
+        return compile(source, options, Monitor.get(options));
+    }
+    
+    private static <T> WiringTemplate<T> compile(Source source, WiringOptions options, Monitor monitor)
+    {
+        try(InputStream in = source.getInputStream())
         {
-            resources = loader.getResources(path);
-
-            while(resources.hasMoreElements())
-            {
-                url = resources.nextElement();
-                properties = new Properties();
-
-                // Don't let one bad file stop the load
-                try(InputStream in = url.openStream())
-                {
-                    properties.load(in);
-                    tags.putAll(properties);
-                }
-                catch(Exception e)
-                {
-                    e.printStackTrace();
-                }
-            }
+            return compile(in, options, monitor);
         }
         catch(IOException e)
         {
-            e.printStackTrace();
+            throw new ConvirganceException(e);
         }
     }
     
-    private String getPath()
+    /**
+     * Loads a {@link WiringTemplate} previously written in the binary format
+     * by {@link WiringTemplate#write(OutputStream) write}. The file is memory
+     * mapped and no XML is parsed. The resulting template produces the same
+     * object graph as compiling the original XML.
+     * 
+     * @param <T> the type of the root object
+     * @param file the compiled wiring file
+     * @return the loaded template
+     */
+    public static <T> WiringTemplate<T> load(File file)
     {
-        StringBuffer buffer = new StringBuffer();
-        
-        for(String element : path)
+        return load(file, TagRegistry.getDefault());
+    }
+    
+    /**
+     * Loads a {@link WiringTemplate} previously written in the binary format,
+     * resolving classes from the given {@link TagRegistry}. The file is memory
+     * mapped and no XML is parsed.
+     * 
+     * @param <T> the type of the root object
+     * @param file the compiled wiring file
+     * @param tags the registry used to load classes
+     * @return the loaded template
+     */
+    public static <T> WiringTemplate<T> load(File file, TagRegistry tags)
+    {
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
         {
-            if(buffer.length() > 0) buffer.append(" > ");
-            
-            buffer.append(element);
+            return BinaryWiring.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), tags);
+        }
+        catch(IOException e)
+        {
+            throw new ConvirganceException(e);
         }
-        
-        return buffer.toString();
     }
     
-    private Document load(Source source)
+    /**
+     * Loads a {@link WiringTemplate} in the binary format from a 
+     * {@link Source}, such as a compiled wiring packaged on the classpath.
+     * 
+     * @param <T> the type of the root object
+     * @param source the source from where to read the compiled wiring
+     * @return the loaded template
+     */
+    public static <T> WiringTemplate<T> load(Source source)
+    {
+        return load(source, TagRegistry.getDefault());
+    }
+    
+    /**
+     * Loads a {@link WiringTemplate} in the binary format from a 
+     * {@link Source}, resolving classes from the given {@link TagRegistry}.
+     * 
+     * @param <T> the type of the root object
+     * @param source the source from where to read the compiled wiring
+     * @param tags the registry used to load classes
+     * @return the loaded template
+     */
+    public static <T> WiringTemplate<T> load(Source source, TagRegistry tags)
     {
-        DocumentBuilderFactory factory;
-        DocumentBuilder builder;
-        
         try(InputStream in = source.getInputStream())
         {
-            factory = DocumentBuilderFactory.newInstance();
-            builder = factory.newDocumentBuilder();
-            
-            return builder.parse(in);
+            return BinaryWiring.read(ByteBuffer.wrap(in.readAllBytes()), tags);
         }
-        catch(ParserConfigurationException | SAXException | IOException e)
+        catch(IOException e)
         {
             throw new ConvirganceException(e);
         }
     }
     
-    private Object getValue(NodeList list)
+    static <T> WiringTemplate<T> compile(InputStream in, TagRegistry tags)
     {
-        StringBuffer buffer = new StringBuffer();
-        Element element = null;
-        Node child;
+        WiringOptions options = new WiringOptions();
+        
+        options.setTags(tags);
         
-        for(int i=0; i<list.getLength(); i++)
+        return compile(in, options);
+    }
+    
+    static <T> WiringTemplate<T> compile(InputStream in, WiringOptions options)
+    {
+        return compile(in, options, Monitor.get(options));
+    }
+    
+    private static <T> WiringTemplate<T> compile(InputStream in, WiringOptions options, Monitor monitor)
+    {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        WiringEvents.Compile event = new WiringEvents.Compile();
+        CountingInputStream counter = new CountingInputStream(in);
+        long start = monitor.start();
+        XMLWiringParser<T> parser;
+        XMLStreamReader reader;
+        
+        event.begin();
+        
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        
+        // CDATA must be distinguishable from text as it is never trimmed
+        if(factory.isPropertySupported(REPORT_CDATA)) factory.setProperty(REPORT_CDATA, true);
+        
+        try
         {
-            child = list.item(i);
+            reader = factory.createXMLStreamReader(counter);
             
-            if(child instanceof Comment)
+            try
             {
-                continue;
+                parser = new XMLWiringParser<T>(reader, options, monitor);
+                
+                monitor.compiled(event, counter.count, parser.elements, start);
+                
+                return parser.template;
             }
-            else if(child instanceof Element && element == null)
+            finally
             {
-                element = (Element)child;
+                reader.close();
             }
-            else if(child instanceof Text)
+        }
+        catch(XMLStreamException e)
+        {
+            throw new ConvirganceException(e);
+        }
+    }
+    
+    private String getPath()
+    {
+        return (path == null) ? "" : path.toString();
+    }
+    
+    private int next()
+    {
+        try
+        {
+            return reader.next();
+        }
+        catch(XMLStreamException e)
+        {
+            throw new ConvirganceException("Unable to read XML at [" + getPath() + "], " + e.getMessage(), e);
+        }
+    }
+    
+    // Advances to the next child element. Returns false once the parent element ends.
+    private boolean nextElement()
+    {
+        while(true)
+        {
+            switch(next())
             {
-                if(child instanceof CDATASection) buffer.append(child.getNodeValue());
-                else if(i == list.getLength()-1 && child.getNodeValue().trim().length() < 1) continue;
-                else if(buffer.length() < 1 && child.getNodeValue().trim().length() < 1) continue;
-                else buffer.append(child.getNodeValue());
+                case START_ELEMENT:
+                    return true;
+                    
+                case END_ELEMENT:
+                    return false;
+                    
+                case END_DOCUMENT:
+                    throw new ConvirganceException("Unexpected end of document at [" + getPath() + "]");
             }
-            else
+        }
+    }
+    
+    // Consumes the remainder of the current element, including any children
+    private void skipElement()
+    {
+        int depth = 1;
+        
+        while(depth > 0)
+        {
+            switch(next())
             {
-                if(element != null) throw new ConvirganceException("Unexpected element " + child.getNodeName() + " at [" + getPath() + "], child element " + element.getTagName() + " already found"); 
-                
-                throw new ConvirganceException("Unexpected node " + child.getNodeName() + " at [" + getPath() + "]");
+                case START_ELEMENT:
+                    depth++;
+                    break;
+                    
+                case END_ELEMENT:
+                    depth--;
+                    break;
+                    
+                case END_DOCUMENT:
+                    throw new ConvirganceException("Unexpected end of document at [" + getPath() + "]");
             }
         }
-
-        if(element != null) return parse(element);
-        
-        return buffer.toString();
     }
     
-    private Object parseArray(Class type, List values)
+    private String getAttribute(String name)
     {
-        Class arrayType = type.componentType();
-        Object array = Array.newInstance(arrayType, values.size());
+        String value = reader.getAttributeValue(null, name);
         
-        for(int i=0; i<values.size(); i++)
+        return (value == null) ? "" : value;
+    }
+    
+    private static boolean isBlank(CharSequence text)
+    {
+        for(int i=0; i<text.length(); i++)
         {
-            if(arrayType.equals(boolean.class)) Array.setBoolean(array, i, (Boolean)values.get(i));
-            else if(arrayType.equals(byte.class)) Array.setByte(array, i, (Byte)values.get(i));
-            else if(arrayType.equals(char.class)) Array.setChar(array, i, (Character)values.get(i));
-            else if(arrayType.equals(double.class)) Array.setDouble(array, i, (Double)values.get(i));
-            else if(arrayType.equals(float.class)) Array.setFloat(array, i, (Float)values.get(i));
-            else if(arrayType.equals(int.class)) Array.setInt(array, i, (Integer)values.get(i));
-            else if(arrayType.equals(long.class)) Array.setLong(array, i, (Long)values.get(i));
-            else if(arrayType.equals(short.class)) Array.setShort(array, i, (Short)values.get(i));
-            else Array.set(array, i, values.get(i));
+            if(text.charAt(i) > ' ') return false;
         }
         
-        return array;
+        return true;
     }
     
-    private String[] parseStringArray(String value)
+    // Applies the same whitespace rules to a run of text as the original DOM implementation
+    private void appendText(boolean last)
     {
-        String[] values = value.split(",");
+        if(text.length() < 1) return;
         
-        for(int i=0; i<values.length; i++) values[i] = values[i].trim();
+        if(last && isBlank(text)) return;
+        if(buffer.length() < 1 && isBlank(text)) return;
         
-        return values;
+        buffer.append(text);
     }
     
-    private Object coerceValue(Class type, Object value)
+    // The text buffers are shared across elements. A nested element clears 
+    // them, but any text around it is discarded once the element is found.
+    private Instruction getValue()
     {
-        if(type.equals(JSONObject.class) && !(value instanceof JSONObject))
-        {
-            if(value instanceof Map) return new JSONObject((Map)value);
-            else return new JSONObject(value.toString());
-        }
+        Instruction element = null;
+        String elementName = null;
         
-        if(type.equals(JSONArray.class) && !(value instanceof JSONArray))
-        {
-            if(value instanceof Collection) return new JSONArray((Collection)value);
-            else return new JSONArray(value.toString());
-        }
+        buffer.setLength(0);
+        text.setLength(0);
+        cdata.clear();
         
-        if(type.isArray() && value instanceof List) 
+        while(true)
         {
-            return parseArray(type, (List)value);
-        }
-            
-        if(!(value instanceof String)) return value;
-
-        if(type.isPrimitive())
-        {
-            if(type.equals(byte.class)) return Byte.valueOf((String)value);
-            if(type.equals(short.class)) return Short.valueOf((String)value);
-            if(type.equals(int.class)) return Integer.valueOf((String)value);
-            if(type.equals(long.class)) return Long.valueOf((String)value);
-            if(type.equals(boolean.class)) return Boolean.valueOf((String)value);
-            if(type.equals(float.class)) return Float.valueOf((String)value);
-            if(type.equals(double.class)) return Double.valueOf((String)value);
-            if(type.equals(char.class)) return value.toString().charAt(0);
-        }
-        else
-        {
-            if(type.equals(Byte.class)) return Byte.valueOf((String)value);
-            if(type.equals(Short.class)) return Short.valueOf((String)value);
-            if(type.equals(Integer.class)) return Integer.valueOf((String)value);
-            if(type.equals(Long.class)) return Long.valueOf((String)value);
-            if(type.equals(Boolean.class)) return Boolean.valueOf((String)value);
-            if(type.equals(Float.class)) return Float.valueOf((String)value);
-            if(type.equals(Double.class)) return Double.valueOf((String)value);
-            if(type.equals(Character.class)) return value.toString().charAt(0);
-            if(type.equals(String[].class)) return parseStringArray((String)value);
+            switch(next())
+            {
+                case CHARACTERS:
+                case SPACE:
+                case ENTITY_REFERENCE:
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                    
+                case CDATA:
+                    appendText(false);
+                    cdata.set(buffer.length(), buffer.length() + reader.getTextLength());
+                    buffer.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    
+                    text.setLength(0);
+                    break;
+                    
+                case COMMENT:
+                    appendText(false);
+                    
+                    text.setLength(0);
+                    break;
+                    
+                case START_ELEMENT:
+                    appendText(false);
+                    
+                    text.setLength(0);
+                    if(element != null) throw new ConvirganceException("Unexpected element " + reader.getLocalName() + " at [" + getPath() + "], child element " + elementName + " already found"); 
+                    
+                    elementName = reader.getLocalName();
+                    element = parse();
+                    break;
+                    
+                case PROCESSING_INSTRUCTION:
+                    if(element != null) throw new ConvirganceException("Unexpected element " + reader.getPITarget() + " at [" + getPath() + "], child element " + elementName + " already found"); 
+                
+                    throw new ConvirganceException("Unexpected node " + reader.getPITarget() + " at [" + getPath() + "]");
+                    
+                case END_ELEMENT:
+                    if(element != null) return element;
+                    
+                    appendText(true);
+                    
+                    if(parameterMode) return parseText(buffer.toString());
+                    
+                    return new Instruction.Constant("#text", intern(buffer.toString()));
+                    
+                case END_DOCUMENT:
+                    throw new ConvirganceException("Unexpected end of document at [" + getPath() + "]");
+            }
         }
-        
-        return value;
     }
     
-    private void setValue(Object parent, Method method, Object value)
+    // Collects <constructor-arg> elements in document order, the components 
+    // of a record by their position in the canonical constructor, and all
+    // other elements as properties set after construction
+    private void populateObject(ClassMetadata metadata, List<Instruction.Property> arguments, Instruction.Property[] components, List<Instruction.Property> properties)
     {
-        var parameter = method.getParameters()[0];
-
-        try
+        ClassMetadata.Creator canonical = metadata.getCanonical();
+        Instruction.Property property;
+        ClassMetadata.Setter setter = null;
+        Instruction value;
+        String name;
+        String id;
+        int index;
+        
+        // Skips comments, whitespace, and other unnecessary info
+        while(nextElement())
         {
-            if(value instanceof XMLWiringParser.Reference)
+            name = reader.getLocalName();
+            id = reader.getAttributeValue(null, "id");
+            index = (canonical == null) ? -1 : canonical.indexOf(name);
+            
+            path = new Instruction.Path(path, name);
+            
+            if(!name.equals("constructor-arg") && index < 0)
             {
-                references.add(new MethodReference(parent, method, (Reference)value));
-                return;
+                setter = metadata.getSetter(name);
+                
+                if(setter == null) throw new ConvirganceException("Property " + name + " does not exist on object " + metadata.getType().getName() + ", path [" + getPath() + "]");
             }
+            
+            if(index >= 0 && components[index] != null) throw new ConvirganceException("Duplicate record component " + name + " at [" + getPath() + "]");
+            
+            value = getValue();
+            property = (name.equals("constructor-arg") || index >= 0) ? new Instruction.Property(name, value, path) : new Instruction.Property(name, setter, value, path);
+            elements++;
+            checkLazyId(name, id);
+            property.id = registerId(name, id, true);
 
-            method.invoke(parent, coerceValue(parameter.getType(), value));
-        }
-        catch(IllegalArgumentException e)
-        {
-            throw new ConvirganceException("Unable to set property at [" + getPath() + "] with expected type [" + parameter.getType() + "] and actual type of [" + coerceValue(parameter.getType(), value).getClass() + "], " + e.getMessage(), e);
-        }
-        catch(IllegalAccessException | InvocationTargetException ex)
-        {
-            throw new ConvirganceException("Unable to set property at [" + getPath() + "], " + ex.getMessage(), ex);
+            if(name.equals("constructor-arg")) arguments.add(property);
+            else if(index >= 0) components[index] = property;
+            else properties.add(property);
+            
+            path = path.parent;
         }
     }
     
-    private Object populateObject(Object object, NodeList list)
+    private Instruction construct(String name, Class clazz)
     {
-        Node child;
-        PropertyDescriptor descriptor;
-        Method method;
-        Object value;
+        ClassMetadata metadata = ClassMetadata.get(clazz);
+        ClassMetadata.Creator creator = metadata.getCanonical();
+        Instruction.Property[] components = (creator == null) ? null : new Instruction.Property[creator.parameters.length];
+        var arguments = new ArrayList<Instruction.Property>();
+        var properties = new ArrayList<Instruction.Property>();
         
-        for(int i=0; i<list.getLength(); i++)
+        populateObject(metadata, arguments, components, properties);
+        
+        // Records are built from their components unless arguments are given
+        if(components != null && arguments.isEmpty())
         {
-            child = list.item(i);
-            
-            // Skip comments, whitespace, and other unnecessary info
-            if(!(child instanceof Element)) continue;
-            
-            path.push(child.getNodeName());
-            
-            try
+            for(int i=0; i<components.length; i++)
             {
-                descriptor = new PropertyDescriptor(child.getNodeName(), object.getClass());
-                method = descriptor.getWriteMethod();
-                value = getValue(child.getChildNodes());
-
-                registerId(((Element)child), value, true);
-                setValue(object, method, value);
+                if(components[i] == null) components[i] = new Instruction.Property(creator.names[i], new Instruction.Constant("null", null), path);
             }
-            catch(IntrospectionException e)
+            
+            return intern(new Instruction.ObjectValue(name, clazz, creator, components, properties.toArray(Instruction.Property[]::new), path));
+        }
+        
+        if(!arguments.isEmpty())
+        {
+            for(int i=0; components != null && i<components.length; i++)
             {
-                throw new ConvirganceException("Property " + child.getNodeName() + " does not exist on object " + object.getClass().getName() + ", path [" + getPath() + "]");
+                if(components[i] != null) throw new ConvirganceException("Record components cannot be combined with constructor-arg elements at [" + getPath() + "]");
             }
             
-            path.pop();
+            creator = metadata.getCreator(arguments.size());
+            
+            if(creator == null) throw new ConvirganceException("Unexpected error constructing object at [" + getPath() + "], " + clazz.getName() + " does not have a single public constructor with " + arguments.size() + " arguments");
+            
+            return intern(new Instruction.ObjectValue(name, clazz, creator, arguments.toArray(Instruction.Property[]::new), properties.toArray(Instruction.Property[]::new), path));
         }
         
-        return object;
+        if(metadata.getConstructor() == null) throw new ConvirganceException("Unexpected error constructing object at [" + getPath() + "], " + clazz.getName() + " does not have a public no-argument constructor");
+        
+        return intern(new Instruction.ObjectValue(name, clazz, metadata.getConstructor(), properties.toArray(Instruction.Property[]::new), path));
     }
     
-    private Object parseObject(Element element)
+    private Instruction parseObject(String name)
     {
         Class clazz;
         
         try
         {
-            clazz = Class.forName(element.getAttribute("class"));
-
-            return populateObject(clazz.getConstructor().newInstance(), element.getChildNodes());
+            clazz = tags.loadClass(getAttribute("class"));
         }
-        catch(Exception e)
+        catch(ClassNotFoundException e)
         {
             throw new ConvirganceException("Error parsing object at path [" + getPath() + "], " + e.getMessage(), e);
         }
+        
+        return construct(name, clazz);
     }
     
-    private List parseList(NodeList children)
+    private Instruction parseList(String name)
     {
-        var list = new ArrayList();
-        Object value;
-        Node child;
+        var items = new ArrayList<Instruction>();
+        boolean immutable = isImmutable();
         
-        for(int i=0; i<children.getLength(); i++)
+        while(nextElement())
         {
-            child = children.item(i);
-            
-            if(!(child instanceof Element)) continue;
+            items.add(parse());
+        }
+        
+        return new Instruction.ListValue(name, items.toArray(Instruction[]::new), immutable, path);
+    }
+    
+    // Appends the key and value of an entry directly to the map's lists
+    private void parseEntry(List<Instruction> keys, List<Instruction> values)
+    {
+        int index = 0;
+        
+        while(nextElement())
+        {
+            if(index >= 2) throw new ConvirganceException("Too many values in Map entry at [" + getPath() + "]! Should be just key and value.");
             
-            value = parse((Element)child);
+            if(index++ < 1) keys.add(parse());
+            else values.add(parse());
+        }
+        
+        if(index < 1) keys.add(new Instruction.Constant("null", null));
+        if(index < 2) values.add(new Instruction.Constant("null", null));
+    }
+    
+    private Instruction parseMap(String name)
+    {
+        var keys = new ArrayList<Instruction>();
+        var values = new ArrayList<Instruction>();
+        boolean immutable = isImmutable();
+        
+        while(nextElement())
+        {
+            if(!reader.getLocalName().equals("entry")) throw new ConvirganceException("Unexpected value " + reader.getLocalName() + " while parsing Map at [" + getPath() + "]");
             
-            if(value instanceof XMLWiringParser.Reference)
-            {
-                references.add(new ListReference(list, list.size(), (Reference)value));
-                list.add(null);
-            }
-            else
-            {
-                list.add(value);
-            }
+            parseEntry(keys, values);
+            elements++;
         }
         
-        return list;
+        return new Instruction.MapValue(name, keys.toArray(Instruction[]::new), values.toArray(Instruction[]::new), immutable, path);
     }
     
-    private Map.Entry parseEntry(NodeList children)
+    // Parses the element at the current START_ELEMENT through to its END_ELEMENT
+    private Instruction parse()
     {
-        Object[] keyValue = new Object[2];
-        int index = 0;
-        Node child;
-                
-        for(int i=0; i<children.getLength(); i++)
+        String name = reader.getLocalName();
+        String id = reader.getAttributeValue(null, "id");
+        boolean prototype = isPrototype(name, id, reader.getAttributeValue(null, "scope"));
+        boolean deferred = !prototype && isLazy(name, id, reader.getAttributeValue(null, "lazy"));
+        long start = monitor.start();
+        Instruction value;
+        
+        if(prototype) prototypeDepth++;
+        if(deferred) lazyDepth++;
+        
+        value = parseValue(name);
+        path = path.parent;
+        
+        if(deferred) lazyDepth--;
+        
+        elements++;
+        monitor.parsed(name, start);
+        
+        // Prototypes are built on every request, so they are never lazy
+        if(prototype)
         {
-            child = children.item(i);
+            prototypeDepth--;
+            value = new Instruction.PrototypeValue(name, value, registerId(name, id, false));
             
-            if(!(child instanceof Element)) continue;
-            if(index >= keyValue.length) throw new ConvirganceException("Too many values in Map entry at [" + getPath() + "]! Should be just key and value.");
+            prototypes.add((Instruction.PrototypeValue)value);
             
-            keyValue[index++] = parse((Element)child);
+            return value;
         }
         
-        return new Map.Entry()
+        if(deferred) value = new Instruction.LazyValue(name, value);
+        else if(!name.equals("ref") && !name.equals("reference")) checkLazyId(name, id);
+        
+        value.id = registerId(name, id, false);
+        
+        if(value instanceof Instruction.LazyValue && value.id >= 0) this.lazy.add((Instruction.LazyValue)value);
+        
+        return value;
+    }
+    
+    // Compiles ${name} placeholders in the text to parameter slots. $${ is
+    // written as a literal ${ rather than starting a placeholder, and text 
+    // from CDATA sections is left as it is.
+    private Instruction parseText(String value)
+    {
+        var text = new ArrayList<String>();
+        var names = new ArrayList<String>();
+        int start;
+        int end;
+        
+        if(value.indexOf("${") < 0) return new Instruction.Constant("#text", intern(value));
+        
+        buffer.setLength(0);
+        
+        for(int i=0; i<value.length(); i++)
         {
-            @Override
-            public Object getKey()
+            if(value.startsWith("$${", i) && isText(i, 3))
             {
-                return keyValue[0];
+                buffer.append("${");
+                i += 2;
             }
-
-            @Override
-            public Object getValue()
+            else if(value.startsWith("${", i) && isText(i, 2))
             {
-                return keyValue[1];
+                start = i + 2;
+                end = value.indexOf('}', start);
+                
+                if(end < 0) throw new ConvirganceException("Unterminated parameter " + value.substring(i) + " at [" + getPath() + "]");
+                if(isBlank(value.substring(start, end))) throw new ConvirganceException("Missing parameter name at [" + getPath() + "]");
+                
+                text.add(buffer.toString());
+                names.add(value.substring(start, end).trim());
+                buffer.setLength(0);
+                
+                i = end;
             }
-
-            @Override
-            public Object setValue(Object value)
+            else
             {
-                throw new UnsupportedOperationException("Not supported.");
+                buffer.append(value.charAt(i));
             }
-        };
+        }
+        
+        if(names.isEmpty()) return new Instruction.Constant("#text", intern(buffer.toString()));
+        
+        text.add(buffer.toString());
+        
+        return new Instruction.Parameter("#text", text.toArray(String[]::new), names.toArray(String[]::new), getParameterSlots(names), path);
     }
     
-    private Map parseMap(NodeList children)
+    // True if none of the characters came from a CDATA section
+    private boolean isText(int start, int length)
     {
-        var map = new HashMap();
-        Node child;
-        Map.Entry entry;
+        int next = cdata.nextSetBit(start);
         
-        for(int i=0; i<children.getLength(); i++)
+        return (next < 0 || next >= start + length);
+    }
+    
+    private int[] getParameterSlots(List<String> names)
+    {
+        int[] slots = new int[names.size()];
+        
+        for(int i=0; i<slots.length; i++)
         {
-            child = children.item(i);
-            
-            if(!(child instanceof Element)) continue;
-            if(!child.getNodeName().equals("entry")) throw new ConvirganceException("Unexpected value " + child.getNodeName() + " while parsing Map at [" + getPath() + "]");
-            
-            entry = parseEntry(child.getChildNodes());
-            
-            if(map.containsKey(entry.getKey())) throw new ConvirganceException("Duplicate Map entry: " + entry.getKey() + " at [" + getPath() + "]");
-            
-            if(entry.getKey() instanceof XMLWiringParser.Reference || entry.getValue() instanceof XMLWiringParser.Reference)
-            {
-                references.add(new MapEntryReference(map, entry));
-                continue;
-            }
-            
-            map.put(entry.getKey(), entry.getValue());
+            slots[i] = parameters.computeIfAbsent(names.get(i), key -> parameters.size());
         }
         
-        return map;
+        return slots;
     }
     
+    private Object intern(Object value)
+    {
+        return (interner == null) ? value : interner.intern(value);
+    }
     
-    private Object parse(Element element)
+    // Interns the values that properties coerced once from constant text
+    private Instruction intern(Instruction.ObjectValue object)
     {
-        Object value = parseValue(element);
+        if(interner == null) return object;
         
-        path.pop();
-        registerId(element, value, false);
+        for(Instruction.Property argument : object.arguments)
+        {
+            if(argument.constant) argument.coerced = interner.intern(argument.coerced);
+        }
         
-        return value;
+        for(Instruction.Property property : object.properties)
+        {
+            if(property.constant) property.coerced = interner.intern(property.coerced);
+        }
+        
+        return object;
     }
     
     private Object parseJSON(String json)
@@ -468,109 +928,249 @@ public class XMLWiringParser<T>
         }
     }
     
-    private Object parseCustom(Element element)
+    private Instruction parseCustom(String name)
     {
-        String name = element.getNodeName();
-        String className = tags.getProperty(name);
-        
         Class clazz;
-        Constructor constructor;
         
         try
         {
-            clazz = Class.forName(className);
-            constructor = clazz.getConstructor();
+            clazz = tags.getTagClass(name);
             
-            return populateObject(constructor.newInstance(), element.getChildNodes());
+            if(clazz == null) throw new ConvirganceException("Unknown object type " + name + " at path [" + getPath() + "]");
         }
-        catch(ClassNotFoundException | IllegalAccessException | IllegalArgumentException | InstantiationException | NoSuchMethodException | SecurityException | InvocationTargetException e)
+        catch(ClassNotFoundException e)
         {
             throw new ConvirganceException("Unexpected error constructing object at [" + getPath() + "], " + e.getMessage(), e);
         }
+        
+        return construct(name, clazz);
     }
     
-    private Object parseValue(Element element)
+    private Instruction parseLiteral(String name)
+    {
+        String src = reader.getAttributeValue(null, "src");
+        Instruction value;
+        String text;
+        
+        if(src != null)
+        {
+            if(!name.equals("string") && !name.equals("json")) throw new ConvirganceException("The src attribute is not supported on " + name + " tags at [" + getPath() + "]");
+            
+            skipElement();
+            
+            return new Instruction.External(name, src, null, path);
+        }
+        
+        value = getValue();
+        
+        // Literals with a nested element can only be converted once the element is constructed
+        if(!(value instanceof Instruction.Constant)) return new Instruction.Convert(name, value, path);
+        
+        text = String.valueOf(((Instruction.Constant)value).value);
+        
+        switch(name)
+        {
+            case "int":
+            case "integer":
+                return new Instruction.Constant(name, intern(Integer.valueOf(text)));
+                
+            case "long":
+                return new Instruction.Constant(name, intern(Long.valueOf(text)));
+                
+            case "boolean":
+                return new Instruction.Constant(name, Boolean.valueOf(text));
+                
+            case "float":
+                return new Instruction.Constant(name, intern(Float.valueOf(text)));
+                
+            case "double":
+                return new Instruction.Constant(name, intern(Double.valueOf(text)));
+                
+            case "json":
+                return new Instruction.JSON(name, intern(parseJSON(text)));
+                
+            default:
+                return new Instruction.Constant(name, text);
+        }
+    }
+    
+    private Instruction parseArray(String name)
+    {
+        String src = reader.getAttributeValue(null, "src");
+        String order = reader.getAttributeValue(null, "order");
+        String encoding = reader.getAttributeValue(null, "encoding");
+        Instruction value;
+        
+        try
+        {
+            if(src != null)
+            {
+                skipElement();
+                
+                return new Instruction.External(name, src, PrimitiveArrays.getOrder(order), path);
+            }
+            
+            value = getValue();
+            
+            if(!(value instanceof Instruction.Constant)) throw new ConvirganceException("Expected text values in " + name + " tag at [" + getPath() + "]");
+            
+            return new Instruction.ArrayValue(name, PrimitiveArrays.parse(name, (String)((Instruction.Constant)value).value, encoding));
+        }
+        catch(IllegalArgumentException e)
+        {
+            throw new ConvirganceException("Unable to parse " + name + " at [" + getPath() + "], " + e.getMessage(), e);
+        }
+    }
+    
+    private Instruction parseValue(String name)
     {
         String id;
-        String name = element.getTagName();
         
-        path.push(name);
+        path = new Instruction.Path(path, name);
         
         switch(name)
         {
             case "object":
-                return parseObject(element);
+                return parseObject(name);
             
             case "list":
-                return parseList(element.getChildNodes());
+                return parseList(name);
             
             case "map":
-                return parseMap(element.getChildNodes());
+                return parseMap(name);
                 
             case "ref":
             case "reference":
-                id = element.getAttribute("id");
+                id = getAttribute("id");
                 
-                if(!lookup.containsKey(id)) return new Reference(id);
+                skipElement();
                 
-                return lookup.get(id);
+                return new Instruction.Reference(name, getSlot(id), !defined.contains(id));
                 
             case "null":
-                return null;
+                skipElement();
                 
-            case "string":
-                return getValue(element.getChildNodes()).toString();
+                return new Instruction.Constant(name, null);
                 
+            case "string":
             case "int":
             case "integer":
-                return Integer.valueOf(getValue(element.getChildNodes()).toString());
-                
             case "long":
-                return Long.valueOf(getValue(element.getChildNodes()).toString());
-                
             case "boolean":
-                return Boolean.valueOf(getValue(element.getChildNodes()).toString());
-                
             case "float":
-                return Float.valueOf(getValue(element.getChildNodes()).toString());
-                
             case "double":
-                return Double.valueOf(getValue(element.getChildNodes()).toString());
-                
             case "json":
-                return parseJSON(getValue(element.getChildNodes()).toString());
+                return parseLiteral(name);
                 
-            default:
-                if(tags.containsKey(name)) return parseCustom(element);
+            case "int-array":
+            case "long-array":
+            case "double-array":
+            case "byte-array":
+                return parseArray(name);
                 
-                throw new ConvirganceException("Unknown object type " + element.getTagName() + " at path [" + getPath() + "]");
+            default:
+                return parseCustom(name);
         }
     }
     
-    private void registerId(Element element, Object value, boolean property)
+    private boolean isLazy(String name, String id, String lazy)
+    {
+        if(name.equals("ref") || name.equals("reference")) return false;
+        if(lazy != null) return Boolean.parseBoolean(lazy);
+        
+        return (lazyMode && id != null);
+    }
+    
+    private boolean isImmutable()
+    {
+        String immutable = reader.getAttributeValue(null, "immutable");
+        
+        return (immutable == null) ? immutableMode : Boolean.parseBoolean(immutable);
+    }
+    
+    private boolean isPrototype(String name, String id, String scope)
+    {
+        if(scope == null || scope.equals("singleton")) return false;
+        if(!scope.equals("prototype")) throw new ConvirganceException("Unknown scope \"" + scope + "\" on " + name + " tag at [" + getPath() + "]");
+        if(name.equals("ref") || name.equals("reference")) throw new ConvirganceException("Scope cannot be set on a reference at [" + getPath() + "]");
+        if(id == null) throw new ConvirganceException("Prototype scope requires an id on " + name + " tag at [" + getPath() + "]");
+        
+        return true;
+    }
+    
+    private int getSlot(String id)
+    {
+        Integer slot = ids.get(id);
+        
+        if(slot == null)
+        {
+            slot = ids.size();
+            
+            ids.put(id, slot);
+        }
+        
+        return slot;
+    }
+    
+    // Slots inside a lazy element are only filled once the element is forced.
+    // Lazy and prototype elements occupy their slot with a holder from the 
+    // start, so they are the only elements that may have an id there.
+    private void checkLazyId(String name, String id)
+    {
+        if(id == null || lazyDepth < 1) return;
+        
+        throw new ConvirganceException("Id " + id + " on " + name + " tag inside a lazy element must be lazy itself at [" + getPath() + "]");
+    }
+    
+    private int registerId(String name, String id, boolean property)
     {
-        String id = element.getAttribute("id");
-        String name = element.getTagName();
-        boolean check = element.hasAttribute("id");
+        if(id == null) return -1;
+        if(!property && name.equals("ref")) return -1;
+        if(!property && name.equals("reference")) return -1;
         
-        if(!element.hasAttribute("id")) return;
-        if(!property && name.equals("ref")) return;
-        if(!property && name.equals("reference")) return;
+        // Every instance of a prototype would otherwise compete for the slot
+        if(prototypeDepth > 0) throw new ConvirganceException("Id " + id + " on " + name + " tag is not allowed inside a prototype at [" + getPath() + "]");
         
-        if(lookup.containsKey(id)) throw new ConvirganceException("Duplicate id " + id + " on " + element.getNodeName() + " tag");
+        if(defined.contains(id)) throw new ConvirganceException("Duplicate id " + id + " on " + name + " tag");
 
-        lookup.put(id, value);
+        defined.add(id);
+        
+        return getSlot(id);
     }
     
     /**
-     * Provides a list of custom tags this parser is aware of and the classes
-     * loaded to service those tags.
+     * Provides a list of custom tags in the {@link TagRegistry#getDefault() default} 
+     * registry and the classes loaded to service those tags.
      * 
      * @return A Properties object with the tag name as the key and class name as the value
      */
     public static Properties getCustomTags()
     {
-        return new Properties(tags);
+        return TagRegistry.getDefault().getTags();
+    }
+    
+    /**
+     * Returns the compiled template this parser constructed its object graph 
+     * from. The template can be used to construct additional, independent
+     * copies of the graph without parsing the XML again.
+     * 
+     * @return the compiled template
+     */
+    public WiringTemplate<T> getTemplate()
+    {
+        return template;
+    }
+    
+    /**
+     * Returns an immutable, thread-safe view of the constructed objects. The
+     * context is created once construction completes and can be safely 
+     * published to other threads for lock-free lookups.
+     * 
+     * @return the context for the constructed object graph
+     */
+    public WiringContext<T> getContext()
+    {
+        return context;
     }
     
     /**
@@ -580,7 +1180,7 @@ public class XMLWiringParser<T>
      */
     public T getRoot()
     {
-        return root;
+        return (T)instance.getRoot();
     }
     
     /**
@@ -593,103 +1193,47 @@ public class XMLWiringParser<T>
      */
     public Object get(String id)
     {
-        return lookup.get(id);
-    }
-    
-    private class Reference
-    {
-        private String id;
-        
-        public Reference(String id)
-        {
-            this.id = id;
-        }
-        
-        public Object getValue()
-        {
-            if(!lookup.containsKey(id)) throw new ConvirganceException("Reference to id \"" + id + "\" not found");
-            
-            return lookup.get(id);
-        }
-        
-        public void apply()
-        {
-            // Not implemented
-        }
+        return instance.get(id);
     }
     
-    private class MethodReference extends Reference
+    // Tracks the number of bytes of XML read for instrumentation
+    private static class CountingInputStream extends FilterInputStream
     {
-        private Object parent;
-        private Method method;
-        
-        public MethodReference(Object parent, Method method, Reference reference)
+        private long count;
+
+        public CountingInputStream(InputStream in)
         {
-            super(reference.id);
-            
-            this.parent = parent;
-            this.method = method;
+            super(in);
         }
 
         @Override
-        public void apply()
+        public int read() throws IOException
         {
-            var parameter = method.getParameters()[0];
-                
-            try
-            {
-                method.invoke(parent, coerceValue(parameter.getType(), getValue()));
-            }
-            catch(IllegalAccessException | InvocationTargetException ex)
-            {
-                throw new ConvirganceException(ex);
-            }
-        }
-    }
-    
-    private class ListReference extends Reference
-    {
-        private List list;
-        private int index;
-        
-        public ListReference(List list, int index, Reference reference)
-        {
-            super(reference.id);
+            int value = super.read();
+            
+            if(value >= 0) count++;
             
-            this.list = list;
-            this.index = index;
+            return value;
         }
 
         @Override
-        public void apply()
-        {
-            list.set(index, getValue());
-        }
-    }
-    
-    private class MapEntryReference extends Reference
-    {
-        private Map map;
-        private Map.Entry entry;
-
-        public MapEntryReference(Map map, Map.Entry entry)
+        public int read(byte[] buffer, int offset, int length) throws IOException
         {
-            super(null);
+            int read = super.read(buffer, offset, length);
+            
+            if(read > 0) count += read;
             
-            this.map = map;
-            this.entry = entry;
+            return read;
         }
 
         @Override
-        public void apply()
+        public long skip(long length) throws IOException
         {
-            Object key = entry.getKey();
-            Object value = entry.getValue();
+            long skipped = super.skip(length);
             
-            if(key instanceof XMLWiringParser.Reference) key = ((Reference)key).getValue();
-            if(value instanceof XMLWiringParser.Reference) value = ((Reference)value).getValue();
+            count += skipped;
             
-            map.put(key, value);
+            return skipped;
         }
     }
 }
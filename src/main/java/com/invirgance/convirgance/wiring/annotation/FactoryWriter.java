@@ -0,0 +1,1142 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring.annotation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.*;
+import java.util.function.Supplier;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.JavaFileObject;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import static javax.xml.stream.XMLStreamConstants.*;
+
+/**
+ * Translates a single Wiring XML file into the source of a factory class for
+ * {@link WiredProcessor}. The XML is read with the same rules as 
+ * <code>XMLWiringParser</code>, but classes and setters are resolved against
+ * the compiler's model of the sources rather than loaded.
+ * <br><br>
+ * Every object element becomes its own builder method to keep methods well 
+ * under the JVM size limits. Values with an <code>id</code> are kept in an 
+ * array of slots so that later references can find them. Forward references
+ * are applied once the root has been built, just as at runtime.
+ * 
+ * @author jbanes
+ */
+final class FactoryWriter
+{
+    private static final String EXCEPTION = "com.invirgance.convirgance.ConvirganceException";
+    private static final String CONVERTERS = "com.invirgance.convirgance.wiring.Converters";
+    private static final String JSON_OBJECT = "com.invirgance.convirgance.json.JSONObject";
+    private static final String JSON_ARRAY = "com.invirgance.convirgance.json.JSONArray";
+    private static final String REPORT_CDATA = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+    
+    private final ProcessingEnvironment env;
+    private final Elements elements;
+    private final Types types;
+    private final Map<String,String> tags;
+    
+    private XMLStreamReader reader;
+    private Deque<String> path;
+    private Map<String,Integer> ids;
+    private Map<String,String> idTypes;
+    private Set<String> defined;
+    private Map<Integer,Integer> aliases;
+    private List<Supplier<String>> deferred;
+    private List<Method> methods;
+    private Method current;
+    private int slots;
+    private int locals;
+    private int objects;
+
+    FactoryWriter(ProcessingEnvironment env, Map<String,String> tags)
+    {
+        this.env = env;
+        this.elements = env.getElementUtils();
+        this.types = env.getTypeUtils();
+        this.tags = tags;
+    }
+    
+    /**
+     * Generates the factory class for the XML read from <code>in</code>
+     * 
+     * @throws IllegalArgumentException if the XML cannot be wired
+     */
+    void write(String packageName, String className, String resource, InputStream in, Element origin) throws IOException
+    {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        JavaFileObject file;
+        Value root;
+        
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        
+        if(factory.isPropertySupported(REPORT_CDATA)) factory.setProperty(REPORT_CDATA, true);
+        
+        path = new ArrayDeque<>();
+        ids = new HashMap<>();
+        idTypes = new HashMap<>();
+        defined = new HashSet<>();
+        aliases = new LinkedHashMap<>();
+        deferred = new ArrayList<>();
+        methods = new ArrayList<>();
+        current = new Method("create", null);
+        slots = 0;
+        locals = 0;
+        objects = 0;
+        
+        try
+        {
+            reader = factory.createXMLStreamReader(in);
+            
+            try
+            {
+                if(!nextElement()) throw new IllegalArgumentException("No root element found in " + resource);
+                
+                root = parse();
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch(XMLStreamException e)
+        {
+            throw new IllegalArgumentException("Unable to read " + resource + ", " + e.getMessage(), e);
+        }
+        
+        for(String id : ids.keySet())
+        {
+            if(!defined.contains(id)) throw new IllegalArgumentException("Reference to id \"" + id + "\" not found");
+        }
+        
+        for(int slot : aliases.keySet()) getAliasTarget(slot);
+        
+        file = env.getFiler().createSourceFile(qualifiedName, origin);
+        
+        try(PrintWriter out = new PrintWriter(file.openWriter()))
+        {
+            writeClass(out, packageName, className, resource, root);
+        }
+    }
+    
+    private void writeClass(PrintWriter out, String packageName, String className, String resource, Value root)
+    {
+        String type = root.type.equals("null") ? "Object" : root.type;
+        
+        if(!packageName.isEmpty()) out.println("package " + packageName + ";");
+        
+        out.println();
+        out.println("/**");
+        out.println(" * Generated by " + WiredProcessor.class.getName() + " from " + resource + ". Do not edit.");
+        out.println(" */");
+        out.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+        out.println("public final class " + className);
+        out.println("{");
+        out.println("    private " + className + "()");
+        out.println("    {");
+        out.println("    }");
+        out.println();
+        out.println("    public static " + type + " create()");
+        out.println("    {");
+        out.println("        Object[] s = new Object[" + slots + "];");
+        out.println();
+        out.println("        try");
+        out.println("        {");
+        out.print(current.body.toString().replace("\n        ", "\n            ").replaceFirst("^        ", "            "));
+        
+        for(int slot : aliases.keySet()) out.println("            s[" + slot + "] = s[" + getAliasTarget(slot) + "];");
+        for(Supplier<String> statement : deferred) out.println("            " + statement.get());
+        
+        out.println("            return " + root.code + ";");
+        out.println("        }");
+        out.println("        catch(RuntimeException e)");
+        out.println("        {");
+        out.println("            throw e;");
+        out.println("        }");
+        out.println("        catch(Exception e)");
+        out.println("        {");
+        out.println("            throw new " + EXCEPTION + "(e.getMessage(), e);");
+        out.println("        }");
+        out.println("    }");
+        
+        for(Method method : methods)
+        {
+            out.println();
+            out.println("    private static " + method.type + " " + method.name + "(Object[] s) throws Exception");
+            out.println("    {");
+            out.print(method.body);
+            out.println("    }");
+        }
+        
+        out.println();
+        out.println("    private static void put(java.util.Map map, Object key, Object value, String path)");
+        out.println("    {");
+        out.println("        if(map.containsKey(key)) throw new " + EXCEPTION + "(\"Duplicate Map entry: \" + key + \" at [\" + path + \"]\");");
+        out.println();
+        out.println("        map.put(key, value);");
+        out.println("    }");
+        out.println();
+        out.println("    private static Object json(String json)");
+        out.println("    {");
+        out.println("        try");
+        out.println("        {");
+        out.println("            return new com.invirgance.convirgance.json.JSONParser(json).parse();");
+        out.println("        }");
+        out.println("        catch(java.io.IOException e)");
+        out.println("        {");
+        out.println("            throw new " + EXCEPTION + "(\"Unable to parse JSON, \" + e.getMessage(), e);");
+        out.println("        }");
+        out.println("    }");
+        out.println("}");
+    }
+    
+    private IllegalArgumentException error(String message)
+    {
+        return new IllegalArgumentException(message + " at [" + getPath() + "]");
+    }
+    
+    private String getPath()
+    {
+        StringBuilder buffer = new StringBuilder();
+        
+        for(String element : path)
+        {
+            if(buffer.length() > 0) buffer.append(" > ");
+            
+            buffer.append(element);
+        }
+        
+        return buffer.toString();
+    }
+    
+    private int next()
+    {
+        try
+        {
+            return reader.next();
+        }
+        catch(XMLStreamException e)
+        {
+            throw error("Unable to read XML, " + e.getMessage());
+        }
+    }
+    
+    private boolean nextElement()
+    {
+        while(true)
+        {
+            switch(next())
+            {
+                case START_ELEMENT:
+                    return true;
+                    
+                case END_ELEMENT:
+                    return false;
+                    
+                case END_DOCUMENT:
+                    throw error("Unexpected end of document");
+            }
+        }
+    }
+    
+    private void skipElement()
+    {
+        int depth = 1;
+        
+        while(depth > 0)
+        {
+            switch(next())
+            {
+                case START_ELEMENT:
+                    depth++;
+                    break;
+                    
+                case END_ELEMENT:
+                    depth--;
+                    break;
+                    
+                case END_DOCUMENT:
+                    throw error("Unexpected end of document");
+            }
+        }
+    }
+    
+    private String getAttribute(String name)
+    {
+        String value = reader.getAttributeValue(null, name);
+        
+        return (value == null) ? "" : value;
+    }
+    
+    private static boolean isBlank(CharSequence text)
+    {
+        for(int i=0; i<text.length(); i++)
+        {
+            if(text.charAt(i) > ' ') return false;
+        }
+        
+        return true;
+    }
+    
+    // Same whitespace rules as XMLWiringParser
+    private void appendText(StringBuilder buffer, StringBuilder text, boolean last)
+    {
+        if(text == null || text.length() < 1) return;
+        
+        if(last && isBlank(text)) return;
+        if(buffer.length() < 1 && isBlank(text)) return;
+        
+        buffer.append(text);
+    }
+    
+    private Value getValue()
+    {
+        StringBuilder buffer = new StringBuilder();
+        StringBuilder text = null;
+        Value element = null;
+        String elementName = null;
+        
+        while(true)
+        {
+            switch(next())
+            {
+                case CHARACTERS:
+                case SPACE:
+                case ENTITY_REFERENCE:
+                    if(text == null) text = new StringBuilder();
+                    
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                    
+                case CDATA:
+                    appendText(buffer, text, false);
+                    buffer.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    
+                    if(text != null) text.setLength(0);
+                    break;
+                    
+                case COMMENT:
+                    appendText(buffer, text, false);
+                    
+                    if(text != null) text.setLength(0);
+                    break;
+                    
+                case START_ELEMENT:
+                    appendText(buffer, text, false);
+                    
+                    if(text != null) text.setLength(0);
+                    if(element != null) throw error("Unexpected element " + reader.getLocalName() + ", child element " + elementName + " already found"); 
+                    
+                    elementName = reader.getLocalName();
+                    element = parse();
+                    break;
+                    
+                case PROCESSING_INSTRUCTION:
+                    throw error("Unexpected node " + reader.getPITarget());
+                    
+                case END_ELEMENT:
+                    if(element != null) return element;
+                    
+                    appendText(buffer, text, true);
+                    
+                    return Value.text(buffer.toString());
+                    
+                case END_DOCUMENT:
+                    throw error("Unexpected end of document");
+            }
+        }
+    }
+    
+    private Value parse()
+    {
+        String name = reader.getLocalName();
+        String id = reader.getAttributeValue(null, "id");
+        String scope = reader.getAttributeValue(null, "scope");
+        String lazy = reader.getAttributeValue(null, "lazy");
+        Value value;
+        
+        if(scope != null && !scope.equals("singleton")) throw error("Scope \"" + scope + "\" is not supported in generated factories");
+        if(Boolean.parseBoolean(lazy)) throw error("Lazy values are not supported in generated factories");
+        
+        value = parseValue(name);
+        
+        path.removeLast();
+        
+        if(id != null && !name.equals("ref") && !name.equals("reference")) register(name, id, value);
+        
+        return value;
+    }
+    
+    private void register(String name, String id, Value value)
+    {
+        int slot;
+        
+        if(defined.contains(id)) throw error("Duplicate id " + id + " on " + name + " tag");
+        
+        defined.add(id);
+        
+        slot = getSlot(id);
+        
+        if(value.slot >= 0)
+        {
+            aliases.put(slot, value.slot);
+            idTypes.put(id, "java.lang.Object");
+        }
+        else
+        {
+            current.statement("s[" + slot + "] = " + value.code + ";");
+            idTypes.put(id, value.type);
+        }
+    }
+    
+    private int getSlot(String id)
+    {
+        Integer slot = ids.get(id);
+        
+        if(slot == null)
+        {
+            slot = slots++;
+            
+            ids.put(id, slot);
+        }
+        
+        return slot;
+    }
+    
+    /**
+     * Returns the slot at the end of the chain of aliases starting at 
+     * <code>slot</code>, in the same way the parser links them at runtime.
+     * Aliases are then assigned from slots that already hold their values,
+     * whatever order the ids were registered in.
+     */
+    private int getAliasTarget(int slot)
+    {
+        List<Integer> chain = new ArrayList<>();
+        StringBuilder buffer;
+        
+        while(aliases.containsKey(slot))
+        {
+            if(chain.contains(slot))
+            {
+                buffer = new StringBuilder("Circular reference between ids ");
+                
+                for(int i=chain.indexOf(slot); i<chain.size(); i++) buffer.append(getId(chain.get(i))).append(" -> ");
+                
+                throw new IllegalArgumentException(buffer.append(getId(slot)).toString());
+            }
+            
+            chain.add(slot);
+            slot = aliases.get(slot);
+        }
+        
+        return slot;
+    }
+    
+    private String getId(int slot)
+    {
+        for(var entry : ids.entrySet())
+        {
+            if(entry.getValue() == slot) return entry.getKey();
+        }
+        
+        return null;
+    }
+    
+    private Value local(String type, String expression)
+    {
+        String name = "v" + (++locals);
+        
+        current.statement(type + " " + name + " = " + expression + ";");
+        
+        return new Value(name, type);
+    }
+    
+    private Value parseValue(String name)
+    {
+        String id;
+        int slot;
+        
+        path.addLast(name);
+        
+        switch(name)
+        {
+            case "object":
+                return construct(name, getAttribute("class"));
+            
+            case "list":
+                return parseList();
+            
+            case "map":
+                return parseMap();
+                
+            case "ref":
+            case "reference":
+                id = getAttribute("id");
+                slot = getSlot(id);
+                
+                skipElement();
+                
+                // Aliases are only assigned once the graph is built
+                if(!defined.contains(id) || aliases.containsKey(slot)) return Value.forward(slot);
+                
+                return new Value("((" + getReferenceType(id) + ")s[" + slot + "])", getReferenceType(id));
+                
+            case "null":
+                skipElement();
+                
+                return new Value("null", "null");
+                
+            case "string":
+            case "int":
+            case "integer":
+            case "long":
+            case "boolean":
+            case "float":
+            case "double":
+            case "json":
+                return parseLiteral(name);
+                
+            case "int-array":
+            case "long-array":
+            case "double-array":
+            case "byte-array":
+                throw error("Primitive array tags are not supported in generated factories");
+                
+            default:
+                if(!tags.containsKey(name)) throw error("Unknown object type " + name);
+                
+                return construct(name, tags.get(name));
+        }
+    }
+    
+    private String getReferenceType(String id)
+    {
+        String type = idTypes.get(id);
+        
+        return (type == null || type.equals("null")) ? "java.lang.Object" : type;
+    }
+    
+    private Value construct(String name, String className)
+    {
+        TypeElement type = elements.getTypeElement(className.replace('$', '.'));
+        Method parent = current;
+        Method method;
+        String typeName;
+        
+        if(type == null) throw error("Class " + className + " not found");
+        if(type.getKind() == ElementKind.RECORD) throw error("Records are not supported in generated factories");
+        if(!isConstructable(type)) throw error(className + " does not have a public no-argument constructor, and constructor arguments are not supported in generated factories");
+        
+        typeName = getTypeName(type.asType());
+        method = new Method("create" + type.getSimpleName() + (++objects), typeName);
+        current = method;
+        
+        method.statement(typeName + " object = new " + typeName + "();");
+        populate(type, method);
+        method.statement("");
+        method.statement("return object;");
+        
+        methods.add(method);
+        current = parent;
+        
+        return local(typeName, method.name + "(s)");
+    }
+    
+    private boolean isConstructable(TypeElement type)
+    {
+        Element parent = type.getEnclosingElement();
+        
+        if(type.getKind() != ElementKind.CLASS) return false;
+        if(!type.getModifiers().contains(Modifier.PUBLIC)) return false;
+        if(type.getModifiers().contains(Modifier.ABSTRACT)) return false;
+        if(parent.getKind() != ElementKind.PACKAGE && !type.getModifiers().contains(Modifier.STATIC)) return false;
+        
+        for(ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements()))
+        {
+            if(constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) return true;
+        }
+        
+        return false;
+    }
+    
+    private ExecutableElement getSetter(TypeElement type, String property)
+    {
+        String name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        ExecutableElement setter = null;
+        
+        for(ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type)))
+        {
+            if(!method.getSimpleName().contentEquals(name)) continue;
+            if(method.getParameters().size() != 1) continue;
+            if(method.getReturnType().getKind() != TypeKind.VOID) continue;
+            if(!method.getModifiers().contains(Modifier.PUBLIC)) continue;
+            if(method.getModifiers().contains(Modifier.STATIC)) continue;
+            
+            if(setter != null) throw error("Property " + property + " on object " + type.getQualifiedName() + " has more than one setter");
+            
+            setter = method;
+        }
+        
+        return setter;
+    }
+    
+    private void populate(TypeElement type, Method method)
+    {
+        ExecutableElement setter;
+        TypeMirror parameter;
+        Value value;
+        String name;
+        String id;
+        int slot;
+        int parent = -1;
+        
+        while(nextElement())
+        {
+            name = reader.getLocalName();
+            id = reader.getAttributeValue(null, "id");
+            
+            path.addLast(name);
+            
+            if(name.equals("constructor-arg")) throw error("Constructor arguments are not supported in generated factories");
+            
+            setter = getSetter(type, name);
+            
+            if(setter == null) throw new IllegalArgumentException("Property " + name + " does not exist on object " + type.getQualifiedName() + ", path [" + getPath() + "]");
+            
+            parameter = ((ExecutableType)types.asMemberOf((DeclaredType)type.asType(), setter)).getParameterTypes().get(0);
+            value = getValue();
+            
+            if(isDeclaredCollection(value, parameter)) throw error(getTypeName(parameter) + " properties are not supported in generated factories");
+            if(id != null) register(name, id, value);
+            
+            if(value.slot >= 0)
+            {
+                if(parent < 0)
+                {
+                    parent = slots++;
+                    
+                    method.statement("s[" + parent + "] = object;");
+                }
+                
+                deferred.add(deferProperty(parent, getTypeName(type.asType()), setter, parameter, value.slot, getPath()));
+            }
+            else
+            {
+                method.statement("object." + setter.getSimpleName() + "(" + coerce(value, parameter) + ");");
+            }
+            
+            path.removeLast();
+        }
+    }
+    
+    private Supplier<String> deferProperty(int parent, String type, ExecutableElement setter, TypeMirror parameter, int slot, String location)
+    {
+        return () -> {
+            String reference = getReferenceType(getId(slot));
+            
+            return "((" + type + ")s[" + parent + "])." + setter.getSimpleName() + "(" + coerce(new Value("((" + reference + ")s[" + slot + "])", reference), parameter, location) + ");";
+        };
+    }
+    
+    private Value parseList()
+    {
+        List<Value> items = new ArrayList<>();
+        Value list;
+        Value item;
+        int slot = -1;
+        
+        if(isImmutable()) throw error("Immutable collections are not supported in generated factories");
+        
+        while(nextElement())
+        {
+            items.add(parse());
+        }
+        
+        list = local("java.util.ArrayList", "new java.util.ArrayList(" + items.size() + ")");
+        
+        for(int i=0; i<items.size(); i++)
+        {
+            item = items.get(i);
+            
+            if(item.slot >= 0)
+            {
+                if(slot < 0)
+                {
+                    slot = slots++;
+                    
+                    current.statement("s[" + slot + "] = " + list.code + ";");
+                }
+                
+                deferred.add(defer("((java.util.List)s[" + slot + "]).set(" + i + ", s[" + item.slot + "]);"));
+                current.statement(list.code + ".add(null);");
+            }
+            else
+            {
+                current.statement(list.code + ".add(" + item.code + ");");
+            }
+        }
+        
+        return list;
+    }
+    
+    private static Supplier<String> defer(String statement)
+    {
+        return () -> statement;
+    }
+    
+    private Value parseMap()
+    {
+        List<Value[]> entries = new ArrayList<>();
+        Value[] entry;
+        Value map;
+        int slot = -1;
+        int index;
+        
+        if(isImmutable()) throw error("Immutable collections are not supported in generated factories");
+        
+        while(nextElement())
+        {
+            if(!reader.getLocalName().equals("entry")) throw error("Unexpected value " + reader.getLocalName() + " while parsing Map");
+            
+            entry = new Value[]{ new Value("null", "null"), new Value("null", "null") };
+            index = 0;
+            
+            while(nextElement())
+            {
+                if(index >= entry.length) throw error("Too many values in Map entry! Should be just key and value.");
+                
+                entry[index++] = parse();
+            }
+            
+            entries.add(entry);
+        }
+        
+        // Sized so the map never rehashes while the entries are added
+        map = local("java.util.HashMap", "new java.util.HashMap(" + ((int)(entries.size() / 0.75f) + 1) + ")");
+        
+        for(Value[] pair : entries)
+        {
+            if(pair[0].slot >= 0 || pair[1].slot >= 0)
+            {
+                if(slot < 0)
+                {
+                    slot = slots++;
+                    
+                    current.statement("s[" + slot + "] = " + map.code + ";");
+                }
+                
+                deferred.add(defer("((java.util.Map)s[" + slot + "]).put(" + getDeferredCode(pair[0]) + ", " + getDeferredCode(pair[1]) + ");"));
+            }
+            else
+            {
+                current.statement("put(" + map.code + ", " + pair[0].code + ", " + pair[1].code + ", " + quote(getPath()) + ");");
+            }
+        }
+        
+        return map;
+    }
+    
+    // Values used by deferred statements must outlive the builder method's locals
+    private String getDeferredCode(Value value)
+    {
+        int slot;
+        
+        if(value.slot >= 0) return "s[" + value.slot + "]";
+        if(value.text != null || value.code.equals("null")) return value.code;
+        
+        slot = slots++;
+        
+        current.statement("s[" + slot + "] = " + value.code + ";");
+        
+        return "s[" + slot + "]";
+    }
+    
+    private Value parseLiteral(String name)
+    {
+        Value value;
+        String text;
+        
+        if(reader.getAttributeValue(null, "src") != null) throw error("External payloads are not supported in generated factories");
+        
+        value = getValue();
+        text = value.text;
+        
+        if(text == null)
+        {
+            if(value.slot >= 0) throw error("Forward references cannot be converted to " + name);
+            
+            text = "String.valueOf(" + value.code + ")";
+            
+            switch(name)
+            {
+                case "int":
+                case "integer":
+                    return local("java.lang.Integer", "Integer.valueOf(" + text + ")");
+
+                case "long":
+                    return local("java.lang.Long", "Long.valueOf(" + text + ")");
+
+                case "boolean":
+                    return local("java.lang.Boolean", "Boolean.valueOf(" + text + ")");
+
+                case "float":
+                    return local("java.lang.Float", "Float.valueOf(" + text + ")");
+
+                case "double":
+                    return local("java.lang.Double", "Double.valueOf(" + text + ")");
+
+                case "json":
+                    return local("java.lang.Object", "json(" + text + ")");
+
+                default:
+                    return local("java.lang.String", text);
+            }
+        }
+        
+        try
+        {
+            switch(name)
+            {
+                case "int":
+                case "integer":
+                    return new Value(String.valueOf(Integer.parseInt(text)), "java.lang.Integer");
+
+                case "long":
+                    return new Value(Long.parseLong(text) + "L", "java.lang.Long");
+
+                case "boolean":
+                    return new Value(String.valueOf(Boolean.parseBoolean(text)), "java.lang.Boolean");
+
+                case "float":
+                    return new Value(getLiteral(Float.parseFloat(text)), "java.lang.Float");
+
+                case "double":
+                    return new Value(getLiteral(Double.parseDouble(text)), "java.lang.Double");
+
+                case "json":
+                    if(text.trim().startsWith("[")) return local(JSON_ARRAY, "(" + JSON_ARRAY + ")json(" + quote(text) + ")");
+                    if(text.trim().startsWith("{")) return local(JSON_OBJECT, "(" + JSON_OBJECT + ")json(" + quote(text) + ")");
+                    
+                    // Strings, numbers, booleans, and null
+                    return local("java.lang.Object", "json(" + quote(text) + ")");
+
+                default:
+                    return value;
+            }
+        }
+        catch(NumberFormatException e)
+        {
+            throw error("Unable to convert \"" + text + "\" to " + name);
+        }
+    }
+    
+    private static String getLiteral(float value)
+    {
+        if(Float.isNaN(value)) return "Float.NaN";
+        if(Float.isInfinite(value)) return (value > 0) ? "Float.POSITIVE_INFINITY" : "Float.NEGATIVE_INFINITY";
+        
+        return Float.toString(value) + "f";
+    }
+    
+    private static String getLiteral(double value)
+    {
+        if(Double.isNaN(value)) return "Double.NaN";
+        if(Double.isInfinite(value)) return (value > 0) ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+        
+        return Double.toString(value) + "d";
+    }
+    
+    private String getTypeName(TypeMirror type)
+    {
+        return types.erasure(type).toString();
+    }
+    
+    private String getBoxedName(TypeMirror type)
+    {
+        if(type.getKind().isPrimitive()) return types.boxedClass((PrimitiveType)type).getQualifiedName().toString();
+        
+        return getTypeName(type);
+    }
+    
+    private static boolean isNumeric(TypeMirror type)
+    {
+        switch(type.getKind())
+        {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return true;
+                
+            default:
+                return false;
+        }
+    }
+    
+    private boolean isImmutable()
+    {
+        return Boolean.parseBoolean(reader.getAttributeValue(null, "immutable"));
+    }
+    
+    // The runtime creates lists and maps as the collection the property 
+    // declares. Generated code relies on the converters instead, which only
+    // know the Set, SortedSet, and SortedMap interfaces.
+    private boolean isDeclaredCollection(Value value, TypeMirror parameter)
+    {
+        String name = getTypeName(parameter);
+        
+        if(value.type == null || parameter.getKind() != TypeKind.DECLARED) return false;
+        
+        if(value.type.equals("java.util.ArrayList"))
+        {
+            return isSubtype(parameter, "java.util.Set") && !name.equals("java.util.Set") && !name.equals("java.util.SortedSet") && !name.equals("java.util.NavigableSet");
+        }
+        
+        if(value.type.equals("java.util.HashMap"))
+        {
+            if(name.equals("java.util.EnumMap")) return true;
+            
+            return isSubtype(parameter, "java.util.SortedMap") && !name.equals("java.util.SortedMap") && !name.equals("java.util.NavigableMap");
+        }
+        
+        return false;
+    }
+    
+    private boolean isSubtype(TypeMirror type, String parent)
+    {
+        return types.isSubtype(types.erasure(type), types.erasure(elements.getTypeElement(parent).asType()));
+    }
+    
+    private boolean isAssignable(String type, TypeMirror parameter)
+    {
+        TypeElement element;
+        
+        if(type.equals("null")) return !parameter.getKind().isPrimitive();
+        if(parameter.getKind().isPrimitive()) return type.equals(getBoxedName(parameter));
+        
+        element = elements.getTypeElement(type);
+        
+        return (element != null && types.isAssignable(types.erasure(element.asType()), types.erasure(parameter)));
+    }
+    
+    private String coerce(Value value, TypeMirror parameter)
+    {
+        return coerce(value, parameter, getPath());
+    }
+    
+    // Mirrors the runtime Converters. Literals are converted by the compiler
+    // where possible, everything else is left to Converters at runtime.
+    private String coerce(Value value, TypeMirror parameter, String location)
+    {
+        String literal;
+        
+        if(value.text != null)
+        {
+            literal = convertText(value.text, parameter, location);
+            
+            if(literal != null) return literal;
+        }
+        
+        if(value.type.equals("null") && parameter.getKind().isPrimitive())
+        {
+            throw new IllegalArgumentException("Unable to set null on primitive property at [" + location + "]");
+        }
+        
+        if(isAssignable(value.type, parameter)) return value.code;
+        
+        // Setters called through a MethodHandle widen any boxed number to a
+        // numeric primitive, so an Integer can set a long
+        if(isNumeric(parameter)) return "((Number)" + CONVERTERS + ".convert(" + getTypeName(parameter) + ".class, " + value.code + "))." + getTypeName(parameter) + "Value()";
+        
+        return "((" + getBoxedName(parameter) + ")" + CONVERTERS + ".convert(" + getTypeName(parameter) + ".class, " + value.code + "))";
+    }
+    
+    private String convertText(String text, TypeMirror parameter, String location)
+    {
+        TypeElement string = elements.getTypeElement("java.lang.String");
+        Element element;
+        
+        if(types.isAssignable(string.asType(), parameter)) return quote(text);
+        
+        try
+        {
+            switch(getBoxedName(parameter))
+            {
+                case "java.lang.Byte":
+                    return "(byte)" + Byte.parseByte(text);
+                    
+                case "java.lang.Short":
+                    return "(short)" + Short.parseShort(text);
+                    
+                case "java.lang.Integer":
+                    return String.valueOf(Integer.parseInt(text));
+                    
+                case "java.lang.Long":
+                    return Long.parseLong(text) + "L";
+                    
+                case "java.lang.Boolean":
+                    return String.valueOf(Boolean.parseBoolean(text));
+                    
+                case "java.lang.Float":
+                    return getLiteral(Float.parseFloat(text));
+                    
+                case "java.lang.Double":
+                    return getLiteral(Double.parseDouble(text));
+                    
+                case "java.lang.Character":
+                    if(text.isEmpty()) throw new IllegalArgumentException("Unable to convert empty text to a character at [" + location + "]");
+                    
+                    return "(char)" + (int)text.charAt(0);
+            }
+        }
+        catch(NumberFormatException e)
+        {
+            throw new IllegalArgumentException("Unable to convert \"" + text + "\" to " + getTypeName(parameter) + " at [" + location + "]");
+        }
+        
+        element = types.asElement(parameter);
+        
+        if(element != null && element.getKind() == ElementKind.ENUM)
+        {
+            for(Element constant : element.getEnclosedElements())
+            {
+                if(constant.getKind() == ElementKind.ENUM_CONSTANT && constant.getSimpleName().contentEquals(text.trim()))
+                {
+                    return getTypeName(parameter) + "." + text.trim();
+                }
+            }
+            
+            throw new IllegalArgumentException("No enum constant " + getTypeName(parameter) + "." + text.trim() + " at [" + location + "]");
+        }
+        
+        return null;
+    }
+    
+    // Java string literal. Long strings are built from several literals as 
+    // the class file format limits the size of a single constant.
+    static String quote(String text)
+    {
+        StringBuilder buffer = new StringBuilder();
+        int chunks = 1;
+        char c;
+        
+        buffer.append('"');
+        
+        for(int i=0; i<text.length(); i++)
+        {
+            c = text.charAt(i);
+            
+            if(i > 0 && i % 8192 == 0)
+            {
+                buffer.append("\").append(\"");
+                chunks++;
+            }
+            
+            switch(c)
+            {
+                case '"': buffer.append("\\\""); break;
+                case '\\': buffer.append("\\\\"); break;
+                case '\n': buffer.append("\\n"); break;
+                case '\r': buffer.append("\\r"); break;
+                case '\t': buffer.append("\\t"); break;
+                
+                default:
+                    if(c < ' ' || c > '~') buffer.append(String.format("\\u%04x", (int)c));
+                    else buffer.append(c);
+            }
+        }
+        
+        buffer.append('"');
+        
+        if(chunks > 1) return "new StringBuilder(" + buffer + ").toString()";
+        
+        return buffer.toString();
+    }
+    
+    private static class Method
+    {
+        private final String name;
+        private final String type;
+        private final StringBuilder body = new StringBuilder();
+
+        public Method(String name, String type)
+        {
+            this.name = name;
+            this.type = type;
+        }
+        
+        public void statement(String statement)
+        {
+            if(statement.isEmpty()) body.append("\n");
+            else body.append("        ").append(statement).append("\n");
+        }
+    }
+    
+    private static class Value
+    {
+        private final String code;
+        private final String type;
+        private String text;
+        private int slot = -1;
+
+        public Value(String code, String type)
+        {
+            this.code = code;
+            this.type = type;
+        }
+        
+        public static Value text(String text)
+        {
+            Value value = new Value(quote(text), "java.lang.String");
+            
+            value.text = text;
+            
+            return value;
+        }
+        
+        public static Value forward(int slot)
+        {
+            Value value = new Value(null, null);
+            
+            value.slot = slot;
+            
+            return value;
+        }
+    }
+}
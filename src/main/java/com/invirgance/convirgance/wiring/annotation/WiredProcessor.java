@@ -22,28 +22,47 @@ SOFTWARE.
 package com.invirgance.convirgance.wiring.annotation;
 
 import com.google.auto.service.AutoService;
+import java.beans.Introspector;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Properties;
-import java.util.Set;
+import java.io.PrintWriter;
+import java.util.*;
 import javax.annotation.processing.*;
 import javax.lang.model.SourceVersion;
-import javax.lang.model.element.Element;
-import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
 import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
 import javax.tools.StandardLocation;
 
 /**
- * Used by the javac compiler to process the {@link Wiring} annotation
+ * Used by the javac compiler to process the {@link Wiring} annotation. In 
+ * addition to registering the custom tags in <code>META-INF/wirings.properties</code>,
+ * a {@link WiringPopulator} is generated for each annotated class so that the
+ * class can be wired without reflection.
+ * <br><br>
+ * The {@link WiringFactory} annotation is processed here as well, as it needs
+ * the custom tags. Each listed Wiring XML file is compiled into a factory 
+ * class that builds the object graph without an XML parser or reflection.
+ * Files are looked up in the class output first, which is where build tools
+ * such as Maven copy <code>src/main/resources</code> before compiling, and
+ * then on the source path and class path.
  * 
  * @author jbanes
  */
-@SupportedAnnotationTypes("com.invirgance.convirgance.wiring.annotation.Wiring")
+@SupportedAnnotationTypes({"com.invirgance.convirgance.wiring.annotation.Wiring", "com.invirgance.convirgance.wiring.annotation.WiringFactory"})
 @SupportedSourceVersion(SourceVersion.RELEASE_17)
 @AutoService(Processor.class)
 public class WiredProcessor extends AbstractProcessor
 {
+    private static final StandardLocation[] LOCATIONS = { StandardLocation.CLASS_OUTPUT, StandardLocation.SOURCE_PATH, StandardLocation.CLASS_PATH };
+    
     private Properties getDefaults()
     {
         Properties properties = new Properties();
@@ -102,34 +121,302 @@ public class WiredProcessor extends AbstractProcessor
         }
     }
     
+    private boolean hasPublicConstructor(TypeElement type)
+    {
+        for(ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements()))
+        {
+            if(!constructor.getParameters().isEmpty()) continue;
+            if(constructor.getModifiers().contains(Modifier.PUBLIC)) return true;
+        }
+        
+        return false;
+    }
+    
+    private boolean isPopulatable(TypeElement type)
+    {
+        Element parent = type.getEnclosingElement();
+        
+        if(type.getKind() != ElementKind.CLASS) return false;
+        if(!type.getModifiers().contains(Modifier.PUBLIC)) return false;
+        if(type.getModifiers().contains(Modifier.ABSTRACT)) return false;
+        if(!type.getTypeParameters().isEmpty()) return false;
+        if(parent.getKind() != ElementKind.PACKAGE && !type.getModifiers().contains(Modifier.STATIC)) return false;
+        
+        return hasPublicConstructor(type);
+    }
+    
+    // Collects the single-argument public setters. Overloaded setters are left to reflection.
+    private Map<String,ExecutableElement> getSetters(TypeElement type)
+    {
+        var setters = new LinkedHashMap<String,ExecutableElement>();
+        var ambiguous = new HashSet<String>();
+        String name;
+        
+        for(ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type)))
+        {
+            name = method.getSimpleName().toString();
+            
+            if(!name.startsWith("set") || name.length() < 4) continue;
+            if(method.getParameters().size() != 1) continue;
+            if(method.getReturnType().getKind() != TypeKind.VOID) continue;
+            if(!method.getModifiers().contains(Modifier.PUBLIC)) continue;
+            if(method.getModifiers().contains(Modifier.STATIC)) continue;
+            if(!method.getThrownTypes().isEmpty()) continue;
+            
+            name = Introspector.decapitalize(name.substring(3));
+            
+            if(setters.containsKey(name)) ambiguous.add(name);
+            
+            setters.put(name, method);
+        }
+        
+        for(String property : ambiguous) setters.remove(property);
+        
+        return setters;
+    }
+    
+    // Setters inherited from a generic superclass take the type argument of
+    // the annotated class rather than the erasure of the type variable
+    private TypeMirror getParameterType(TypeElement type, ExecutableElement setter)
+    {
+        ExecutableType member = (ExecutableType)processingEnv.getTypeUtils().asMemberOf((DeclaredType)type.asType(), setter);
+        
+        return member.getParameterTypes().get(0);
+    }
+    
+    private String getTypeName(TypeMirror type)
+    {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+    
+    private String getCast(TypeMirror type)
+    {
+        switch(type.getKind())
+        {
+            case BOOLEAN: return "((Boolean)value).booleanValue()";
+            case BYTE: return "((Byte)value).byteValue()";
+            case CHAR: return "((Character)value).charValue()";
+            case SHORT: return "((Short)value).shortValue()";
+            case INT: return "((Integer)value).intValue()";
+            case LONG: return "((Long)value).longValue()";
+            case FLOAT: return "((Float)value).floatValue()";
+            case DOUBLE: return "((Double)value).doubleValue()";
+            
+            default: return "(" + getTypeName(type) + ")value";
+        }
+    }
+    
+    private void writePopulator(TypeElement type)
+    {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String className = type.getQualifiedName().toString();
+        String populatorName = binaryName.replace('$', '_') + WiringPopulator.SUFFIX;
+        String simpleName = populatorName.substring(populatorName.lastIndexOf('.') + 1);
+        
+        Map<String,ExecutableElement> setters = getSetters(type);
+        List<String> names = new ArrayList<>(setters.keySet());
+        TypeMirror parameter;
+        JavaFileObject file;
+        
+        try
+        {
+            file = processingEnv.getFiler().createSourceFile(populatorName, type);
+            
+            try(PrintWriter out = new PrintWriter(file.openWriter()))
+            {
+                if(!packageName.isEmpty()) out.println("package " + packageName + ";");
+                
+                out.println();
+                out.println("/**");
+                out.println(" * Generated by " + WiredProcessor.class.getName() + ". Do not edit.");
+                out.println(" */");
+                out.println("public final class " + simpleName + " implements " + WiringPopulator.class.getName() + "<" + className + ">");
+                out.println("{");
+                out.println("    @Override");
+                out.println("    public " + className + " newInstance()");
+                out.println("    {");
+                out.println("        return new " + className + "();");
+                out.println("    }");
+                out.println();
+                out.println("    @Override");
+                out.println("    public int getPropertyIndex(String name)");
+                out.println("    {");
+                out.println("        switch(name)");
+                out.println("        {");
+                
+                for(int i=0; i<names.size(); i++)
+                {
+                    out.println("            case \"" + names.get(i) + "\":");
+                    out.println("                return " + i + ";");
+                }
+                
+                out.println("            default:");
+                out.println("                return -1;");
+                out.println("        }");
+                out.println("    }");
+                out.println();
+                out.println("    @Override");
+                out.println("    public Class<?> getPropertyType(int index)");
+                out.println("    {");
+                out.println("        switch(index)");
+                out.println("        {");
+                
+                for(int i=0; i<names.size(); i++)
+                {
+                    parameter = getParameterType(type, setters.get(names.get(i)));
+                    
+                    out.println("            case " + i + ": return " + getTypeName(parameter) + ".class;");
+                }
+                
+                out.println("            default: throw new IndexOutOfBoundsException(index);");
+                out.println("        }");
+                out.println("    }");
+                out.println();
+                out.println("    @Override");
+                out.println("    public void setProperty(" + className + " object, int index, Object value)");
+                out.println("    {");
+                out.println("        switch(index)");
+                out.println("        {");
+                
+                for(int i=0; i<names.size(); i++)
+                {
+                    parameter = getParameterType(type, setters.get(names.get(i)));
+                    
+                    out.println("            case " + i + ": object." + setters.get(names.get(i)).getSimpleName() + "(" + getCast(parameter) + "); return;");
+                }
+                
+                out.println("            default: throw new IndexOutOfBoundsException(index);");
+                out.println("        }");
+                out.println("    }");
+                out.println("}");
+            }
+        }
+        catch(IOException e)
+        {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Unable to generate " + populatorName + ", " + e.getMessage(), type);
+        }
+    }
+    
+    private FileObject getResource(String resource)
+    {
+        Filer filer = processingEnv.getFiler();
+        FileObject file;
+        
+        for(StandardLocation location : LOCATIONS)
+        {
+            try
+            {
+                file = filer.getResource(location, "", resource);
+                
+                // Some locations return a file object whether or not the file exists
+                try(InputStream in = file.openInputStream())
+                {
+                    return file;
+                }
+            }
+            catch(IOException | IllegalArgumentException e)
+            {
+                // Try the next location
+            }
+        }
+        
+        return null;
+    }
+    
+    // "etl/my-pipeline.xml" becomes "MyPipelineFactory"
+    static String getFactoryName(String resource)
+    {
+        String name = resource.substring(resource.lastIndexOf('/') + 1);
+        StringBuilder buffer = new StringBuilder();
+        boolean upper = true;
+        char c;
+        
+        if(name.lastIndexOf('.') > 0) name = name.substring(0, name.lastIndexOf('.'));
+        
+        for(int i=0; i<name.length(); i++)
+        {
+            c = name.charAt(i);
+            
+            if(!Character.isJavaIdentifierPart(c))
+            {
+                upper = true;
+                continue;
+            }
+            
+            if(buffer.length() == 0 && !Character.isJavaIdentifierStart(c)) buffer.append('_');
+            
+            buffer.append(upper ? Character.toUpperCase(c) : c);
+            upper = false;
+        }
+        
+        return buffer + "Factory";
+    }
+    
+    private void writeFactory(Element element, String resource, Properties properties)
+    {
+        String packageName = processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+        String path = resource.startsWith("/") ? resource.substring(1) : resource;
+        FileObject file = getResource(path);
+        Map<String,String> tags = new HashMap<>();
+        
+        if(file == null)
+        {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Wiring file " + resource + " not found", element);
+            return;
+        }
+        
+        for(String name : properties.stringPropertyNames()) tags.put(name, properties.getProperty(name));
+        
+        try(InputStream in = file.openInputStream())
+        {
+            new FactoryWriter(processingEnv, tags).write(packageName, getFactoryName(path), resource, in, element);
+        }
+        catch(IllegalArgumentException e)
+        {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to compile " + resource + ", " + e.getMessage(), element);
+        }
+        catch(IOException e)
+        {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to generate factory for " + resource + ", " + e.getMessage(), element);
+        }
+    }
+    
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
     {
         Properties properties = getDefaults();
         
-        Set<? extends Element> elements;
         Wiring wiring;
         
         String name;
         String className;
+        
+        // Later rounds only see the populators generated below
+        if(annotations.isEmpty()) return true;
 
         System.out.println("Annotation List: ");
 
-        for(TypeElement type : annotations)
+        for(Element element : roundEnv.getElementsAnnotatedWith(Wiring.class))
         {
-            elements = roundEnv.getElementsAnnotatedWith(type);
+            wiring = element.getAnnotation(Wiring.class);
+            name = wiring.value().isBlank() ? element.getSimpleName().toString() : wiring.value();
+            className = ((TypeElement)element).getQualifiedName().toString();
+
+            properties.put(name, className);
+
+            if(isPopulatable((TypeElement)element)) writePopulator((TypeElement)element);
+        }
             
-            for(Element element : elements)
+        System.out.println(properties);
+        
+        for(Element element : roundEnv.getElementsAnnotatedWith(WiringFactory.class))
+        {
+            for(String resource : element.getAnnotation(WiringFactory.class).value())
             {
-                wiring = element.getAnnotation(Wiring.class);
-                name = wiring.value().isBlank() ? element.getSimpleName().toString() : wiring.value();
-                className = ((TypeElement)element).getQualifiedName().toString();
-                
-                properties.put(name, className);
+                writeFactory(element, resource, properties);
             }
         }
-            
-        System.out.println(properties);
         
         if(!properties.isEmpty()) writeWirings(properties);
         
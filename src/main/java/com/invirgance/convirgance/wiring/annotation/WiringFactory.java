@@ -0,0 +1,51 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Compiles Wiring XML files into Java factory classes at build time. Each 
+ * file listed is read from the compiled resources (e.g. <code>src/main/resources</code>)
+ * and turned into a class with a static <code>create()</code> method that 
+ * builds the same object graph with plain constructor and setter calls. 
+ * Classes, custom tags, and properties are resolved by the compiler, so a 
+ * mistake in the XML is reported as a compile error rather than at runtime.
+ * <br><br>
+ * The factory is generated in the package of the annotated type and named 
+ * after the file. For example, annotating <code>com.example.Main</code> with 
+ * <code>@WiringFactory("etl/my-pipeline.xml")</code> generates 
+ * <code>com.example.MyPipelineFactory</code>:
+ * <pre>
+ * ETLOperation pipeline = MyPipelineFactory.create();
+ * </pre>
+ * 
+ * @author jbanes
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface WiringFactory
+{
+    /** Paths of the Wiring XML files, relative to the root of the resources **/
+    public String[] value();
+}
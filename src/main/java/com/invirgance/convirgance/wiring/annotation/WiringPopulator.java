@@ -0,0 +1,75 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring.annotation;
+
+/**
+ * Constructs and populates instances of a {@link Wiring} annotated class 
+ * without reflection. Implementations are generated by the {@link WiredProcessor}
+ * at compile time and are discovered by naming convention: the populator for
+ * <code>com.example.MyObject</code> is <code>com.example.MyObject_WiringPopulator</code>.
+ * <br><br>
+ * Property names are resolved to an index once when a wiring file is compiled.
+ * Setting a property then only requires a switch over the index.
+ * 
+ * @author jbanes
+ * @param <T> the annotated class
+ */
+public interface WiringPopulator<T>
+{
+    /**
+     * Suffix appended to the binary name of the annotated class, with any 
+     * <code>$</code> replaced by <code>_</code>, to form the populator name.
+     */
+    public static final String SUFFIX = "_WiringPopulator";
+    
+    /**
+     * Creates a new instance using the public no-argument constructor
+     * 
+     * @return a new instance of the annotated class
+     */
+    public T newInstance();
+    
+    /**
+     * Resolves a property name to the index used by the other methods.
+     * 
+     * @param name the name of the property as used in the wiring file
+     * @return the index of the property or -1 if the property is not supported
+     */
+    public int getPropertyIndex(String name);
+    
+    /**
+     * Returns the parameter type of the setter for the property
+     * 
+     * @param index the property index
+     * @return the type the value must be coerced to before it is set
+     */
+    public Class<?> getPropertyType(int index);
+    
+    /**
+     * Calls the setter for the property
+     * 
+     * @param object the object to populate
+     * @param index the property index
+     * @param value the value to set, already coerced to the property type
+     */
+    public void setProperty(T object, int index, Object value);
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.source.ClasspathSource;
+import com.invirgance.convirgance.source.FileSource;
+import com.test.TestBean;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.lang.reflect.Array;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author jbanes
+ */
+public class BinaryWiringTest
+{
+    static void assertGraphEquals(Object expected, Object actual, String path) throws Exception
+    {
+        Iterator iterator;
+        
+        if(expected == null || actual == null)
+        {
+            assertEquals(expected, actual, path);
+            return;
+        }
+        
+        assertEquals(expected.getClass(), actual.getClass(), path);
+        
+        if(expected.getClass().isArray())
+        {
+            assertEquals(Array.getLength(expected), Array.getLength(actual), path);
+            
+            for(int i=0; i<Array.getLength(expected); i++)
+            {
+                assertGraphEquals(Array.get(expected, i), Array.get(actual, i), path + "[" + i + "]");
+            }
+        }
+        else if(expected instanceof List)
+        {
+            assertEquals(((List)expected).size(), ((List)actual).size(), path);
+            
+            iterator = ((List)actual).iterator();
+            
+            for(Object item : (List)expected) assertGraphEquals(item, iterator.next(), path + "[]");
+        }
+        else if(expected instanceof Map)
+        {
+            assertEquals(((Map)expected).keySet(), ((Map)actual).keySet(), path);
+            
+            for(Object key : ((Map)expected).keySet())
+            {
+                assertGraphEquals(((Map)expected).get(key), ((Map)actual).get(key), path + "." + key);
+            }
+        }
+        else if(expected.getClass().getName().startsWith("com.test."))
+        {
+            for(PropertyDescriptor descriptor : Introspector.getBeanInfo(expected.getClass(), Object.class).getPropertyDescriptors())
+            {
+                if(descriptor.getReadMethod() == null) continue;
+                
+                assertGraphEquals(descriptor.getReadMethod().invoke(expected), descriptor.getReadMethod().invoke(actual), path + "/" + descriptor.getName());
+            }
+        }
+        else
+        {
+            assertEquals(expected, actual, path);
+        }
+    }
+    
+    private byte[] write(WiringTemplate template) throws Exception
+    {
+        var out = new ByteArrayOutputStream();
+        
+        template.write(out);
+        
+        return out.toByteArray();
+    }
+    
+    @Test
+    public void testRoundTrip() throws Exception
+    {
+        String[] resources = { "/bean.xml", "/references.xml", "/text.xml", "/wired.xml" };
+        WiringTemplate template;
+        File file;
+        
+        for(String resource : resources)
+        {
+            template = XMLWiringParser.compile(new ClasspathSource(resource));
+            file = File.createTempFile("wiring", ".wire");
+            
+            file.deleteOnExit();
+            Files.write(file.toPath(), write(template));
+            
+            assertGraphEquals(template.instantiate(), XMLWiringParser.load(file).instantiate(), resource);
+            assertGraphEquals(template.instantiate(), XMLWiringParser.load(new FileSource(file)).instantiate(), resource);
+            assertEquals(template.getIds(), XMLWiringParser.load(file).getIds());
+            assertArrayEquals(write(template), write(XMLWiringParser.load(file)), resource);
+        }
+    }
+    
+    @Test
+    public void testCompiler() throws Exception
+    {
+        File xml = File.createTempFile("wiring", ".xml");
+        File output = File.createTempFile("wiring", ".wire");
+        XMLWiringParser<TestBean> parser;
+        
+        xml.deleteOnExit();
+        output.deleteOnExit();
+        
+        Files.write(xml.toPath(), getClass().getResourceAsStream("/references.xml").readAllBytes());
+        WiringCompiler.main(new String[]{ xml.getPath(), output.getPath() });
+        
+        parser = new XMLWiringParser<>(XMLWiringParser.<TestBean>load(output));
+        
+        assertEquals(12, parser.getRoot().getPrimitiveInt());
+        assertEquals("One", parser.get("one"));
+        assertEquals(3, parser.getRoot().getMap().get("Three"));
+    }
+    
+    @Test
+    public void testCorrupt() throws Exception
+    {
+        File file = File.createTempFile("wiring", ".wire");
+        byte[] data = write(XMLWiringParser.compile(new ClasspathSource("/bean.xml")));
+        
+        file.deleteOnExit();
+        
+        Files.write(file.toPath(), "<object/>".getBytes());
+        assertThrows(ConvirganceException.class, () -> XMLWiringParser.load(file));
+        
+        Files.write(file.toPath(), Arrays.copyOf(data, data.length / 2));
+        assertThrows(ConvirganceException.class, () -> XMLWiringParser.load(file));
+    }
+}
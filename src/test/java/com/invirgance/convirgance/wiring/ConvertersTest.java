@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.source.ClasspathSource;
+import com.test.TestBean;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author jbanes
+ */
+public class ConvertersTest
+{
+    @Test
+    public void testBuiltIn()
+    {
+        assertSame(Converters.getConverter(int.class), Converters.getConverter(int.class));
+        assertEquals(12, Converters.convert(int.class, "12"));
+        assertEquals(12L, Converters.convert(Long.class, "12"));
+        assertEquals('x', Converters.convert(char.class, "xyz"));
+        assertEquals(TimeUnit.DAYS, Converters.convert(TimeUnit.class, " DAYS "));
+        assertNull(Converters.convert(int.class, null));
+        
+        assertArrayEquals(new int[]{ 1, 2, 3 }, (int[])Converters.convert(int[].class, List.of(1, 2, 3)));
+        assertArrayEquals(new int[]{ 1, 2, 3 }, (int[])Converters.convert(int[].class, "1, 2, 3"));
+        assertArrayEquals(new long[]{ 1, 2 }, (long[])Converters.convert(long[].class, List.of("1", 2L)));
+        assertArrayEquals(new String[]{ "One", "Two" }, (String[])Converters.convert(String[].class, " One, Two "));
+    }
+    
+    @Test
+    public void testRegistered()
+    {
+        var source = new ClasspathSource("/converters.xml");
+        
+        assertThrows(ConvirganceException.class, () -> new XMLWiringParser<TestBean>(source));
+        
+        Converters.register(Duration.class, value -> Duration.parse(value.toString().trim()));
+        
+        try
+        {
+            var object = new XMLWiringParser<TestBean>(source).getRoot();
+
+            assertEquals(Duration.ofMinutes(15), object.getDuration());
+            assertEquals(TimeUnit.SECONDS, object.getUnit());
+            assertArrayEquals(new int[]{ 4, 5, 6 }, object.getIntArray());
+            assertArrayEquals(new double[]{ 1.5, 2.5 }, object.getDoubleArray());
+        }
+        finally
+        {
+            Converters.unregister(Duration.class);
+        }
+    }
+}
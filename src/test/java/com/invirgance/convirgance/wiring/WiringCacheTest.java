@@ -0,0 +1,118 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.source.ClasspathSource;
+import com.invirgance.convirgance.source.FileSource;
+import com.test.TestBean;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author jbanes
+ */
+public class WiringCacheTest
+{
+    private File copy(String resource) throws Exception
+    {
+        File file = File.createTempFile("wiring", ".xml");
+        
+        file.deleteOnExit();
+        
+        try(InputStream in = getClass().getResourceAsStream(resource))
+        {
+            Files.write(file.toPath(), in.readAllBytes());
+        }
+        
+        return file;
+    }
+    
+    @Test
+    public void testContentAddressed() throws Exception
+    {
+        var cache = new WiringCache(10);
+        var file = copy("/bean.xml");
+        var template = cache.<TestBean>getTemplate(new ClasspathSource("/bean.xml"));
+        
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        
+        // Same content from a different source
+        assertSame(template, cache.getTemplate(new FileSource(file)));
+        assertSame(template, cache.getTemplate(file));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.size());
+        
+        var first = cache.<TestBean>getParser(file).getRoot();
+        var second = cache.<TestBean>getParser(file).getRoot();
+        
+        assertNotSame(first, second);
+        assertEquals("Hello world!", second.getString());
+        assertEquals(4, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+    
+    @Test
+    public void testModifiedFile() throws Exception
+    {
+        var cache = new WiringCache(10);
+        var file = copy("/bean.xml");
+        var template = cache.<TestBean>getTemplate(file);
+        
+        Files.write(file.toPath(), Files.readString(file.toPath()).replace("Hello world!", "Modified").getBytes("UTF-8"));
+        
+        var modified = cache.<TestBean>getTemplate(file);
+        
+        assertNotSame(template, modified);
+        assertEquals("Modified", modified.instantiate().getString());
+        assertEquals(2, cache.getMissCount());
+    }
+    
+    @Test
+    public void testEviction()
+    {
+        var cache = new WiringCache(1);
+        var bean = new ClasspathSource("/bean.xml");
+        var references = new ClasspathSource("/references.xml");
+        
+        cache.getTemplate(bean);
+        cache.getTemplate(references);
+        
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        
+        cache.getTemplate(references);
+        cache.getTemplate(bean);
+        
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(0.25, cache.getHitRate());
+        
+        cache.clear();
+        
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.source.ClasspathSource;
+import com.invirgance.convirgance.wiring.annotation.WiringFactory;
+import com.invirgance.convirgance.wiring.annotation.WiredProcessor;
+import java.io.File;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author jbanes
+ */
+@WiringFactory({"bean.xml", "references.xml", "text.xml", "wired.xml", "conversions.xml"})
+public class WiringFactoryTest
+{
+    private Object parse(String resource)
+    {
+        return new XMLWiringParser(new ClasspathSource(resource)).getRoot();
+    }
+    
+    @Test
+    public void testGeneratedFactories() throws Exception
+    {
+        BinaryWiringTest.assertGraphEquals(parse("/bean.xml"), BeanFactory.create(), "/bean.xml");
+        BinaryWiringTest.assertGraphEquals(parse("/references.xml"), ReferencesFactory.create(), "/references.xml");
+        BinaryWiringTest.assertGraphEquals(parse("/text.xml"), TextFactory.create(), "/text.xml");
+        BinaryWiringTest.assertGraphEquals(parse("/wired.xml"), WiredFactory.create(), "/wired.xml");
+        BinaryWiringTest.assertGraphEquals(parse("/conversions.xml"), ConversionsFactory.create(), "/conversions.xml");
+        
+        assertNotSame(BeanFactory.create(), BeanFactory.create());
+        assertEquals(12, ReferencesFactory.create().getPrimitiveInt());
+        assertEquals(5L, ConversionsFactory.create().getPrimitiveLong());
+        assertEquals(List.of("Hi", 42), ConversionsFactory.create().getList());
+    }
+    
+    private String compile(String xml) throws Exception
+    {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        File output = Files.createTempDirectory("wiring").toFile();
+        StringWriter errors = new StringWriter();
+        String source = "@com.invirgance.convirgance.wiring.annotation.WiringFactory(\"test.xml\") public class Wired {}";
+        JavaFileObject file;
+        
+        Files.writeString(new File(output, "test.xml").toPath(), xml);
+        
+        file = new SimpleJavaFileObject(URI.create("string:///Wired.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors)
+            {
+                return source;
+            }
+        };
+        
+        var task = compiler.getTask(errors, null, null, List.of("-d", output.getPath(), "-classpath", System.getProperty("java.class.path")), null, List.of(file));
+        
+        task.setProcessors(List.of(new WiredProcessor()));
+        task.call();
+        
+        return errors.toString();
+    }
+    
+    @Test
+    public void testCompileErrors() throws Exception
+    {
+        assertEquals("", compile("<object class=\"com.test.TestBean\"><string>Hello</string><primitiveInt>12</primitiveInt></object>"));
+        
+        assertTrue(compile("<object class=\"com.test.TestBean\"><missing>1</missing></object>").contains("Property missing does not exist on object com.test.TestBean"));
+        assertTrue(compile("<object class=\"com.test.TestBean\"><primitiveInt>twelve</primitiveInt></object>").contains("Unable to convert \"twelve\" to int"));
+        assertTrue(compile("<object class=\"com.test.TestBean\"><unit>FORTNIGHTS</unit></object>").contains("No enum constant java.util.concurrent.TimeUnit.FORTNIGHTS"));
+        assertTrue(compile("<object class=\"com.test.Missing\"></object>").contains("Class com.test.Missing not found"));
+        assertTrue(compile("<Unknown></Unknown>").contains("Unknown object type Unknown"));
+        assertTrue(compile("<list><ref id=\"nowhere\" /></list>").contains("Reference to id \"nowhere\" not found"));
+        assertTrue(compile(Files.readString(Path.of(getClass().getResource("/circular.xml").toURI()))).contains("Circular reference between ids first -> second -> third -> first"));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.json.JSONArray;
+import com.invirgance.convirgance.json.JSONObject;
+import com.invirgance.convirgance.source.ClasspathSource;
+import com.test.TestBean;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author jbanes
+ */
+public class WiringInternerTest
+{
+    @Test
+    public void testIntern()
+    {
+        var interner = new WiringInterner();
+        var options = new WiringOptions();
+        List list;
+        List other;
+        TestBean first;
+        TestBean second;
+        
+        list = new XMLWiringParser<List>(new ClasspathSource("/interning.xml")).getRoot();
+        
+        assertNotSame(((TestBean)list.get(0)).getString(), ((TestBean)list.get(1)).getString());
+        
+        options.setInterner(interner);
+        
+        list = new XMLWiringParser<List>(new ClasspathSource("/interning.xml"), options).getRoot();
+        first = (TestBean)list.get(0);
+        second = (TestBean)list.get(1);
+        
+        assertSame(first.getString(), second.getString());
+        assertSame(first.getString(), list.get(2));
+        assertSame(first.getObjectLong(), second.getObjectLong());
+        
+        // JSON is still copied for each use, but shares its keys and values
+        assertNotSame(first.getJsonObject(), second.getJsonObject());
+        assertEquals(first.getJsonObject(), second.getJsonObject());
+        assertSame(((JSONArray)first.getJsonObject().get("columns")).get(1), ((JSONArray)second.getJsonObject().get("columns")).get(1));
+        
+        assertTrue(interner.getDuplicates() > 0);
+        assertTrue(interner.getSavedBytes() > 0);
+        
+        // Values are shared with later documents using the same interner
+        other = new XMLWiringParser<List>(new ClasspathSource("/interning.xml"), options).getRoot();
+        
+        assertSame(list.get(2), other.get(2));
+        assertSame(interner.intern(new JSONObject("{\"columns\": [\"id\", \"name\"]}")), interner.intern(new JSONObject("{\"columns\": [\"id\", \"name\"]}")));
+        assertTrue(interner.toString().startsWith("Interned "), interner.toString());
+    }
+    
+    @Test
+    public void testSavedBytes()
+    {
+        var interner = new WiringInterner();
+        
+        interner.intern(new JSONObject("{\"a\": {\"b\": 1}}"));
+        
+        assertEquals(0, interner.getSavedBytes());
+        
+        interner.intern(new JSONObject("{\"a\": {\"b\": 1}}"));
+        
+        // Strings "a" and "b" at 48 bytes each, the Integer at 16, and each
+        // object at 120 bytes counted once
+        assertEquals(5, interner.getDuplicates());
+        assertEquals(352, interner.getSavedBytes());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.invirgance.convirgance.source.ClasspathSource;
+import com.test.LazyBean;
+import com.test.PooledBean;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author jbanes
+ */
+public class WiringPoolTest
+{
+    @Test
+    public void testBorrow()
+    {
+        var context = new XMLWiringParser<>(new ClasspathSource("/pool.xml")).getContext();
+        var pool = new WiringPool(context);
+        var first = pool.borrow("worker", PooledBean.class);
+        var second = pool.borrow("worker", PooledBean.class);
+        
+        assertNotSame(first, second);
+        assertEquals("Worker", first.getName());
+        assertSame(context.get("shared"), first.getDependency());
+        assertSame(context.get("shared"), second.getDependency());
+        
+        first.use();
+        pool.release("worker", first);
+        
+        assertEquals(1, pool.getIdle("worker"));
+        assertEquals(0, first.getUses());
+        assertSame(first, pool.borrow("worker"));
+        assertEquals(0, pool.getIdle("worker"));
+        
+        assertThrows(ConvirganceException.class, () -> pool.borrow("shared"));
+        assertThrows(ConvirganceException.class, () -> pool.borrow("worker", LazyBean.class));
+        assertEquals(1, pool.getIdle("worker"));
+    }
+    
+    @Test
+    public void testEviction() throws Exception
+    {
+        var pool = new WiringPool(new XMLWiringParser<>(new ClasspathSource("/pool.xml")).getContext());
+        var first = pool.borrow("worker", PooledBean.class);
+        var second = pool.borrow("worker", PooledBean.class);
+        var third = pool.borrow("worker", PooledBean.class);
+        
+        pool.setMaxIdle(2);
+        pool.release("worker", first);
+        pool.release("worker", second);
+        pool.release("worker", third);
+        
+        assertEquals(2, pool.getIdle("worker"));
+        assertFalse(first.isClosed());
+        assertTrue(third.isClosed());
+        
+        pool.setIdleTimeout(0);
+        Thread.sleep(5);
+        pool.evict();
+        
+        assertEquals(0, pool.getIdle("worker"));
+        assertTrue(first.isClosed());
+        assertTrue(second.isClosed());
+        
+        pool.setIdleTimeout(60000);
+        first = pool.borrow("worker", PooledBean.class);
+        pool.release("worker", first);
+        pool.close();
+        
+        assertEquals(0, pool.getIdle("worker"));
+        assertTrue(first.isClosed());
+    }
+    
+    @Test
+    public void testResetMethod()
+    {
+        var pool = new WiringPool(new XMLWiringParser<>(new ClasspathSource("/prototype.xml")).getContext());
+        var worker = pool.borrow("worker", LazyBean.class);
+        
+        pool.setResetMethod("run");
+        pool.release("worker", worker);
+        
+        assertSame(worker, pool.borrow("worker"));
+        assertEquals(1, worker.getRuns());
+        
+        pool.setResetMethod("missing");
+        
+        assertThrows(ConvirganceException.class, () -> pool.release("worker", worker));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.json.JSONObject;
+import com.test.TestBean;
+import com.test.ThreadBean;
+import com.invirgance.convirgance.source.ClasspathSource;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author jbanes
+ */
+public class WiringTemplateTest
+{
+    @Test
+    public void testInstantiate()
+    {
+        var template = XMLWiringParser.<TestBean>compile(new ClasspathSource("/bean.xml"));
+        var first = template.instantiate();
+        var second = template.instantiate();
+        
+        assertNotSame(first, second);
+        assertNotSame(first.getObject(), second.getObject());
+        assertNotSame(first.getList(), second.getList());
+        assertNotSame(first.getMap(), second.getMap());
+        assertNotSame(first.getIntArray(), second.getIntArray());
+        assertNotSame(first.getStringArray(), second.getStringArray());
+        assertNotSame(first.getJsonArray(), second.getJsonArray());
+        assertNotSame(first.getObject().getJsonObject(), second.getObject().getJsonObject());
+        
+        assertEquals("Hello world!", second.getString());
+        assertEquals(12, second.getPrimitiveInt());
+        assertEquals(13.37, second.getPrimitiveDouble());
+        assertEquals(first.getList(), second.getList());
+        assertEquals(first.getMap(), second.getMap());
+        assertEquals("Goodbye, Cruel World!", second.getObject().getString());
+        assertEquals(12, second.getObject().getPrimitiveInt());
+        assertEquals(new JSONObject("{\"one\":1,\"two\":2,\"three\":3}"), second.getObject().getJsonObject());
+        assertEquals(3, second.getIntArray()[2]);
+        
+        first.getList().clear();
+        
+        assertEquals(3, second.getList().size());
+    }
+    
+    @Test
+    public void testParserFromTemplate()
+    {
+        var template = XMLWiringParser.<TestBean>compile(new ClasspathSource("/references.xml"));
+        var first = new XMLWiringParser<>(template);
+        var second = new XMLWiringParser<>(template);
+        
+        assertNotSame(first.getRoot(), second.getRoot());
+        assertSame(template, first.getTemplate());
+        
+        for(var parser : new XMLWiringParser[]{ first, second })
+        {
+            var object = (TestBean)parser.getRoot();
+            
+            assertEquals(12, object.getPrimitiveInt());
+            assertEquals("One", object.getList().get(0));
+            assertEquals(3, object.getMap().size());
+            assertEquals(1, object.getMap().get("One"));
+            assertEquals(3, object.getMap().get("Three"));
+            assertEquals("One", parser.get("one"));
+        }
+        
+        assertTrue(template.getIds().contains("one"));
+    }
+    
+    @Test
+    public void testParallel() throws Exception
+    {
+        var template = XMLWiringParser.<List>compile(new ClasspathSource("/parallel.xml"));
+        var executor = Executors.newFixedThreadPool(4);
+        List list;
+        
+        try
+        {
+            for(int i=0; i<20; i++)
+            {
+                list = template.instantiate(executor);
+                
+                assertEquals(5, list.size());
+                assertEquals("First", ((ThreadBean)list.get(0)).getName());
+                assertEquals("Second", ((ThreadBean)list.get(1)).getName());
+                assertEquals("Third", ((ThreadBean)list.get(2)).getName());
+                assertEquals("Fourth", list.get(3));
+                assertSame(list.get(0), ((ThreadBean)list.get(2)).getDependency());
+                assertSame(((Map)list.get(4)).get("key"), ((ThreadBean)list.get(1)).getDependency());
+                assertNotSame(Thread.currentThread(), ((ThreadBean)list.get(0)).getThread());
+            }
+            
+            BinaryWiringTest.assertGraphEquals(XMLWiringParser.compile(new ClasspathSource("/bean.xml")).instantiate(), XMLWiringParser.compile(new ClasspathSource("/bean.xml")).instantiate(executor), "/bean.xml");
+            BinaryWiringTest.assertGraphEquals(XMLWiringParser.compile(new ClasspathSource("/references.xml")).instantiate(), new XMLWiringParser<>(XMLWiringParser.compile(new ClasspathSource("/references.xml")), executor).getRoot(), "/references.xml");
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.invirgance.convirgance.wiring;
+
+import com.invirgance.convirgance.ConvirganceException;
+import com.test.TestBean;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author jbanes
+ */
+public class WiringWatcherTest
+{
+    private File copy(String resource) throws Exception
+    {
+        File file = File.createTempFile("wiring", ".xml");
+        
+        file.deleteOnExit();
+        
+        try(InputStream in = getClass().getResourceAsStream(resource))
+        {
+            Files.write(file.toPath(), in.readAllBytes());
+        }
+        
+        return file;
+    }
+    
+    private void replace(File file, String text, String replacement) throws Exception
+    {
+        String xml = Files.readString(file.toPath());
+        
+        assertTrue(xml.contains(text));
+        Files.writeString(file.toPath(), xml.replace(text, replacement));
+    }
+    
+    @Test
+    public void testReload() throws Exception
+    {
+        var file = copy("/reload.xml");
+        var watcher = new WiringWatcher<TestBean>(file);
+        var root = watcher.getRoot();
+        var child = root.getObject();
+        var list = root.getList();
+        var json = root.getJsonObject();
+        
+        assertEquals("Root", root.getString());
+        assertEquals(5, root.getPrimitiveInt());
+        assertSame(child, watcher.get("child"));
+        assertFalse(watcher.reload());
+        assertEquals(1, watcher.getReloadCount());
+        
+        replace(file, "<string>Root</string>", "<string>Changed</string>");
+        assertTrue(watcher.reload());
+        
+        assertSame(root, watcher.getRoot());
+        assertSame(child, root.getObject());
+        assertSame(list, root.getList());
+        assertSame(json, root.getJsonObject());
+        assertEquals("Changed", root.getString());
+        
+        // Forward reference follows the id
+        replace(file, "<objectInteger id=\"count\">5</objectInteger>", "<objectInteger id=\"count\">6</objectInteger>");
+        assertTrue(watcher.reload());
+        
+        assertEquals(6, root.getPrimitiveInt());
+        assertEquals(6, root.getObjectInteger());
+        assertSame(child, root.getObject());
+        
+        replace(file, "<string>Child</string>", "<string>Modified</string>");
+        assertTrue(watcher.reload());
+        
+        assertSame(child, root.getObject());
+        assertEquals("Modified", child.getString());
+        assertEquals(7, child.getPrimitiveLong());
+        
+        replace(file, "<string>Two</string>", "<string>Three</string>");
+        assertTrue(watcher.reload());
+        
+        assertNotSame(list, root.getList());
+        assertEquals("Three", root.getList().get(1));
+        assertSame(json, root.getJsonObject());
+        
+        // Removed properties cannot be reverted, so the child is replaced
+        replace(file, "<primitiveLong>7</primitiveLong>", "");
+        assertTrue(watcher.reload());
+        
+        assertNotSame(child, root.getObject());
+        assertSame(root.getObject(), watcher.get("child"));
+        assertEquals("Modified", root.getObject().getString());
+        assertEquals(0, root.getObject().getPrimitiveLong());
+        assertSame(root, watcher.getRoot());
+        assertEquals(6, watcher.getReloadCount());
+        
+        replace(file, "</jsonObject>", "");
+        assertThrows(ConvirganceException.class, () -> watcher.reload());
+        
+        assertNotNull(watcher.getLastError());
+        assertSame(root, watcher.getRoot());
+    }
+    
+    @Test
+    public void testFailedReload() throws Exception
+    {
+        var file = copy("/reload.xml");
+        var watcher = new WiringWatcher<TestBean>(file);
+        var root = watcher.getRoot();
+        var child = root.getObject();
+        
+        // The child is reused and changed, but a later property cannot be set
+        replace(file, "<string>Child</string>", "<string>Changed</string>");
+        replace(file, "<string>Root</string>", "<string>Root</string><primitiveBoolean><list /></primitiveBoolean>");
+        assertThrows(ConvirganceException.class, () -> watcher.reload());
+        
+        assertNotNull(watcher.getLastError());
+        assertSame(root, watcher.getRoot());
+        assertSame(child, root.getObject());
+        assertEquals("Child", child.getString());
+        assertEquals("Root", root.getString());
+        assertEquals(1, watcher.getReloadCount());
+        
+        // A forward reference that cannot be set is only found while linking
+        replace(file, "<primitiveBoolean><list /></primitiveBoolean>", "<primitiveLong><ref id=\"child\" /></primitiveLong>");
+        assertThrows(ConvirganceException.class, () -> watcher.reload());
+        
+        assertEquals("Child", child.getString());
+        
+        replace(file, "<primitiveLong><ref id=\"child\" /></primitiveLong>", "");
+        assertTrue(watcher.reload());
+        
+        assertSame(child, root.getObject());
+        assertEquals("Changed", child.getString());
+        assertNull(watcher.getLastError());
+    }
+    
+    @Test
+    public void testMovedId() throws Exception
+    {
+        var file = copy("/reload.xml");
+        var watcher = new WiringWatcher<TestBean>(file);
+        var child = (TestBean)watcher.get("child");
+        String xml = Files.readString(file.toPath());
+        
+        // Move the child from the object property into the list
+        xml = xml.replace("<object id=\"child\" class=\"com.test.TestBean\">", "<ref id=\"child\" /><!--");
+        xml = xml.replace("<primitiveLong>7</primitiveLong>\n        </object>", "<primitiveLong>7</primitiveLong>-->");
+        xml = xml.replace("<string>One</string>", "<object id=\"child\" class=\"com.test.TestBean\"><string>Child</string><primitiveLong>7</primitiveLong></object>");
+        
+        Files.writeString(file.toPath(), xml);
+        assertTrue(watcher.reload());
+        
+        assertSame(child, watcher.get("child"));
+        assertSame(child, watcher.getRoot().getObject());
+        assertSame(child, ((List)watcher.getRoot().getList()).get(0));
+    }
+    
+    @Test
+    public void testWatch() throws Exception
+    {
+        var file = copy("/reload.xml");
+        
+        try(var watcher = new WiringWatcher<TestBean>(file))
+        {
+            watcher.start();
+            
+            replace(file, "<string>Root</string>", "<string>Watched</string>");
+            
+            for(int i=0; i<200 && watcher.getReloadCount() < 2; i++) Thread.sleep(50);
+            
+            assertEquals("Watched", watcher.getRoot().getString());
+        }
+    }
+}
@@ -21,10 +21,37 @@ SOFTWARE.
  */
 package com.invirgance.convirgance.wiring;
 
+import com.invirgance.convirgance.ConvirganceException;
 import com.invirgance.convirgance.json.JSONArray;
 import com.invirgance.convirgance.json.JSONObject;
+import com.test.CollectionBean;
+import com.test.ImmutableBean;
+import com.test.LazyBean;
+import com.test.Point;
 import com.test.TestBean;
+import com.test.ThreadBean;
+import com.test.WiredBean;
 import com.invirgance.convirgance.source.ClasspathSource;
+import com.invirgance.convirgance.source.FileSource;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -106,5 +133,664 @@ public class XMLWiringParserTest
         assertEquals(2, object.getMap().get("Two"));
         assertEquals(3, object.getMap().get("Three"));
     }
+    
+    @Test
+    public void testPropertyMetadata()
+    {
+        var metadata = ClassMetadata.get(TestBean.class);
+        
+        assertSame(metadata, ClassMetadata.get(TestBean.class));
+        assertEquals(int.class, metadata.getSetter("primitiveInt").type);
+        assertEquals(String[].class, metadata.getSetter("stringArray").type);
+        assertNotNull(metadata.getConstructor());
+        assertNull(metadata.getSetter("missing"));
+        
+        var error = assertThrows(ConvirganceException.class, () -> new XMLWiringParser<TestBean>(new ClasspathSource("/unknown-property.xml")));
+        
+        assertTrue(error.getMessage().startsWith("Property missing does not exist on object com.test.TestBean"), error.getMessage());
+    }
+    
+    @Test
+    public void testTextHandling()
+    {
+        var source = new ClasspathSource("/text.xml");
+        var object = new XMLWiringParser<TestBean>(source).getRoot();
+        
+        assertEquals("Fish & Chips", object.getString().trim());
+        assertTrue(object.getString().startsWith("\n"));
+        
+        assertEquals(4, object.getList().size());
+        assertEquals(" One ", object.getList().get(0));
+        assertEquals("", object.getList().get(1));
+        assertEquals("Two", object.getList().get(2));
+        assertEquals("Three", object.getList().get(3));
+    }
+    
+    @Test
+    public void testGeneratedPopulator()
+    {
+        var metadata = ClassMetadata.get(WiredBean.class);
+        var source = new ClasspathSource("/wired.xml");
+        var object = new XMLWiringParser<WiredBean>(source).getRoot();
+        
+        assertNotNull(metadata.getPopulator());
+        assertEquals("com.test.WiredBean_WiringPopulator", metadata.getPopulator().getClass().getName());
+        assertEquals(int[].class, metadata.getSetter("weights").type);
+        assertNull(ClassMetadata.get(TestBean.class).getPopulator());
+        
+        assertEquals("Wired", object.getName());
+        assertEquals(3, object.getCount());
+        assertEquals(2, object.getValues().size());
+        assertEquals("Two", object.getValues().get(1));
+        assertEquals(7, object.getWeights()[2]);
+        assertEquals("Two", object.getBean().getString());
+        
+        // Inherited from a generic superclass, so typed by its type argument
+        assertEquals(String.class, metadata.getSetter("value").type);
+        assertEquals("Inherited", object.getValue());
+        
+        object = new XMLWiringParser<WiredBean>(new ClasspathSource("/wired-limits.xml")).getRoot();
+        
+        assertEquals(5, object.getLimits().get(TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testTagRegistry() throws Exception
+    {
+        var loader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        var registry = TagRegistry.forClassLoader(loader);
+        var source = new ClasspathSource("/registered.xml");
+        
+        assertSame(registry, TagRegistry.forClassLoader(loader));
+        assertNotSame(registry, TagRegistry.getDefault());
+        assertTrue(registry.isRegistered("TestBean"));
+        assertFalse(registry.isRegistered("Bean"));
+        assertThrows(ConvirganceException.class, () -> new XMLWiringParser<TestBean>(source, registry));
+        
+        registry.register("Bean", TestBean.class);
+        
+        var object = new XMLWiringParser<TestBean>(source, registry).getRoot();
+        
+        assertEquals("Registered", object.getString());
+        assertEquals(5, object.getObject().getPrimitiveInt());
+        assertEquals(TestBean.class, registry.getTagClass("Bean"));
+        assertEquals("com.test.TestBean", registry.getTags().getProperty("Bean"));
+        assertFalse(TagRegistry.getDefault().isRegistered("Bean"));
+        
+        registry.register(WiredBean.class);
+        
+        assertEquals(WiredBean.class, registry.getTagClass("WiredBean"));
+    }
+    
+    @Test
+    public void testCircularReference()
+    {
+        var error = assertThrows(ConvirganceException.class, () -> new XMLWiringParser<TestBean>(new ClasspathSource("/circular.xml")));
+        
+        assertEquals("Circular reference between ids first -> second -> third -> first", error.getMessage());
+    }
+    
+    @Test
+    public void testReferenceChain() throws Exception
+    {
+        var xml = new StringBuilder("<list>");
+        var file = File.createTempFile("chain", ".xml");
+        XMLWiringParser<List<TestBean>> parser;
+        int count = 20000;
+        
+        file.deleteOnExit();
+        
+        // Each property aliases the next, forming a chain of forward references
+        for(int i=0; i<count; i++)
+        {
+            xml.append("<object class=\"com.test.TestBean\"><string id=\"s").append(i).append("\"><ref id=\"s").append(i + 1).append("\"/></string></object>");
+        }
+        
+        xml.append("<object class=\"com.test.TestBean\"><string id=\"s").append(count).append("\">End</string></object></list>");
+        
+        Files.writeString(file.toPath(), xml);
+        
+        parser = new XMLWiringParser<>(new FileSource(file));
+        
+        assertEquals(count + 1, parser.getRoot().size());
+        assertEquals("End", parser.getRoot().get(0).getString());
+        assertEquals("End", parser.getRoot().get(count / 2).getString());
+        assertEquals("End", parser.get("s0"));
+    }
+    
+    @Test
+    public void testContext() throws Exception
+    {
+        var context = new XMLWiringParser<TestBean>(new ClasspathSource("/references.xml")).getContext();
+        var threads = new Thread[4];
+        var failures = new AtomicInteger();
+        ConvirganceException error;
+        
+        assertEquals(12, context.getRoot().getObjectInteger());
+        assertEquals(7, context.getIds().size());
+        assertEquals("One", context.get("one"));
+        assertEquals(3, context.get("3", Integer.class));
+        assertNull(context.get("missing"));
+        assertNull(context.get("missing", String.class));
+        assertTrue(context.contains("three"));
+        assertFalse(context.contains("four"));
+        
+        error = assertThrows(ConvirganceException.class, () -> context.get("one", Integer.class));
+        
+        assertEquals("Object with id \"one\" is of type java.lang.String, expected java.lang.Integer", error.getMessage());
+        
+        for(int i=0; i<threads.length; i++)
+        {
+            threads[i] = new Thread(() -> {
+                for(int j=0; j<10000; j++)
+                {
+                    if(!"Three".equals(context.get("three")) || context.get("3", Integer.class) != 3) failures.incrementAndGet();
+                }
+            });
+            
+            threads[i].start();
+        }
+        
+        for(Thread thread : threads) thread.join();
+        
+        assertEquals(0, failures.get());
+    }
+    
+    @Test
+    public void testStatistics() throws Exception
+    {
+        var statistics = new WiringStatistics();
+        var options = new WiringOptions();
+        
+        options.addListener(statistics);
+        
+        new XMLWiringParser<TestBean>(new ClasspathSource("/references.xml"), options);
+        
+        assertEquals(getClass().getResourceAsStream("/references.xml").readAllBytes().length, statistics.getBytesRead());
+        assertEquals(31, statistics.getElements());
+        assertEquals(2, statistics.getTagCount("object"));
+        assertEquals(2, statistics.getObjects());
+        assertEquals(2, statistics.getInstances(TestBean.class));
+        assertEquals(6, statistics.getSetterCalls());
+        assertEquals(5, statistics.getReferences());
+        assertTrue(statistics.getConstructorTime(TestBean.class) > 0);
+        assertTrue(statistics.getCompileTime() > 0);
+        assertTrue(statistics.toString().contains("com.test.TestBean: 2 in "), statistics.toString());
+    }
+    
+    @Test
+    public void testFlightRecorder() throws Exception
+    {
+        var file = File.createTempFile("wiring", ".jfr");
+        var names = new ArrayList<String>();
+        
+        file.deleteOnExit();
+        
+        try(var recording = new Recording())
+        {
+            recording.enable("com.invirgance.convirgance.wiring.Compile");
+            recording.enable("com.invirgance.convirgance.wiring.Construct").withThreshold(Duration.ZERO);
+            recording.enable("com.invirgance.convirgance.wiring.Resolve");
+            recording.start();
+            
+            new XMLWiringParser<TestBean>(new ClasspathSource("/references.xml"));
+            
+            recording.stop();
+            recording.dump(file.toPath());
+        }
+        
+        for(RecordedEvent event : RecordingFile.readAllEvents(file.toPath()))
+        {
+            names.add(event.getEventType().getName().substring("com.invirgance.convirgance.wiring.".length()));
+            
+            if(event.getEventType().getName().endsWith("Construct")) assertEquals("com.test.TestBean", event.getString("type"));
+            if(event.getEventType().getName().endsWith("Compile")) assertTrue(event.getLong("bytes") > 0);
+        }
+        
+        assertEquals(List.of("Compile", "Construct", "Construct", "Resolve", "Instantiate"), names);
+    }
+    
+    @Test
+    public void testLazy()
+    {
+        var source = new ClasspathSource("/lazy.xml");
+        XMLWiringParser<LazyBean> parser;
+        LazyBean root;
+        LazyBean second;
+        
+        LazyBean.constructed.set(0);
+        
+        parser = new XMLWiringParser<>(source);
+        root = parser.getRoot();
+        
+        // Third is forced as its property is not a Supplier or interface
+        assertEquals(2, LazyBean.constructed.get());
+        assertEquals("Third", root.getDependency().getName());
+        assertSame(root.getDependency(), parser.get("third"));
+        assertNotNull(root.getSupplier());
+        
+        // Running the proxy constructs second, which needs first
+        root.getTask().run();
+        root.getTask().run();
+        
+        assertEquals(4, LazyBean.constructed.get());
+        
+        second = (LazyBean)parser.get("second");
+        
+        assertEquals("Second", second.getName());
+        assertEquals(2, second.getRuns());
+        assertSame(second, root.getDependency().getSupplier().get());
+        assertSame(parser.get("first"), root.getSupplier().get());
+        assertSame(parser.get("first"), second.getDependency());
+        assertEquals(4, LazyBean.constructed.get());
+    }
+    
+    @Test
+    public void testLazyMode() throws Exception
+    {
+        var options = new WiringOptions();
+        var out = new ByteArrayOutputStream();
+        WiringTemplate<LazyBean> template;
+        XMLWiringParser<LazyBean> parser;
+        
+        options.setLazy(true);
+        
+        template = XMLWiringParser.compile(new ClasspathSource("/lazy.xml"), options);
+        template.write(out);
+        
+        LazyBean.constructed.set(0);
+        
+        for(WiringTemplate<LazyBean> compiled : List.of(template, BinaryWiring.<LazyBean>read(ByteBuffer.wrap(out.toByteArray()), TagRegistry.getDefault())))
+        {
+            parser = new XMLWiringParser<>(compiled);
+            
+            assertEquals(0, LazyBean.constructed.get());
+            assertEquals("First", ((LazyBean)parser.get("first")).getName());
+            assertEquals(1, LazyBean.constructed.get());
+            assertSame(parser.get("first"), parser.getContext().get("first", LazyBean.class));
+            assertEquals(1, LazyBean.constructed.get());
+            assertEquals("Root", parser.getRoot().getName());
+            assertEquals(3, LazyBean.constructed.get());
+            assertSame(parser.get("third"), parser.getRoot().getDependency());
+            assertSame(parser.get("first"), parser.getRoot().getSupplier().get());
+            
+            LazyBean.constructed.set(0);
+        }
+    }
+    
+    @Test
+    public void testLazyIds()
+    {
+        XMLWiringParser<LazyBean> parser;
+        ConvirganceException error;
+        LazyBean root;
+        LazyBean outer;
         
+        LazyBean.constructed.set(0);
+        
+        // Nested lazy elements have a holder in their slot from the start
+        parser = new XMLWiringParser<>(new ClasspathSource("/lazy-nested.xml"));
+        root = parser.getRoot();
+        
+        assertEquals(2, LazyBean.constructed.get());
+        assertEquals("Inner", root.getDependency().getName());
+        assertSame(root.getDependency(), parser.get("inner"));
+        assertSame(root.getDependency(), parser.getContext().get("inner"));
+        
+        outer = (LazyBean)parser.get("outer");
+        
+        assertEquals(3, LazyBean.constructed.get());
+        assertSame(root.getDependency(), outer.getDependency());
+        
+        // Anything else would be null until the lazy element is forced
+        error = assertThrows(ConvirganceException.class, () -> new XMLWiringParser<LazyBean>(new ClasspathSource("/lazy-id.xml")));
+        
+        assertEquals("Id inner on name tag inside a lazy element must be lazy itself at [object > supplier > object > name]", error.getMessage());
+        
+        error = assertThrows(ConvirganceException.class, () -> new XMLWiringParser<LazyBean>(new ClasspathSource("/lazy-element-id.xml")));
+        
+        assertTrue(error.getMessage().startsWith("Id inner on object tag inside a lazy element"), error.getMessage());
+    }
+    
+    @Test
+    public void testLazyParallel()
+    {
+        var template = XMLWiringParser.<List>compile(new ClasspathSource("/lazy-parallel.xml"));
+        var executor = Executors.newFixedThreadPool(4);
+        ThreadBean shared;
+        List list;
+        
+        try
+        {
+            for(int i=0; i<50; i++)
+            {
+                list = template.instantiate(executor);
+                shared = ((ThreadBean)list.get(0)).getSupplier().get();
+                
+                assertEquals("Shared", shared.getName());
+                assertSame(list.get(5), shared.getDependency());
+                
+                for(int j=1; j<5; j++) assertSame(shared, ((ThreadBean)list.get(j)).getDependency());
+                
+                // Forced from a branch, so the subtree is built serially on the 
+                // thread that forced it
+                for(ThreadBean child : shared.getChildren()) assertSame(shared.getThread(), child.getThread());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+    
+    @Test
+    public void testPrototype() throws Exception
+    {
+        var template = XMLWiringParser.<List>compile(new ClasspathSource("/prototype.xml"));
+        var out = new ByteArrayOutputStream();
+        var executor = Executors.newFixedThreadPool(4);
+        XMLWiringParser<List> parser;
+        LazyBean shared;
+        List list;
+        
+        template.write(out);
+        
+        try
+        {
+            for(WiringTemplate<List> compiled : List.of(template, BinaryWiring.<List>read(ByteBuffer.wrap(out.toByteArray()), TagRegistry.getDefault())))
+            {
+                LazyBean.constructed.set(0);
+                
+                parser = new XMLWiringParser<>(compiled);
+                list = parser.getRoot();
+                shared = (LazyBean)list.get(0);
+                
+                // The shared bean, the element itself, and one for each reference
+                assertEquals(4, LazyBean.constructed.get());
+                assertEquals("Worker", shared.getDependency().getName());
+                assertNotSame(shared.getDependency(), list.get(1));
+                assertNotSame(list.get(1), list.get(2));
+                assertSame(shared, ((LazyBean)list.get(1)).getDependency());
+                assertSame(shared, ((LazyBean)list.get(2)).getDependency());
+                assertSame(shared, shared.getDependency().getDependency());
+                
+                assertNotSame(parser.get("worker"), parser.get("worker"));
+                assertSame(shared, parser.get("shared"));
+                assertSame(shared, parser.getContext().get("worker", LazyBean.class).getDependency());
+                assertEquals(7, LazyBean.constructed.get());
+                
+                list = compiled.instantiate(executor);
+                
+                assertSame(list.get(0), ((LazyBean)list.get(1)).getDependency());
+                assertSame(list.get(0), ((LazyBean)list.get(2)).getDependency());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        
+        assertThrows(ConvirganceException.class, () -> XMLWiringParser.compile(new ClasspathSource("/prototype-id.xml")));
+    }
+    
+    @Test
+    public void testConstructor() throws Exception
+    {
+        var template = XMLWiringParser.<List>compile(new ClasspathSource("/constructor.xml"));
+        var out = new ByteArrayOutputStream();
+        var executor = Executors.newFixedThreadPool(4);
+        ConvirganceException error;
+        ImmutableBean bean;
+        List list;
+        
+        template.write(out);
+        
+        try
+        {
+            for(WiringTemplate<List> compiled : List.of(template, BinaryWiring.<List>read(ByteBuffer.wrap(out.toByteArray()), TagRegistry.getDefault())))
+            {
+                for(List graph : List.of(compiled.instantiate(), compiled.instantiate(executor)))
+                {
+                    bean = (ImmutableBean)graph.get(0);
+                    
+                    assertEquals("First", bean.getName());
+                    assertEquals(3, bean.getSize());
+                    assertSame(graph.get(1), bean.getDependency());
+                    assertEquals(new Point(1, 2, "Origin"), graph.get(1));
+                    assertEquals(new Point(5, 0, null), graph.get(2));
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        
+        list = new XMLWiringParser<List>(new ClasspathSource("/constructor.xml")).getContext().getRoot();
+        
+        assertSame(list.get(1), ((ImmutableBean)list.get(0)).getDependency());
+        
+        error = assertThrows(ConvirganceException.class, () -> new XMLWiringParser<List>(new ClasspathSource("/constructor-circular.xml")));
+        
+        assertTrue(error.getMessage().startsWith("Circular constructor arguments"), error.getMessage());
+    }
+    
+    @Test
+    public void testExternal() throws Exception
+    {
+        var template = XMLWiringParser.<TestBean>compile(new ClasspathSource("/external.xml"));
+        var out = new ByteArrayOutputStream();
+        var payload = File.createTempFile("payload", ".json");
+        var wiring = File.createTempFile("external", ".xml");
+        XMLWiringParser<Object> parser;
+        TestBean bean;
+        
+        template.write(out);
+        
+        for(WiringTemplate<TestBean> compiled : List.of(template, BinaryWiring.<TestBean>read(ByteBuffer.wrap(out.toByteArray()), TagRegistry.getDefault())))
+        {
+            bean = compiled.instantiate();
+            
+            assertEquals("Text loaded from a file\n<with markup & entities>", bean.getString());
+            assertEquals("Payload", bean.getJsonObject().get("name"));
+            assertEquals(3, ((JSONArray)bean.getJsonObject().get("rates")).size());
+            assertNotSame(bean.getJsonObject(), compiled.instantiate().getJsonObject());
+        }
+        
+        payload.deleteOnExit();
+        wiring.deleteOnExit();
+        payload.delete();
+        
+        // The payload does not exist until after wiring, so it must be read on first access
+        Files.writeString(wiring.toPath(), "<object class=\"com.test.LazyBean\"><supplier><json id=\"payload\" lazy=\"true\" src=\"" + payload.getAbsolutePath() + "\" /></supplier></object>");
+        
+        parser = new XMLWiringParser<>(new FileSource(wiring));
+        
+        Files.writeString(payload.toPath(), "{\"name\": \"Deferred\"}");
+        
+        assertEquals("Deferred", ((JSONObject)parser.get("payload")).get("name"));
+    }
+    
+    @Test
+    public void testPrimitiveArrays() throws Exception
+    {
+        var template = XMLWiringParser.<List>compile(new ClasspathSource("/arrays.xml"));
+        var out = new ByteArrayOutputStream();
+        var vector = File.createTempFile("vector", ".bin");
+        var wiring = File.createTempFile("vector", ".xml");
+        var buffer = ByteBuffer.allocate(400000).order(ByteOrder.LITTLE_ENDIAN);
+        int[] values;
+        TestBean bean;
+        List list;
+        
+        template.write(out);
+        
+        for(WiringTemplate<List> compiled : List.of(template, BinaryWiring.<List>read(ByteBuffer.wrap(out.toByteArray()), TagRegistry.getDefault())))
+        {
+            list = compiled.instantiate();
+            bean = (TestBean)list.get(0);
+            
+            assertArrayEquals(new int[] {1, 2, 3, 4, 5, -6}, bean.getIntArray());
+            assertArrayEquals(new double[] {0.5, 1500}, bean.getDoubleArray());
+            assertArrayEquals(new long[] {9007199254740993L, -1}, (long[])list.get(1));
+            assertArrayEquals(new byte[] {1, 2, 3, -1}, (byte[])list.get(2));
+            assertArrayEquals(new byte[] {1, 2, -128}, (byte[])list.get(3));
+            assertArrayEquals(new int[] {1, 256, 65536, -1}, (int[])list.get(4));
+            
+            // Each graph owns its arrays
+            assertNotSame(bean.getIntArray(), ((TestBean)compiled.instantiate().get(0)).getIntArray());
+        }
+        
+        vector.deleteOnExit();
+        wiring.deleteOnExit();
+        
+        for(int i=0; i<100000; i++) buffer.putInt(i * 3);
+        
+        Files.write(vector.toPath(), buffer.array());
+        Files.writeString(wiring.toPath(), "<int-array order=\"little-endian\" src=\"" + vector.getAbsolutePath() + "\" />");
+        
+        values = new XMLWiringParser<int[]>(new FileSource(wiring)).getRoot();
+        
+        assertEquals(100000, values.length);
+        assertEquals(299997, values[99999]);
+        
+        Files.writeString(wiring.toPath(), "<int-array>1 2 x</int-array>");
+        
+        assertThrows(ConvirganceException.class, () -> XMLWiringParser.compile(new FileSource(wiring)));
+    }
+    
+    @Test
+    public void testCollections() throws Exception
+    {
+        var options = new WiringOptions();
+        var out = new ByteArrayOutputStream();
+        WiringTemplate<CollectionBean> template;
+        CollectionBean bean;
+        
+        bean = new XMLWiringParser<CollectionBean>(new ClasspathSource("/collections.xml")).getRoot();
+        
+        assertEquals(List.of("first", "value"), bean.getList());
+        assertEquals(List.of("b", "a"), new ArrayList<>(bean.getSet()));
+        assertEquals(List.of("a", "z"), new ArrayList<>(bean.getSortedMap().keySet()));
+        assertEquals(60, bean.getEnumMap().get(TimeUnit.MINUTES));
+        
+        bean.getList().add("mutable");
+        bean.getMap().put("mutable", true);
+        
+        options.setImmutableCollections(true);
+        
+        template = XMLWiringParser.compile(new ClasspathSource("/collections.xml"), options);
+        template.write(out);
+        
+        for(WiringTemplate<CollectionBean> compiled : List.of(template, BinaryWiring.<CollectionBean>read(ByteBuffer.wrap(out.toByteArray()), TagRegistry.getDefault())))
+        {
+            var frozen = compiled.instantiate();
+            
+            // The forward reference is patched into the list behind the unmodifiable view
+            assertEquals(List.of("first", "value"), frozen.getList());
+            assertEquals(Set.of("a", "b"), frozen.getSet());
+            assertEquals(Map.of("key", "value"), frozen.getMap());
+            assertEquals(List.of("a", "z"), new ArrayList<>(frozen.getSortedMap().keySet()));
+            assertEquals(1, frozen.getEnumMap().get(TimeUnit.SECONDS));
+            
+            assertThrows(UnsupportedOperationException.class, () -> frozen.getList().add("immutable"));
+            assertThrows(UnsupportedOperationException.class, () -> frozen.getSet().add("immutable"));
+            assertThrows(UnsupportedOperationException.class, () -> frozen.getMap().put("immutable", true));
+            assertThrows(UnsupportedOperationException.class, () -> frozen.getSortedMap().put("immutable", 0));
+            
+            // Concrete types are left as declared
+            frozen.getArrayList().add("mutable");
+            frozen.getEnumMap().put(TimeUnit.HOURS, 3600);
+        }
+    }
+    
+    @Test
+    public void testParameters() throws Exception
+    {
+        var options = new WiringOptions();
+        var out = new ByteArrayOutputStream();
+        WiringTemplate<TestBean> template;
+        ConvirganceException error;
+        TestBean bean;
+        
+        options.setParameters(true);
+        
+        template = XMLWiringParser.compile(new ClasspathSource("/parameters.xml"), options);
+        template.write(out);
+        
+        for(WiringTemplate<TestBean> compiled : List.of(template, BinaryWiring.<TestBean>read(ByteBuffer.wrap(out.toByteArray()), TagRegistry.getDefault())))
+        {
+            assertEquals(Set.of("schema", "batchSize"), compiled.getParameters());
+            
+            bean = compiled.instantiate(Map.of("schema", "tenant1", "batchSize", "500"));
+            
+            assertEquals("tenant1.customers", bean.getString());
+            assertEquals(500, bean.getPrimitiveInt());
+            assertEquals(500L, bean.getObjectLong());
+            assertEquals(List.of("tenant1", "${literal}", "${cdata}"), bean.getList());
+            
+            bean = compiled.instantiate(Map.of("schema", "tenant2", "batchSize", 250));
+            
+            assertEquals("tenant2.customers", bean.getString());
+            assertEquals(250, bean.getPrimitiveInt());
+            assertEquals(250L, bean.getObjectLong());
+        }
+        
+        bean = new XMLWiringParser<>(template, Map.of("schema", "tenant3", "batchSize", 1)).getRoot();
+        
+        assertEquals("tenant3.customers", bean.getString());
+        
+        error = assertThrows(ConvirganceException.class, () -> template.instantiate(Map.of("schema", "tenant4")));
+        
+        assertTrue(error.getMessage().contains("batchSize"), error.getMessage());
+        
+        error = assertThrows(ConvirganceException.class, () -> new XMLWiringParser<TestBean>(template));
+        
+        assertTrue(error.getMessage().startsWith("No value given for parameter"), error.getMessage());
+        
+        // Without the option, placeholders are ordinary text
+        bean = new XMLWiringParser<TestBean>(new ClasspathSource("/parameters-disabled.xml")).getRoot();
+        
+        assertEquals(Set.of(), XMLWiringParser.compile(new ClasspathSource("/parameters-disabled.xml")).getParameters());
+        assertEquals("${schema}.customers", bean.getString());
+        assertEquals(List.of("${schema}", "$${literal}", "${cdata}"), bean.getList());
+    }
+    
+    @Test
+    public void testAllocationBudget() throws Exception
+    {
+        var threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        var file = File.createTempFile("allocation", ".xml");
+        var xml = new StringBuilder("<list>");
+        var statistics = new WiringStatistics();
+        var options = new WiringOptions();
+        long thread = Thread.currentThread().getId();
+        long allocated;
+        
+        if(!threads.isThreadAllocatedMemorySupported()) return;
+        
+        file.deleteOnExit();
+        
+        for(int i=0; i<1000; i++)
+        {
+            xml.append("<object class=\"com.test.TestBean\"><string>Value ").append(i).append("</string>");
+            xml.append("<primitiveInt>").append(i).append("</primitiveInt>");
+            xml.append("<map><map><entry><string>key</string><integer>1</integer></entry></map></map></object>");
+        }
+        
+        Files.writeString(file.toPath(), xml.append("</list>"));
+        options.addListener(statistics);
+        
+        // Warm up class loading, metadata caches, and the XML factory
+        for(int i=0; i<10; i++) XMLWiringParser.compile(new FileSource(file));
+        
+        allocated = threads.getThreadAllocatedBytes(thread);
+        
+        XMLWiringParser.compile(new FileSource(file), options);
+        
+        allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+        
+        // Measured at ~190 bytes per element, down from ~345 before paths and text buffers were reused
+        assertTrue(allocated / statistics.getElements() < 300, (allocated / statistics.getElements()) + " bytes per element");
+    }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Declares a variety of collection types
+ * 
+ * @author jbanes
+ */
+public class CollectionBean
+{
+    private List<Object> list;
+    private ArrayList<String> arrayList;
+    private Set<String> set;
+    private Map<String, Object> map;
+    private SortedMap<String, Integer> sortedMap;
+    private EnumMap<TimeUnit, Integer> enumMap;
+
+    public List<Object> getList()
+    {
+        return list;
+    }
+
+    public void setList(List<Object> list)
+    {
+        this.list = list;
+    }
+
+    public ArrayList<String> getArrayList()
+    {
+        return arrayList;
+    }
+
+    public void setArrayList(ArrayList<String> arrayList)
+    {
+        this.arrayList = arrayList;
+    }
+
+    public Set<String> getSet()
+    {
+        return set;
+    }
+
+    public void setSet(Set<String> set)
+    {
+        this.set = set;
+    }
+
+    public Map<String, Object> getMap()
+    {
+        return map;
+    }
+
+    public void setMap(Map<String, Object> map)
+    {
+        this.map = map;
+    }
+
+    public SortedMap<String, Integer> getSortedMap()
+    {
+        return sortedMap;
+    }
+
+    public void setSortedMap(SortedMap<String, Integer> sortedMap)
+    {
+        this.sortedMap = sortedMap;
+    }
+
+    public EnumMap<TimeUnit, Integer> getEnumMap()
+    {
+        return enumMap;
+    }
+
+    public void setEnumMap(EnumMap<TimeUnit, Integer> enumMap)
+    {
+        this.enumMap = enumMap;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Counts how many instances have been constructed
+ * 
+ * @author jbanes
+ */
+public class LazyBean implements Runnable
+{
+    public static final AtomicInteger constructed = new AtomicInteger();
+    
+    private String name;
+    private int runs;
+    private Supplier<LazyBean> supplier;
+    private Runnable task;
+    private LazyBean dependency;
+
+    public LazyBean()
+    {
+        constructed.incrementAndGet();
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    public int getRuns()
+    {
+        return runs;
+    }
+
+    @Override
+    public void run()
+    {
+        runs++;
+    }
+
+    public Supplier<LazyBean> getSupplier()
+    {
+        return supplier;
+    }
+
+    public void setSupplier(Supplier<LazyBean> supplier)
+    {
+        this.supplier = supplier;
+    }
+
+    public Runnable getTask()
+    {
+        return task;
+    }
+
+    public void setTask(Runnable task)
+    {
+        this.task = task;
+    }
+
+    public LazyBean getDependency()
+    {
+        return dependency;
+    }
+
+    public void setDependency(LazyBean dependency)
+    {
+        this.dependency = dependency;
+    }
+}
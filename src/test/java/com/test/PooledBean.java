@@ -0,0 +1,84 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.test;
+
+import com.invirgance.convirgance.wiring.Resettable;
+
+/**
+ * Tracks its use by jobs so that pooling and resets can be observed
+ * 
+ * @author jbanes
+ */
+public class PooledBean implements Resettable, AutoCloseable
+{
+    private String name;
+    private Object dependency;
+    private int uses;
+    private boolean closed;
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    public Object getDependency()
+    {
+        return dependency;
+    }
+
+    public void setDependency(Object dependency)
+    {
+        this.dependency = dependency;
+    }
+
+    public int getUses()
+    {
+        return uses;
+    }
+    
+    public void use()
+    {
+        uses++;
+    }
+
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    @Override
+    public void reset()
+    {
+        uses = 0;
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+    }
+}
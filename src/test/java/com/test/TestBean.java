@@ -2,8 +2,10 @@ package com.test;
 
 import com.invirgance.convirgance.json.JSONArray;
 import com.invirgance.convirgance.json.JSONObject;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /*
  * Copyright 2024 INVIRGANCE LLC
@@ -57,6 +59,10 @@ public class TestBean
     
     private String[] stringArray;
     private int[] intArray;
+    private double[] doubleArray;
+    
+    private Duration duration;
+    private TimeUnit unit;
 
     public String getString()
     {
@@ -238,6 +244,36 @@ public class TestBean
         this.intArray = intArray;
     }
 
+    public double[] getDoubleArray()
+    {
+        return doubleArray;
+    }
+
+    public void setDoubleArray(double[] doubleArray)
+    {
+        this.doubleArray = doubleArray;
+    }
+
+    public Duration getDuration()
+    {
+        return duration;
+    }
+
+    public void setDuration(Duration duration)
+    {
+        this.duration = duration;
+    }
+
+    public TimeUnit getUnit()
+    {
+        return unit;
+    }
+
+    public void setUnit(TimeUnit unit)
+    {
+        this.unit = unit;
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.test;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Records the thread that constructed it
+ * 
+ * @author jbanes
+ */
+public class ThreadBean
+{
+    private final Thread thread = Thread.currentThread();
+    private String name;
+    private ThreadBean dependency;
+    private Supplier<ThreadBean> supplier;
+    private List<ThreadBean> children;
+
+    public Thread getThread()
+    {
+        return thread;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    public ThreadBean getDependency()
+    {
+        return dependency;
+    }
+
+    public void setDependency(ThreadBean dependency)
+    {
+        this.dependency = dependency;
+    }
+
+    public Supplier<ThreadBean> getSupplier()
+    {
+        return supplier;
+    }
+
+    public void setSupplier(Supplier<ThreadBean> supplier)
+    {
+        this.supplier = supplier;
+    }
+
+    public List<ThreadBean> getChildren()
+    {
+        return children;
+    }
+
+    public void setChildren(List<ThreadBean> children)
+    {
+        this.children = children;
+    }
+}
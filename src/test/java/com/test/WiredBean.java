@@ -0,0 +1,102 @@
+/*
+ * Copyright 2024 INVIRGANCE LLC
+
+Permission is hereby granted, free of charge, to any person obtaining a copy 
+of this software and associated documentation files (the “Software”), to deal 
+in the Software without restriction, including without limitation the rights to 
+use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+of the Software, and to permit persons to whom the Software is furnished to do 
+so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, 
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE 
+SOFTWARE.
+ */
+package com.test;
+
+import com.invirgance.convirgance.wiring.annotation.Wiring;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * @author jbanes
+ */
+@Wiring
+public class WiredBean extends ValueBean<String>
+{
+    private String name;
+    private int count;
+    private List<String> values;
+    private int[] weights;
+    private TestBean bean;
+    private EnumMap<TimeUnit, Integer> limits;
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    public int getCount()
+    {
+        return count;
+    }
+
+    public void setCount(int count)
+    {
+        this.count = count;
+    }
+
+    public List<String> getValues()
+    {
+        return values;
+    }
+
+    public void setValues(List<String> values)
+    {
+        this.values = values;
+    }
+
+    public int[] getWeights()
+    {
+        return weights;
+    }
+
+    public void setWeights(int[] weights)
+    {
+        this.weights = weights;
+    }
+
+    public TestBean getBean()
+    {
+        return bean;
+    }
+
+    public void setBean(TestBean bean)
+    {
+        this.bean = bean;
+    }
+
+    public EnumMap<TimeUnit, Integer> getLimits()
+    {
+        return limits;
+    }
+
+    public void setLimits(EnumMap<TimeUnit, Integer> limits)
+    {
+        this.limits = limits;
+    }
+}